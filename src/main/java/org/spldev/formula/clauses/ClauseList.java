@@ -0,0 +1,403 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.clauses;
+
+import java.util.*;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+
+/**
+ * A list of clauses representing a formula in conjunctive normal form. Like in
+ * the DIMACS format, each literal is an int that contains the index of its
+ * variable in the {@link VariableMap variable map}, which is negative if the
+ * literal is negated. All literals are stored in a single array together with
+ * the start offsets of the clauses, such that all clauses can be scanned in
+ * linear time without creating any objects.
+ *
+ * @author Sebastian Krieter
+ */
+public class ClauseList implements Iterable<int[]>, ClauseSink {
+
+	private final VariableMap variableMap;
+
+	private int[] literals;
+	private int[] clauseOffsets;
+	private int literalCount;
+	private int clauseCount;
+
+	public ClauseList(VariableMap variableMap) {
+		this(variableMap, 16, 64);
+	}
+
+	public ClauseList(VariableMap variableMap, int clauseCapacity, int literalCapacity) {
+		this.variableMap = Objects.requireNonNull(variableMap);
+		literals = new int[Math.max(1, literalCapacity)];
+		clauseOffsets = new int[Math.max(1, clauseCapacity) + 1];
+	}
+
+	public ClauseList(ClauseList otherClauseList) {
+		variableMap = otherClauseList.variableMap;
+		literals = Arrays.copyOf(otherClauseList.literals, otherClauseList.literalCount);
+		clauseOffsets = Arrays.copyOf(otherClauseList.clauseOffsets, otherClauseList.clauseCount + 1);
+		literalCount = otherClauseList.literalCount;
+		clauseCount = otherClauseList.clauseCount;
+	}
+
+	/**
+	 * Creates a clause list from a formula in CNF. The literals are indexed
+	 * according to the variable map of the formula.
+	 *
+	 * @param formula the formula in CNF
+	 * @return a new clause list
+	 * @throws IllegalArgumentException if the formula is not in CNF or contains
+	 *                                  literals that are not boolean variables
+	 */
+	public static ClauseList fromCNF(Formula formula) {
+		return fromCNF(formula, formula.getVariableMap());
+	}
+
+	/**
+	 * Creates a clause list from a formula in CNF. The literals are indexed
+	 * according to the given variable map, which must contain all variables of the
+	 * formula. Clauses that contain {@link Literal#True} are omitted and
+	 * {@link Literal#False} is removed from the remaining clauses.
+	 *
+	 * @param formula     the formula in CNF
+	 * @param variableMap the variable map
+	 * @return a new clause list
+	 * @throws IllegalArgumentException if the formula is not in CNF or contains
+	 *                                  literals that are not boolean variables of
+	 *                                  the variable map
+	 */
+	public static ClauseList fromCNF(Formula formula, VariableMap variableMap) {
+		if (!Formulas.isClausalCNF(formula)) {
+			if (!Formulas.isCNF(formula)) {
+				throw new IllegalArgumentException("Formula is not in CNF");
+			}
+			formula = Formulas.toCNF(formula).get();
+		}
+		final List<? extends Expression> clauses = formula.getChildren();
+		int literalCount = 0;
+		for (final Expression clause : clauses) {
+			literalCount += clause.getChildren().size();
+		}
+		final ClauseList clauseList = new ClauseList(variableMap, clauses.size(), literalCount);
+		for (final Expression clause : clauses) {
+			final List<? extends Expression> clauseLiterals = clause.getChildren();
+			if (!containsTrue(clauseLiterals)) {
+				clauseList.ensureCapacity(1, clauseLiterals.size());
+				for (final Expression literal : clauseLiterals) {
+					if (literal != Literal.False) {
+						clauseList.literals[clauseList.literalCount++] = getLiteral(literal, variableMap);
+					}
+				}
+				clauseList.clauseOffsets[++clauseList.clauseCount] = clauseList.literalCount;
+			}
+		}
+		return clauseList;
+	}
+
+	private static boolean containsTrue(List<? extends Expression> literals) {
+		for (final Expression literal : literals) {
+			if (literal == Literal.True) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the literals of the given clause without {@link Literal#False} or
+	 *         {@code null} if the clause contains {@link Literal#True}
+	 */
+	static int[] getLiterals(Formula clause, VariableMap variableMap) {
+		if (clause instanceof Or) {
+			final List<? extends Expression> clauseLiterals = clause.getChildren();
+			if (containsTrue(clauseLiterals)) {
+				return null;
+			}
+			final int[] literals = new int[clauseLiterals.size()];
+			int literalCount = 0;
+			for (final Expression literal : clauseLiterals) {
+				if (literal != Literal.False) {
+					literals[literalCount++] = getLiteral(literal, variableMap);
+				}
+			}
+			return literalCount == literals.length ? literals : Arrays.copyOf(literals, literalCount);
+		} else if (clause == Literal.True) {
+			return null;
+		} else if (clause == Literal.False) {
+			return new int[0];
+		} else {
+			return new int[] { getLiteral(clause, variableMap) };
+		}
+	}
+
+	private static int getLiteral(Expression expression, VariableMap variableMap) {
+		if (expression instanceof LiteralPredicate) {
+			final LiteralPredicate literal = (LiteralPredicate) expression;
+			final int index = variableMap.indexOf(literal.getName());
+			if (index > 0) {
+				return literal.isPositive() ? index : -index;
+			}
+		}
+		throw new IllegalArgumentException(String.valueOf(expression));
+	}
+
+	/**
+	 * Adds a clause to the end of this list.
+	 *
+	 * @param clause the literals of the clause
+	 * @throws IllegalArgumentException if a literal is {@code 0}
+	 */
+	@Override
+	public void addClause(int... clause) {
+		for (final int literal : clause) {
+			if (literal == 0) {
+				throw new IllegalArgumentException("Literal must not be 0");
+			}
+		}
+		ensureCapacity(1, clause.length);
+		System.arraycopy(clause, 0, literals, literalCount, clause.length);
+		literalCount += clause.length;
+		clauseOffsets[++clauseCount] = literalCount;
+	}
+
+	public void addClauses(ClauseList clauseList) {
+		ensureCapacity(clauseList.clauseCount, clauseList.literalCount);
+		System.arraycopy(clauseList.literals, 0, literals, literalCount, clauseList.literalCount);
+		for (int i = 1; i <= clauseList.clauseCount; i++) {
+			clauseOffsets[clauseCount + i] = literalCount + clauseList.clauseOffsets[i];
+		}
+		literalCount += clauseList.literalCount;
+		clauseCount += clauseList.clauseCount;
+	}
+
+	private void ensureCapacity(int additionalClauses, int additionalLiterals) {
+		if (clauseOffsets.length <= (clauseCount + additionalClauses)) {
+			clauseOffsets = Arrays.copyOf(clauseOffsets, Math.max(clauseCount + additionalClauses + 1,
+				clauseOffsets.length << 1));
+		}
+		if (literals.length < (literalCount + additionalLiterals)) {
+			literals = Arrays.copyOf(literals, Math.max(literalCount + additionalLiterals, literals.length << 1));
+		}
+	}
+
+	public void clear() {
+		literalCount = 0;
+		clauseCount = 0;
+	}
+
+	public void trimToSize() {
+		literals = Arrays.copyOf(literals, literalCount);
+		clauseOffsets = Arrays.copyOf(clauseOffsets, clauseCount + 1);
+	}
+
+	public VariableMap getVariableMap() {
+		return variableMap;
+	}
+
+	/**
+	 * @return the number of clauses
+	 */
+	public int size() {
+		return clauseCount;
+	}
+
+	public boolean isEmpty() {
+		return clauseCount == 0;
+	}
+
+	/**
+	 * @return the total number of literals in all clauses
+	 */
+	public int getNumberOfLiterals() {
+		return literalCount;
+	}
+
+	public int getClauseLength(int clauseIndex) {
+		checkClauseIndex(clauseIndex);
+		return clauseOffsets[clauseIndex + 1] - clauseOffsets[clauseIndex];
+	}
+
+	public int getLiteral(int clauseIndex, int literalIndex) {
+		checkClauseIndex(clauseIndex);
+		return literals[clauseOffsets[clauseIndex] + literalIndex];
+	}
+
+	/**
+	 * Returns the offset of the first literal of the given clause. Together with
+	 * {@link #getClauseEnd(int)} and {@link #getLiteralAt(int)}, this allows to
+	 * scan all clauses without copying any literals.
+	 *
+	 * @param clauseIndex the index of the clause
+	 * @return the offset of the first literal
+	 */
+	public int getClauseStart(int clauseIndex) {
+		checkClauseIndex(clauseIndex);
+		return clauseOffsets[clauseIndex];
+	}
+
+	/**
+	 * Returns the offset after the last literal of the given clause.
+	 *
+	 * @param clauseIndex the index of the clause
+	 * @return the exclusive end offset
+	 */
+	public int getClauseEnd(int clauseIndex) {
+		checkClauseIndex(clauseIndex);
+		return clauseOffsets[clauseIndex + 1];
+	}
+
+	public int getLiteralAt(int offset) {
+		if ((offset < 0) || (offset >= literalCount)) {
+			throw new IndexOutOfBoundsException(String.valueOf(offset));
+		}
+		return literals[offset];
+	}
+
+	public int[] getClause(int clauseIndex) {
+		checkClauseIndex(clauseIndex);
+		return Arrays.copyOfRange(literals, clauseOffsets[clauseIndex], clauseOffsets[clauseIndex + 1]);
+	}
+
+	private void checkClauseIndex(int clauseIndex) {
+		if ((clauseIndex < 0) || (clauseIndex >= clauseCount)) {
+			throw new IndexOutOfBoundsException(String.valueOf(clauseIndex));
+		}
+	}
+
+	/**
+	 * Creates the clause with the given index as {@link Or} formula.
+	 *
+	 * @param clauseIndex the index of the clause
+	 * @return a new clause formula
+	 */
+	public Or getClauseFormula(int clauseIndex) {
+		final int start = getClauseStart(clauseIndex);
+		final int end = clauseOffsets[clauseIndex + 1];
+		if (start == end) {
+			return Or.empty(variableMap);
+		}
+		final Formula[] clauseLiterals = new Formula[end - start];
+		for (int i = start; i < end; i++) {
+			final int literal = literals[i];
+			clauseLiterals[i - start] = variableMap.getLiteral(Math.abs(literal), literal > 0).get();
+		}
+		return new Or(clauseLiterals);
+	}
+
+	/**
+	 * Returns a view of this clause list, in which each clause is represented as
+	 * an {@link Or} formula. The formulas are created when they are accessed and
+	 * reflect the current state of this list.
+	 *
+	 * @return a list of clause formulas
+	 */
+	public List<Or> getClauseFormulas() {
+		return new AbstractList<Or>() {
+			@Override
+			public Or get(int index) {
+				return getClauseFormula(index);
+			}
+
+			@Override
+			public int size() {
+				return clauseCount;
+			}
+		};
+	}
+
+	/**
+	 * Converts this clause list into a formula in clausal CNF.
+	 *
+	 * @return a new formula
+	 */
+	public Formula toFormula() {
+		return clauseCount == 0 ? And.empty(variableMap) : new And(getClauseFormulas());
+	}
+
+	@Override
+	public Iterator<int[]> iterator() {
+		return new Iterator<int[]>() {
+			private int clauseIndex = 0;
+
+			@Override
+			public boolean hasNext() {
+				return clauseIndex < clauseCount;
+			}
+
+			@Override
+			public int[] next() {
+				if (clauseIndex >= clauseCount) {
+					throw new NoSuchElementException();
+				}
+				return getClause(clauseIndex++);
+			}
+		};
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for (int i = 0; i < literalCount; i++) {
+			hash = (31 * hash) + literals[i];
+		}
+		for (int i = 1; i <= clauseCount; i++) {
+			hash = (31 * hash) + clauseOffsets[i];
+		}
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if ((obj == null) || (getClass() != obj.getClass())) {
+			return false;
+		}
+		final ClauseList other = (ClauseList) obj;
+		return (clauseCount == other.clauseCount) && (literalCount == other.literalCount)
+			&& Arrays.equals(literals, 0, literalCount, other.literals, 0, literalCount)
+			&& Arrays.equals(clauseOffsets, 0, clauseCount + 1, other.clauseOffsets, 0, clauseCount + 1)
+			&& Objects.equals(variableMap, other.variableMap);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder("ClauseList\n");
+		for (int i = 0; i < clauseCount; i++) {
+			sb.append('\t');
+			for (int j = clauseOffsets[i]; j < clauseOffsets[i + 1]; j++) {
+				sb.append(literals[j]);
+				sb.append(' ');
+			}
+			sb.append("0\n");
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,336 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.clauses;
+
+import java.util.*;
+
+import org.spldev.util.job.*;
+
+/**
+ * Simplifies a {@link ClauseList} without changing its set of solutions.
+ * Removes duplicate literals, tautologies, and duplicate and subsumed clauses,
+ * and applies self-subsuming resolution, i.e., removes the literal {@code -l}
+ * from a clause {@code D} if there is a clause {@code C} with {@code l} such
+ * that all other literals of {@code C} are contained in {@code D}.<br>
+ * Clauses are checked in the order of their length, starting with the
+ * shortest. Candidate clauses are found using an occurrence list for each
+ * variable and filtered by a 64-bit signature of their variables. The remaining
+ * clauses keep their original order.
+ *
+ * @author Sebastian Krieter
+ */
+public class ClauseSimplifier implements MonitorableFunction<ClauseList, ClauseList> {
+
+	private boolean removingSubsumedClauses = true;
+	private boolean strengtheningClauses = true;
+
+	private int numberOfRemovedClauses;
+	private int numberOfRemovedLiterals;
+
+	private int[][] clauses;
+	private long[] signatures;
+	private int[][] occurrences;
+	private int[] occurrenceCounts;
+	private int[] marks;
+
+	public boolean isRemovingSubsumedClauses() {
+		return removingSubsumedClauses;
+	}
+
+	/**
+	 * Sets whether clauses that are subsumed by other clauses are removed. If
+	 * false, only tautologies and duplicate literals are removed.
+	 *
+	 * @param removingSubsumedClauses whether to remove subsumed clauses
+	 */
+	public void setRemovingSubsumedClauses(boolean removingSubsumedClauses) {
+		this.removingSubsumedClauses = removingSubsumedClauses;
+	}
+
+	public boolean isStrengtheningClauses() {
+		return strengtheningClauses;
+	}
+
+	/**
+	 * Sets whether literals are removed from clauses by self-subsuming resolution.
+	 * Only has an effect if subsumed clauses are removed.
+	 *
+	 * @param strengtheningClauses whether to apply self-subsuming resolution
+	 */
+	public void setStrengtheningClauses(boolean strengtheningClauses) {
+		this.strengtheningClauses = strengtheningClauses;
+	}
+
+	/**
+	 * @return the number of clauses that were removed in the last call of
+	 *         {@link #execute(ClauseList, InternalMonitor)}
+	 */
+	public int getNumberOfRemovedClauses() {
+		return numberOfRemovedClauses;
+	}
+
+	/**
+	 * @return the total number of literals that were removed in the last call of
+	 *         {@link #execute(ClauseList, InternalMonitor)}, including the
+	 *         literals of removed clauses
+	 */
+	public int getNumberOfRemovedLiterals() {
+		return numberOfRemovedLiterals;
+	}
+
+	/**
+	 * Simplifies the given clauses. The given list is not modified.
+	 *
+	 * @param clauseList the clauses
+	 * @param monitor    the monitor
+	 * @return a new, simplified clause list
+	 */
+	@Override
+	public ClauseList execute(ClauseList clauseList, InternalMonitor monitor) {
+		numberOfRemovedClauses = 0;
+		numberOfRemovedLiterals = 0;
+		int maxIndex = clauseList.getVariableMap().getMaxIndex();
+		for (int i = 0; i < clauseList.getNumberOfLiterals(); i++) {
+			maxIndex = Math.max(maxIndex, Math.abs(clauseList.getLiteralAt(i)));
+		}
+		final int clauseCount = clauseList.size();
+		clauses = new int[clauseCount][];
+		signatures = new long[clauseCount];
+		marks = new int[maxIndex + 1];
+
+		for (int i = 0; i < clauseCount; i++) {
+			clauses[i] = normalize(clauseList, i);
+		}
+		if (removingSubsumedClauses) {
+			removeSubsumedClauses(maxIndex);
+		}
+
+		final ClauseList simplifiedClauseList = new ClauseList(clauseList.getVariableMap(), clauseCount,
+			clauseList.getNumberOfLiterals());
+		for (final int[] clause : clauses) {
+			if (clause != null) {
+				simplifiedClauseList.addClause(clause);
+				numberOfRemovedLiterals -= clause.length;
+			} else {
+				numberOfRemovedClauses++;
+			}
+		}
+		numberOfRemovedLiterals += clauseList.getNumberOfLiterals();
+		clauses = null;
+		signatures = null;
+		occurrences = null;
+		occurrenceCounts = null;
+		marks = null;
+		return simplifiedClauseList;
+	}
+
+	/**
+	 * Removes duplicate literals from a clause, keeping the first occurrence.
+	 *
+	 * @return the literals of the clause or {@code null} if the clause is a
+	 *         tautology
+	 */
+	private int[] normalize(ClauseList clauseList, int clauseIndex) {
+		final int start = clauseList.getClauseStart(clauseIndex);
+		final int end = clauseList.getClauseEnd(clauseIndex);
+		final int[] literals = new int[end - start];
+		int count = 0;
+		boolean tautology = false;
+		for (int i = start; i < end; i++) {
+			final int literal = clauseList.getLiteralAt(i);
+			final int mark = marks[Math.abs(literal)];
+			if (mark == 0) {
+				marks[Math.abs(literal)] = literal;
+				literals[count++] = literal;
+			} else if (mark != literal) {
+				tautology = true;
+				break;
+			}
+		}
+		for (int i = start; i < end; i++) {
+			marks[Math.abs(clauseList.getLiteralAt(i))] = 0;
+		}
+		return tautology ? null : count == literals.length ? literals : Arrays.copyOf(literals, count);
+	}
+
+	private void removeSubsumedClauses(int maxIndex) {
+		occurrences = new int[maxIndex + 1][];
+		occurrenceCounts = new int[maxIndex + 1];
+		// sort by length and index, packed into one key
+		final long[] order = new long[clauses.length];
+		int orderSize = 0;
+		for (int i = 0; i < clauses.length; i++) {
+			final int[] clause = clauses[i];
+			if (clause != null) {
+				signatures[i] = computeSignature(clause);
+				for (final int literal : clause) {
+					addOccurrence(Math.abs(literal), i);
+				}
+				order[orderSize++] = ((long) clause.length << 32) | i;
+			}
+		}
+		Arrays.sort(order, 0, orderSize);
+
+		// circular queue, which contains each clause at most once
+		final int[] queue = new int[orderSize];
+		final boolean[] queued = new boolean[clauses.length];
+		for (int i = 0; i < orderSize; i++) {
+			queue[i] = (int) order[i];
+			queued[queue[i]] = true;
+		}
+		int queueHead = 0;
+		int queueSize = orderSize;
+		while (queueSize > 0) {
+			final int clauseIndex = queue[queueHead];
+			queueHead = (queueHead + 1) == queue.length ? 0 : queueHead + 1;
+			queueSize--;
+			queued[clauseIndex] = false;
+			final int[] clause = clauses[clauseIndex];
+			if (clause == null) {
+				continue;
+			}
+			if (clause.length == 0) {
+				// the empty clause subsumes all other clauses
+				Arrays.fill(clauses, null);
+				clauses[clauseIndex] = clause;
+				return;
+			}
+			int bestVariable = Math.abs(clause[0]);
+			for (final int literal : clause) {
+				final int variable = Math.abs(literal);
+				if (occurrenceCounts[variable] < occurrenceCounts[bestVariable]) {
+					bestVariable = variable;
+				}
+			}
+			for (final int literal : clause) {
+				marks[Math.abs(literal)] = literal;
+			}
+			final long signature = signatures[clauseIndex];
+			final int[] candidates = Arrays.copyOf(occurrences[bestVariable], occurrenceCounts[bestVariable]);
+			for (final int candidateIndex : candidates) {
+				final int[] candidate = clauses[candidateIndex];
+				if ((candidateIndex == clauseIndex) || (candidate == null) || (candidate.length < clause.length)
+					|| ((signature & ~signatures[candidateIndex]) != 0)) {
+					continue;
+				}
+				final int flippedLiteral = subsumes(clause, candidate);
+				if (flippedLiteral == 0) {
+					removeClause(candidateIndex);
+				} else if ((flippedLiteral > 0) && strengtheningClauses) {
+					strengthen(candidateIndex, flippedLiteral);
+					if (!queued[candidateIndex]) {
+						queued[candidateIndex] = true;
+						final int queueTail = queueHead + queueSize++;
+						queue[queueTail < queue.length ? queueTail : queueTail - queue.length] = candidateIndex;
+					}
+				}
+			}
+			for (final int literal : clause) {
+				marks[Math.abs(literal)] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Checks whether a clause subsumes another clause, assuming that the literals
+	 * of the first clause are marked.
+	 *
+	 * @return {@code 0} if the clause subsumes the candidate, the position of the
+	 *         literal plus {@code 1} that can be removed from the candidate by
+	 *         self-subsuming resolution, or {@code -1} otherwise
+	 */
+	private int subsumes(int[] clause, int[] candidate) {
+		int matchCount = 0;
+		int flippedPosition = -1;
+		for (int i = 0; i < candidate.length; i++) {
+			final int literal = candidate[i];
+			final int mark = marks[Math.abs(literal)];
+			if (mark == literal) {
+				matchCount++;
+			} else if (mark == -literal) {
+				if (flippedPosition >= 0) {
+					return -1;
+				}
+				flippedPosition = i;
+			}
+		}
+		if (flippedPosition < 0) {
+			return matchCount == clause.length ? 0 : -1;
+		} else {
+			return (matchCount + 1) == clause.length ? flippedPosition + 1 : -1;
+		}
+	}
+
+	private void strengthen(int clauseIndex, int flippedLiteral) {
+		final int[] clause = clauses[clauseIndex];
+		final int position = flippedLiteral - 1;
+		final int[] newClause = new int[clause.length - 1];
+		System.arraycopy(clause, 0, newClause, 0, position);
+		System.arraycopy(clause, position + 1, newClause, position, newClause.length - position);
+		clauses[clauseIndex] = newClause;
+		signatures[clauseIndex] = computeSignature(newClause);
+		removeOccurrence(Math.abs(clause[position]), clauseIndex);
+	}
+
+	private void removeClause(int clauseIndex) {
+		for (final int literal : clauses[clauseIndex]) {
+			removeOccurrence(Math.abs(literal), clauseIndex);
+		}
+		clauses[clauseIndex] = null;
+	}
+
+	private void addOccurrence(int variable, int clauseIndex) {
+		int[] variableOccurrences = occurrences[variable];
+		final int count = occurrenceCounts[variable];
+		if (variableOccurrences == null) {
+			variableOccurrences = new int[4];
+			occurrences[variable] = variableOccurrences;
+		} else if (count == variableOccurrences.length) {
+			variableOccurrences = Arrays.copyOf(variableOccurrences, count << 1);
+			occurrences[variable] = variableOccurrences;
+		}
+		variableOccurrences[count] = clauseIndex;
+		occurrenceCounts[variable] = count + 1;
+	}
+
+	private void removeOccurrence(int variable, int clauseIndex) {
+		final int[] variableOccurrences = occurrences[variable];
+		final int count = occurrenceCounts[variable];
+		for (int i = 0; i < count; i++) {
+			if (variableOccurrences[i] == clauseIndex) {
+				variableOccurrences[i] = variableOccurrences[count - 1];
+				occurrenceCounts[variable] = count - 1;
+				return;
+			}
+		}
+	}
+
+	private static long computeSignature(int[] clause) {
+		long signature = 0;
+		for (final int literal : clause) {
+			signature |= 1L << (Math.abs(literal) & 63);
+		}
+		return signature;
+	}
+
+}
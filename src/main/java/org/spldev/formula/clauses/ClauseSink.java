@@ -0,0 +1,63 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.clauses;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.literal.*;
+
+/**
+ * Receives clauses one at a time as they are produced, for instance by a CNF
+ * transformation. Literals are encoded as in a {@link ClauseList}, i.e., as the
+ * index of their variable, which is negative for negated literals.
+ *
+ * @author Sebastian Krieter
+ */
+public interface ClauseSink {
+
+	/**
+	 * Adds a clause.
+	 *
+	 * @param literals the literals of the clause
+	 */
+	void addClause(int... literals);
+
+	/**
+	 * Adds a clause given as a formula. A clause that contains
+	 * {@link Literal#True} is omitted and {@link Literal#False} is removed from
+	 * the clause.
+	 *
+	 * @param clause      a literal or a disjunction of literals
+	 * @param variableMap the variable map that determines the indexes of the
+	 *                    literals
+	 * @throws IllegalArgumentException if the formula is not a clause or contains
+	 *                                  literals that are not boolean variables of
+	 *                                  the variable map
+	 */
+	default void addClause(Formula clause, VariableMap variableMap) {
+		final int[] literals = ClauseList.getLiterals(clause, variableMap);
+		if (literals != null) {
+			addClause(literals);
+		}
+	}
+
+}
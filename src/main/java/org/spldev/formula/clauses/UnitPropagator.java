@@ -0,0 +1,415 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.clauses;
+
+import java.util.*;
+
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.util.data.*;
+
+/**
+ * Unit propagation over a {@link ClauseList} using two watched literals per
+ * clause. Literals are assigned on a trail, which is divided into decision
+ * levels that can be {@link #push() pushed} and {@link #pop() popped}. After
+ * each assignment, all implied literals are propagated until a fixpoint or a
+ * conflict is reached.<br>
+ * Duplicate literals are ignored and tautological clauses are never watched.
+ * Unit clauses are propagated on level 0 when the propagator is created.
+ * Clause indexes (e.g., of {@link #getReason(int) reasons}) refer to the given
+ * clause list.
+ *
+ * @author Sebastian Krieter
+ */
+public class UnitPropagator {
+
+	/**
+	 * Value of {@link #getConflictClause()} if there is no conflict or the
+	 * conflict was caused by assigning a literal whose complement is already
+	 * assigned.
+	 */
+	public static final int NO_CLAUSE = -1;
+
+	private final ClauseList clauseList;
+	private final int size;
+
+	private final int[] literals;
+	private final int[] clauseOffsets;
+
+	private final int[][] watches;
+	private final int[] watchCounts;
+
+	private final byte[] values;
+	private final int[] levels;
+	private final int[] reasons;
+	private final int[] trail;
+	private int trailSize;
+	private int propagationHead;
+
+	private int[] levelStarts = new int[8];
+	private int decisionLevel;
+
+	private boolean conflict;
+	private int conflictClause = NO_CLAUSE;
+	private int conflictLevel;
+
+	public UnitPropagator(ClauseList clauseList) {
+		this.clauseList = clauseList;
+		int maxIndex = clauseList.getVariableMap().getMaxIndex();
+		for (int i = 0; i < clauseList.getNumberOfLiterals(); i++) {
+			maxIndex = Math.max(maxIndex, Math.abs(clauseList.getLiteralAt(i)));
+		}
+		size = maxIndex;
+
+		values = new byte[size + 1];
+		levels = new int[size + 1];
+		reasons = new int[size + 1];
+		trail = new int[size];
+		watches = new int[2 * (size + 1)][];
+		watchCounts = new int[2 * (size + 1)];
+
+		literals = new int[clauseList.getNumberOfLiterals()];
+		clauseOffsets = new int[clauseList.size() + 1];
+		final int[] units = new int[clauseList.size()];
+		int unitCount = 0;
+		int literalCount = 0;
+		for (int clause = 0; clause < clauseList.size(); clause++) {
+			final int start = literalCount;
+			boolean tautology = false;
+			literals: for (int i = clauseList.getClauseStart(clause); i < clauseList.getClauseEnd(clause); i++) {
+				final int literal = clauseList.getLiteralAt(i);
+				for (int j = start; j < literalCount; j++) {
+					if (literals[j] == -literal) {
+						tautology = true;
+					} else if (literals[j] == literal) {
+						continue literals;
+					}
+				}
+				literals[literalCount++] = literal;
+			}
+			clauseOffsets[clause] = start;
+			clauseOffsets[clause + 1] = literalCount;
+			final int length = literalCount - start;
+			if (tautology) {
+				continue;
+			} else if (length == 0) {
+				if (!conflict) {
+					setConflict(clause);
+				}
+			} else if (length == 1) {
+				units[unitCount++] = clause;
+			} else {
+				watch(literals[start], clause);
+				watch(literals[start + 1], clause);
+			}
+		}
+
+		for (int i = 0; (i < unitCount) && !conflict; i++) {
+			final int clause = units[i];
+			enqueue(literals[clauseOffsets[clause]], clause);
+		}
+		if (!conflict) {
+			propagate();
+		}
+	}
+
+	private static int getCode(int literal) {
+		return literal > 0 ? literal << 1 : ((-literal) << 1) | 1;
+	}
+
+	private void watch(int literal, int clause) {
+		final int code = getCode(literal);
+		int[] clauses = watches[code];
+		final int count = watchCounts[code];
+		if (clauses == null) {
+			clauses = new int[4];
+			watches[code] = clauses;
+		} else if (count == clauses.length) {
+			clauses = Arrays.copyOf(clauses, count << 1);
+			watches[code] = clauses;
+		}
+		clauses[count] = clause;
+		watchCounts[code] = count + 1;
+	}
+
+	public ClauseList getClauseList() {
+		return clauseList;
+	}
+
+	/**
+	 * @return the largest variable index
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the value of a literal.
+	 *
+	 * @param literal the literal
+	 * @return {@code 1} if the literal is true, {@code -1} if it is false, and
+	 *         {@code 0} if it is unassigned
+	 */
+	public int getValue(int literal) {
+		final byte value = values[Math.abs(literal)];
+		return literal > 0 ? value : -value;
+	}
+
+	/**
+	 * @param index the index of a variable
+	 * @return the decision level on which the variable was assigned or {@code -1}
+	 *         if it is unassigned
+	 */
+	public int getLevel(int index) {
+		return values[index] == 0 ? -1 : levels[index];
+	}
+
+	/**
+	 * @param index the index of a variable
+	 * @return the index of the clause that implied the value of the variable or
+	 *         {@link #NO_CLAUSE} if the variable was assigned directly or is
+	 *         unassigned
+	 */
+	public int getReason(int index) {
+		return values[index] == 0 ? NO_CLAUSE : reasons[index];
+	}
+
+	public int getDecisionLevel() {
+		return decisionLevel;
+	}
+
+	public boolean hasConflict() {
+		return conflict;
+	}
+
+	/**
+	 * @return the index of the clause that is falsified by the current assignment
+	 *         or {@link #NO_CLAUSE}
+	 */
+	public int getConflictClause() {
+		return conflictClause;
+	}
+
+	/**
+	 * @return all assigned literals in the order of their assignment
+	 */
+	public int[] getTrail() {
+		return Arrays.copyOf(trail, trailSize);
+	}
+
+	/**
+	 * @return all literals that were implied by clauses (i.e., not assigned
+	 *         directly) in the order of their assignment
+	 */
+	public int[] getImpliedLiterals() {
+		final int[] impliedLiterals = new int[trailSize];
+		int count = 0;
+		for (int i = 0; i < trailSize; i++) {
+			final int literal = trail[i];
+			if (reasons[Math.abs(literal)] != NO_CLAUSE) {
+				impliedLiterals[count++] = literal;
+			}
+		}
+		return Arrays.copyOf(impliedLiterals, count);
+	}
+
+	/**
+	 * @return all literals that were assigned on the current decision level
+	 */
+	public int[] getCurrentLevelLiterals() {
+		final int start = decisionLevel == 0 ? 0 : levelStarts[decisionLevel - 1];
+		return Arrays.copyOfRange(trail, start, trailSize);
+	}
+
+	/**
+	 * @return the current assignment
+	 */
+	public BooleanAssignment getAssignment() {
+		return BooleanAssignment.fromLiterals(size, getTrail());
+	}
+
+	/**
+	 * Starts a new decision level.
+	 */
+	public void push() {
+		if (decisionLevel == levelStarts.length) {
+			levelStarts = Arrays.copyOf(levelStarts, decisionLevel << 1);
+		}
+		levelStarts[decisionLevel++] = trailSize;
+	}
+
+	/**
+	 * Removes all assignments of the current decision level, including a
+	 * conflict.
+	 *
+	 * @throws IllegalStateException if the current level is 0
+	 */
+	public void pop() {
+		if (decisionLevel == 0) {
+			throw new IllegalStateException("Cannot pop level 0");
+		}
+		final int start = levelStarts[--decisionLevel];
+		while (trailSize > start) {
+			values[Math.abs(trail[--trailSize])] = 0;
+		}
+		propagationHead = Math.min(propagationHead, trailSize);
+		if (conflict && (conflictLevel > decisionLevel)) {
+			conflict = false;
+			conflictClause = NO_CLAUSE;
+		}
+	}
+
+	/**
+	 * Starts a new decision level, assigns the given literal, and propagates.
+	 *
+	 * @param literal the literal
+	 * @return {@code true} if there is no conflict
+	 */
+	public boolean decide(int literal) {
+		push();
+		return assign(literal);
+	}
+
+	/**
+	 * Assigns a literal on the current decision level and propagates.
+	 *
+	 * @param literal the literal
+	 * @return {@code true} if there is no conflict
+	 */
+	public boolean assign(int literal) {
+		checkLiteral(literal);
+		if (!conflict) {
+			enqueue(literal, NO_CLAUSE);
+			if (!conflict) {
+				propagate();
+			}
+		}
+		return !conflict;
+	}
+
+	/**
+	 * Starts a new decision level, assigns all Boolean values of the given
+	 * assignment, and propagates. Variables that do not occur in the clause list
+	 * are ignored.
+	 *
+	 * @param assignment the assignment
+	 * @return {@code true} if there is no conflict
+	 */
+	public boolean decide(Assignment assignment) {
+		push();
+		if (assignment instanceof BooleanAssignment) {
+			for (final int literal : ((BooleanAssignment) assignment).getLiterals()) {
+				if ((Math.abs(literal) <= size) && !conflict) {
+					enqueue(literal, NO_CLAUSE);
+				}
+			}
+		} else {
+			for (final Pair<Integer, Object> pair : assignment.getAll()) {
+				final int index = pair.getKey();
+				if ((index > 0) && (index <= size) && (pair.getValue() instanceof Boolean) && !conflict) {
+					enqueue((Boolean) pair.getValue() ? index : -index, NO_CLAUSE);
+				}
+			}
+		}
+		if (!conflict) {
+			propagate();
+		}
+		return !conflict;
+	}
+
+	private void checkLiteral(int literal) {
+		if ((literal == 0) || (Math.abs(literal) > size)) {
+			throw new IllegalArgumentException(String.valueOf(literal));
+		}
+	}
+
+	private void enqueue(int literal, int reason) {
+		final int index = Math.abs(literal);
+		final int value = getValue(literal);
+		if (value == 0) {
+			values[index] = (byte) (literal > 0 ? 1 : -1);
+			levels[index] = decisionLevel;
+			reasons[index] = reason;
+			trail[trailSize++] = literal;
+		} else if (value < 0) {
+			setConflict(reason);
+		}
+	}
+
+	private void setConflict(int clause) {
+		conflict = true;
+		conflictClause = clause;
+		conflictLevel = decisionLevel;
+	}
+
+	private void propagate() {
+		while (propagationHead < trailSize) {
+			final int falseLiteral = -trail[propagationHead++];
+			final int code = getCode(falseLiteral);
+			final int[] clauses = watches[code];
+			final int count = watchCounts[code];
+			int kept = 0;
+			int i = 0;
+			while (i < count) {
+				final int clause = clauses[i++];
+				final int start = clauseOffsets[clause];
+				if (literals[start] == falseLiteral) {
+					literals[start] = literals[start + 1];
+					literals[start + 1] = falseLiteral;
+				}
+				final int otherLiteral = literals[start];
+				if (getValue(otherLiteral) > 0) {
+					clauses[kept++] = clause;
+					continue;
+				}
+				boolean moved = false;
+				for (int k = start + 2; k < clauseOffsets[clause + 1]; k++) {
+					final int literal = literals[k];
+					if (getValue(literal) >= 0) {
+						literals[start + 1] = literal;
+						literals[k] = falseLiteral;
+						watch(literal, clause);
+						moved = true;
+						break;
+					}
+				}
+				if (moved) {
+					continue;
+				}
+				clauses[kept++] = clause;
+				if (getValue(otherLiteral) < 0) {
+					setConflict(clause);
+					while (i < count) {
+						clauses[kept++] = clauses[i++];
+					}
+				} else {
+					enqueue(otherLiteral, clause);
+				}
+			}
+			watchCounts[code] = kept;
+			if (conflict) {
+				return;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,394 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.clauses;
+
+import java.util.*;
+
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.transform.*;
+import org.spldev.util.job.*;
+
+/**
+ * Eliminates variables from a {@link ClauseList} by clause distribution
+ * (bounded variable elimination). A variable is eliminated by replacing all
+ * clauses that contain it with all non-tautological resolvents on it, if this
+ * does not increase the number of clauses. Variables that were introduced by
+ * {@link TseytinTransformer Tseytin's transformation} are tried first, then all
+ * other variables that are not {@link #addFrozenVariable(String) frozen}.<br>
+ * The result is equisatisfiable to the input. The removed clauses are kept on a
+ * reconstruction stack, such that {@link #extend(BooleanAssignment)} can
+ * extend a solution of the result to a solution of the input.
+ *
+ * @author Sebastian Krieter
+ */
+public class VariableEliminator implements MonitorableFunction<ClauseList, ClauseList> {
+
+	private final Set<String> frozenVariables = new HashSet<>();
+	private boolean eliminatingAuxiliaryVariablesOnly = false;
+	private int maximumNumberOfResolutions = 10_000;
+	private int maximumClauseLength = Integer.MAX_VALUE;
+
+	private int[] reconstructionStack = new int[0];
+	private int reconstructionStackSize;
+	private int[] eliminatedVariables = new int[0];
+
+	private int[][] clauses;
+	private int clauseCount;
+	private int[][] occurrences;
+	private int[] occurrenceCounts;
+	private int[] marks;
+
+	/**
+	 * Protects a variable from being eliminated.
+	 *
+	 * @param variableName the name of the variable
+	 */
+	public void addFrozenVariable(String variableName) {
+		frozenVariables.add(variableName);
+	}
+
+	public void addFrozenVariables(Collection<String> variableNames) {
+		frozenVariables.addAll(variableNames);
+	}
+
+	public Set<String> getFrozenVariables() {
+		return Collections.unmodifiableSet(frozenVariables);
+	}
+
+	public boolean isEliminatingAuxiliaryVariablesOnly() {
+		return eliminatingAuxiliaryVariablesOnly;
+	}
+
+	/**
+	 * Sets whether only variables that were introduced by Tseytin's transformation
+	 * are eliminated.
+	 *
+	 * @param eliminatingAuxiliaryVariablesOnly whether to eliminate only auxiliary
+	 *                                          variables
+	 */
+	public void setEliminatingAuxiliaryVariablesOnly(boolean eliminatingAuxiliaryVariablesOnly) {
+		this.eliminatingAuxiliaryVariablesOnly = eliminatingAuxiliaryVariablesOnly;
+	}
+
+	public int getMaximumNumberOfResolutions() {
+		return maximumNumberOfResolutions;
+	}
+
+	/**
+	 * Sets the maximum number of clause pairs that are resolved to eliminate a
+	 * single variable. Variables that occur more often are not eliminated.
+	 *
+	 * @param maximumNumberOfResolutions the maximum number of resolutions per
+	 *                                   variable
+	 */
+	public void setMaximumNumberOfResolutions(int maximumNumberOfResolutions) {
+		this.maximumNumberOfResolutions = maximumNumberOfResolutions;
+	}
+
+	public int getMaximumClauseLength() {
+		return maximumClauseLength;
+	}
+
+	/**
+	 * Sets the maximum length of a resolvent. Variables with a longer resolvent are
+	 * not eliminated.
+	 *
+	 * @param maximumClauseLength the maximum length of a resolvent
+	 */
+	public void setMaximumClauseLength(int maximumClauseLength) {
+		this.maximumClauseLength = maximumClauseLength;
+	}
+
+	/**
+	 * @return the indexes of the variables that were eliminated in the last call
+	 *         of {@link #execute(ClauseList, InternalMonitor)} in the order of
+	 *         their elimination
+	 */
+	public int[] getEliminatedVariables() {
+		return Arrays.copyOf(eliminatedVariables, eliminatedVariables.length);
+	}
+
+	/**
+	 * Assigns all variables that were eliminated in the last call of
+	 * {@link #execute(ClauseList, InternalMonitor)}, such that a solution of the
+	 * resulting clauses becomes a solution of the original clauses.
+	 *
+	 * @param solution a solution of the resulting clauses, which is modified and
+	 *                 must have the size of the original variable map
+	 */
+	public void extend(BooleanAssignment solution) {
+		int i = reconstructionStackSize - 1;
+		while (i >= 0) {
+			final int length = reconstructionStack[i];
+			final int start = i - length;
+			boolean satisfied = false;
+			for (int j = start + 1; j < i; j++) {
+				final int literal = reconstructionStack[j];
+				if (solution.getLiteral(Math.abs(literal)) == literal) {
+					satisfied = true;
+					break;
+				}
+			}
+			if (!satisfied) {
+				solution.setLiteral(reconstructionStack[start]);
+			}
+			i = start - 1;
+		}
+	}
+
+	@Override
+	public ClauseList execute(ClauseList clauseList, InternalMonitor monitor) {
+		reconstructionStackSize = 0;
+		final ClauseList simplifiedClauseList = new ClauseSimplifier().execute(clauseList, monitor);
+		final VariableMap variableMap = clauseList.getVariableMap();
+		int maxIndex = variableMap.getMaxIndex();
+		for (int i = 0; i < simplifiedClauseList.getNumberOfLiterals(); i++) {
+			maxIndex = Math.max(maxIndex, Math.abs(simplifiedClauseList.getLiteralAt(i)));
+		}
+		clauseCount = simplifiedClauseList.size();
+		clauses = new int[Math.max(16, clauseCount)][];
+		occurrences = new int[2 * (maxIndex + 1)][];
+		occurrenceCounts = new int[2 * (maxIndex + 1)];
+		marks = new int[maxIndex + 1];
+		for (int i = 0; i < clauseCount; i++) {
+			clauses[i] = simplifiedClauseList.getClause(i);
+			for (final int literal : clauses[i]) {
+				addOccurrence(literal, i);
+			}
+		}
+
+		final List<Integer> auxiliaryVariables = new ArrayList<>();
+		final List<Integer> otherVariables = new ArrayList<>();
+		for (int variable = 1; variable <= maxIndex; variable++) {
+			final String name = variableMap.nameOf(variable);
+			if ((name == null) || !frozenVariables.contains(name)) {
+				if ((name != null) && name.startsWith(TseytinTransformer.AUXILIARY_VARIABLE_PREFIX)) {
+					auxiliaryVariables.add(variable);
+				} else if (!eliminatingAuxiliaryVariablesOnly) {
+					otherVariables.add(variable);
+				}
+			}
+		}
+		final List<Integer> eliminated = new ArrayList<>();
+		eliminate(auxiliaryVariables, eliminated);
+		eliminate(otherVariables, eliminated);
+		eliminatedVariables = eliminated.stream().mapToInt(Integer::intValue).toArray();
+
+		final ClauseList eliminatedClauseList = new ClauseList(variableMap, clauseCount, simplifiedClauseList
+			.getNumberOfLiterals());
+		for (int i = 0; i < clauseCount; i++) {
+			if (clauses[i] != null) {
+				eliminatedClauseList.addClause(clauses[i]);
+			}
+		}
+		clauses = null;
+		occurrences = null;
+		occurrenceCounts = null;
+		marks = null;
+		return new ClauseSimplifier().execute(eliminatedClauseList, monitor);
+	}
+
+	/**
+	 * Tries to eliminate the given variables, starting with the variables that
+	 * require the fewest resolutions. Repeats until no more variable can be
+	 * eliminated.
+	 */
+	private void eliminate(List<Integer> variables, List<Integer> eliminated) {
+		boolean changed = true;
+		while (changed && !variables.isEmpty()) {
+			changed = false;
+			variables.sort(Comparator.comparingLong(this::getNumberOfResolutions));
+			for (final Iterator<Integer> iterator = variables.iterator(); iterator.hasNext();) {
+				final int variable = iterator.next();
+				final long numberOfResolutions = getNumberOfResolutions(variable);
+				if ((occurrenceCounts[positive(variable)] + occurrenceCounts[negative(variable)]) == 0) {
+					iterator.remove();
+				} else if ((numberOfResolutions <= maximumNumberOfResolutions) && tryEliminate(variable)) {
+					eliminated.add(variable);
+					iterator.remove();
+					changed = true;
+				}
+			}
+		}
+	}
+
+	private long getNumberOfResolutions(int variable) {
+		return (long) occurrenceCounts[positive(variable)] * occurrenceCounts[negative(variable)];
+	}
+
+	private boolean tryEliminate(int variable) {
+		final int[] positiveClauses = getOccurrences(positive(variable));
+		final int[] negativeClauses = getOccurrences(negative(variable));
+		final int limit = positiveClauses.length + negativeClauses.length;
+		final List<int[]> resolvents = new ArrayList<>();
+		for (final int positiveClause : positiveClauses) {
+			final int[] clause = clauses[positiveClause];
+			for (final int literal : clause) {
+				marks[Math.abs(literal)] = literal;
+			}
+			boolean bounded = true;
+			for (final int negativeClause : negativeClauses) {
+				final int[] resolvent = resolve(clause, clauses[negativeClause], variable);
+				if (resolvent != null) {
+					if ((resolvents.size() == limit) || (resolvent.length > maximumClauseLength)) {
+						bounded = false;
+						break;
+					}
+					resolvents.add(resolvent);
+				}
+			}
+			for (final int literal : clause) {
+				marks[Math.abs(literal)] = 0;
+			}
+			if (!bounded) {
+				return false;
+			}
+		}
+
+		// keep the clauses of the less frequent literal for reconstruction
+		final boolean keepPositive = positiveClauses.length <= negativeClauses.length;
+		final int keptLiteral = keepPositive ? variable : -variable;
+		for (final int clauseIndex : keepPositive ? positiveClauses : negativeClauses) {
+			pushReconstructionClause(clauses[clauseIndex], keptLiteral);
+		}
+		pushReconstructionClause(new int[] { -keptLiteral }, -keptLiteral);
+
+		for (final int clauseIndex : positiveClauses) {
+			removeClause(clauseIndex);
+		}
+		for (final int clauseIndex : negativeClauses) {
+			removeClause(clauseIndex);
+		}
+		for (final int[] resolvent : resolvents) {
+			addClause(resolvent);
+		}
+		return true;
+	}
+
+	/**
+	 * Resolves two clauses on a variable, assuming that the literals of the first
+	 * clause are marked.
+	 *
+	 * @return the resolvent or {@code null} if it is a tautology
+	 */
+	private int[] resolve(int[] positiveClause, int[] negativeClause, int variable) {
+		final int[] resolvent = new int[(positiveClause.length + negativeClause.length) - 2];
+		int length = 0;
+		for (final int literal : positiveClause) {
+			if (literal != variable) {
+				resolvent[length++] = literal;
+			}
+		}
+		for (final int literal : negativeClause) {
+			if (literal != -variable) {
+				final int mark = marks[Math.abs(literal)];
+				if (mark == 0) {
+					resolvent[length++] = literal;
+				} else if (mark != literal) {
+					return null;
+				}
+			}
+		}
+		return length == resolvent.length ? resolvent : Arrays.copyOf(resolvent, length);
+	}
+
+	/**
+	 * Pushes a clause with the given literal at its first position, followed by
+	 * the length of the clause.
+	 */
+	private void pushReconstructionClause(int[] clause, int firstLiteral) {
+		final int requiredSize = reconstructionStackSize + clause.length + 1;
+		if (reconstructionStack.length < requiredSize) {
+			reconstructionStack = Arrays.copyOf(reconstructionStack, Math.max(requiredSize,
+				reconstructionStack.length << 1));
+		}
+		reconstructionStack[reconstructionStackSize++] = firstLiteral;
+		for (final int literal : clause) {
+			if (literal != firstLiteral) {
+				reconstructionStack[reconstructionStackSize++] = literal;
+			}
+		}
+		reconstructionStack[reconstructionStackSize++] = clause.length;
+	}
+
+	private void addClause(int[] clause) {
+		if (clauseCount == clauses.length) {
+			clauses = Arrays.copyOf(clauses, clauseCount << 1);
+		}
+		clauses[clauseCount] = clause;
+		for (final int literal : clause) {
+			addOccurrence(literal, clauseCount);
+		}
+		clauseCount++;
+	}
+
+	private void removeClause(int clauseIndex) {
+		for (final int literal : clauses[clauseIndex]) {
+			final int code = getCode(literal);
+			final int[] literalOccurrences = occurrences[code];
+			final int count = occurrenceCounts[code];
+			for (int i = 0; i < count; i++) {
+				if (literalOccurrences[i] == clauseIndex) {
+					literalOccurrences[i] = literalOccurrences[count - 1];
+					occurrenceCounts[code] = count - 1;
+					break;
+				}
+			}
+		}
+		clauses[clauseIndex] = null;
+	}
+
+	private void addOccurrence(int literal, int clauseIndex) {
+		final int code = getCode(literal);
+		int[] literalOccurrences = occurrences[code];
+		final int count = occurrenceCounts[code];
+		if (literalOccurrences == null) {
+			literalOccurrences = new int[4];
+			occurrences[code] = literalOccurrences;
+		} else if (count == literalOccurrences.length) {
+			literalOccurrences = Arrays.copyOf(literalOccurrences, count << 1);
+			occurrences[code] = literalOccurrences;
+		}
+		literalOccurrences[count] = clauseIndex;
+		occurrenceCounts[code] = count + 1;
+	}
+
+	private int[] getOccurrences(int code) {
+		final int[] literalOccurrences = occurrences[code];
+		return literalOccurrences == null ? new int[0] : Arrays.copyOf(literalOccurrences, occurrenceCounts[code]);
+	}
+
+	private static int getCode(int literal) {
+		return literal > 0 ? positive(literal) : negative(-literal);
+	}
+
+	private static int positive(int variable) {
+		return variable << 1;
+	}
+
+	private static int negative(int variable) {
+		return (variable << 1) + 1;
+	}
+
+}
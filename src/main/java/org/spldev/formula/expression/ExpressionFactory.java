@@ -0,0 +1,277 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression;
+
+import java.util.*;
+
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.term.bool.*;
+
+/**
+ * Creates expressions with structural sharing (hash-consing). Within one
+ * factory, every distinct subexpression exists exactly once, such that equal
+ * subexpressions are represented by the same instance and the created formulas
+ * form a directed acyclic graph instead of a tree. Consequently, two
+ * expressions created by the same factory are equal iff they are identical.
+ * <br>
+ * A factory is bound to a single {@link VariableMap} and all expressions passed
+ * to it should refer to this map. Expressions returned by a factory are shared
+ * and must not be modified. Use {@link org.spldev.util.tree.Trees#cloneTree
+ * Trees.cloneTree} to obtain a modifiable copy.
+ *
+ * @author Sebastian Krieter
+ */
+public class ExpressionFactory {
+
+	/**
+	 * Wraps an expression whose children are already unique and compares it only
+	 * by its own attributes and the identity of its children.
+	 */
+	private static final class Key {
+
+		private final Expression node;
+		private final int hashCode;
+
+		private Key(Expression node) {
+			this.node = node;
+			if (node instanceof NonTerminal) {
+				int tempHashCode = ((NonTerminal) node).computeHashCode();
+				for (final Expression child : node.getChildren()) {
+					tempHashCode = (tempHashCode * 37) + System.identityHashCode(child);
+				}
+				hashCode = tempHashCode;
+			} else {
+				hashCode = node.hashCode();
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if ((obj == null) || (getClass() != obj.getClass())) {
+				return false;
+			}
+			final Expression otherNode = ((Key) obj).node;
+			if ((node.getClass() != otherNode.getClass()) || !node.equalsNode(otherNode)) {
+				return false;
+			}
+			final List<? extends Expression> children = node.getChildren();
+			final List<? extends Expression> otherChildren = otherNode.getChildren();
+			if (children.size() != otherChildren.size()) {
+				return false;
+			}
+			for (int i = 0; i < children.size(); i++) {
+				if (children.get(i) != otherChildren.get(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+	private final VariableMap variableMap;
+
+	private final HashMap<Key, Expression> uniqueNodes = new HashMap<>();
+	private final Set<Expression> uniqueNodeSet = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	public ExpressionFactory(VariableMap variableMap) {
+		this.variableMap = Objects.requireNonNull(variableMap);
+	}
+
+	public VariableMap getVariableMap() {
+		return variableMap;
+	}
+
+	/**
+	 * Returns the number of unique expressions created by this factory.
+	 *
+	 * @return the number of unique expressions
+	 */
+	public int size() {
+		return uniqueNodes.size();
+	}
+
+	/**
+	 * Removes all unique expressions from this factory. Expressions that were
+	 * created before are not shared with expressions created afterwards.
+	 */
+	public void clear() {
+		uniqueNodes.clear();
+		uniqueNodeSet.clear();
+	}
+
+	/**
+	 * Checks whether the given expression is a unique instance of this factory.
+	 *
+	 * @param expression the expression
+	 * @return {@code true} if the expression was created by this factory,
+	 *         {@code false} otherwise
+	 */
+	public boolean isUnique(Expression expression) {
+		return uniqueNodeSet.contains(expression);
+	}
+
+	/**
+	 * Returns the unique instance of the given expression. If the expression does
+	 * not exist in this factory, a copy of it is added. The given expression is
+	 * not modified.
+	 *
+	 * @param <T>        the type of the expression
+	 * @param expression the expression to intern
+	 * @return the unique expression equal to the given expression
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Expression> T intern(T expression) {
+		if (uniqueNodeSet.contains(expression)) {
+			return expression;
+		}
+		final ArrayDeque<Expression> stack = new ArrayDeque<>();
+		final ArrayDeque<Expression> results = new ArrayDeque<>();
+		final Set<Expression> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		final IdentityHashMap<Expression, Expression> internedNodes = new IdentityHashMap<>();
+		stack.push(expression);
+		while (!stack.isEmpty()) {
+			final Expression node = stack.peek();
+			final Expression internedNode = uniqueNodeSet.contains(node) ? node : internedNodes.get(node);
+			if (internedNode != null) {
+				stack.pop();
+				results.push(internedNode);
+			} else if (visited.add(node)) {
+				final List<? extends Expression> children = node.getChildren();
+				for (int i = children.size() - 1; i >= 0; i--) {
+					stack.push(children.get(i));
+				}
+			} else {
+				stack.pop();
+				visited.remove(node);
+				final int childCount = node.getChildren().size();
+				final Expression[] uniqueChildren = new Expression[childCount];
+				for (int i = childCount - 1; i >= 0; i--) {
+					uniqueChildren[i] = results.pop();
+				}
+				final Expression newNode = node.cloneNode();
+				if (childCount > 0) {
+					newNode.setChildren(Arrays.asList(uniqueChildren));
+				}
+				final Expression uniqueNode = unique(newNode);
+				internedNodes.put(node, uniqueNode);
+				results.push(uniqueNode);
+			}
+		}
+		return (T) results.pop();
+	}
+
+	public BoolVariable variable(int index) {
+		return unique((BoolVariable) variableMap.getVariable(index)
+			.orElseThrow(() -> new NoSuchElementException(String.valueOf(index))));
+	}
+
+	public BoolVariable variable(String name) {
+		return unique((BoolVariable) variableMap.getVariable(name)
+			.orElseThrow(() -> new NoSuchElementException(name)));
+	}
+
+	public LiteralPredicate literal(int index, boolean positive) {
+		return unique(variableMap.getLiteral(index, positive)
+			.orElseThrow(() -> new NoSuchElementException(String.valueOf(index))));
+	}
+
+	public LiteralPredicate literal(String name, boolean positive) {
+		return unique(variableMap.getLiteral(name, positive)
+			.orElseThrow(() -> new NoSuchElementException(name)));
+	}
+
+	public And and(Formula... nodes) {
+		return unique(new And(internAll(Arrays.asList(nodes))));
+	}
+
+	public And and(Collection<? extends Formula> nodes) {
+		return unique(new And(internAll(nodes)));
+	}
+
+	public Or or(Formula... nodes) {
+		return unique(new Or(internAll(Arrays.asList(nodes))));
+	}
+
+	public Or or(Collection<? extends Formula> nodes) {
+		return unique(new Or(internAll(nodes)));
+	}
+
+	public Not not(Formula node) {
+		return unique(new Not(intern(node)));
+	}
+
+	public Implies implies(Formula leftNode, Formula rightNode) {
+		return unique(new Implies(intern(leftNode), intern(rightNode)));
+	}
+
+	public Biimplies biimplies(Formula leftNode, Formula rightNode) {
+		return unique(new Biimplies(intern(leftNode), intern(rightNode)));
+	}
+
+	public AtLeast atLeast(Collection<? extends Formula> nodes, int min) {
+		return unique(new AtLeast(internAll(nodes), min));
+	}
+
+	public AtMost atMost(Collection<? extends Formula> nodes, int max) {
+		return unique(new AtMost(internAll(nodes), max));
+	}
+
+	public Between between(Collection<? extends Formula> nodes, int min, int max) {
+		return unique(new Between(internAll(nodes), min, max));
+	}
+
+	public Choose choose(Collection<? extends Formula> nodes, int k) {
+		return unique(new Choose(internAll(nodes), k));
+	}
+
+	private List<Formula> internAll(Collection<? extends Formula> nodes) {
+		final ArrayList<Formula> uniqueChildren = new ArrayList<>(nodes.size());
+		for (final Formula node : nodes) {
+			uniqueChildren.add(intern(node));
+		}
+		return uniqueChildren;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Expression> T unique(T newNode) {
+		final Key key = new Key(newNode);
+		final Expression uniqueNode = uniqueNodes.putIfAbsent(key, newNode);
+		if (uniqueNode == null) {
+			uniqueNodeSet.add(newNode);
+			return newNode;
+		} else {
+			return (T) uniqueNode;
+		}
+	}
+
+}
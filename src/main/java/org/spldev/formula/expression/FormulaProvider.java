@@ -23,6 +23,7 @@
 package org.spldev.formula.expression;
 
 import java.nio.file.*;
+import java.util.*;
 
 import org.spldev.formula.expression.io.*;
 import org.spldev.formula.expression.transform.*;
@@ -64,18 +65,20 @@ public interface FormulaProvider extends Provider<Formula> {
 	public static class CNF implements FormulaProvider {
 		public static final Identifier<Formula> identifier = new Identifier<>();
 		private final int maximumNumberOfLiterals;
+		private final boolean simplifyingClauses;
 
 		private CNF() {
-			this(Integer.MAX_VALUE);
+			this(Integer.MAX_VALUE, false);
 		}
 
-		private CNF(int maximumNumberOfLiterals) {
+		private CNF(int maximumNumberOfLiterals, boolean simplifyingClauses) {
 			this.maximumNumberOfLiterals = maximumNumberOfLiterals;
+			this.simplifyingClauses = simplifyingClauses;
 		}
 
 		@Override
 		public Object getParameters() {
-			return maximumNumberOfLiterals;
+			return Arrays.asList(maximumNumberOfLiterals, simplifyingClauses);
 		}
 
 		@Override
@@ -87,6 +90,7 @@ public interface FormulaProvider extends Provider<Formula> {
 		public Result<Formula> apply(Cache c, InternalMonitor m) {
 			final CNFTransformer cnfTransformer = new CNFTransformer();
 			cnfTransformer.setMaximumNumberOfLiterals(maximumNumberOfLiterals);
+			cnfTransformer.setSimplifyingClauses(simplifyingClauses);
 			return Provider.convert(c, FormulaProvider.identifier, cnfTransformer, m);
 		}
 
@@ -95,7 +99,19 @@ public interface FormulaProvider extends Provider<Formula> {
 		}
 
 		public static CNF fromFormula(int maximumNumberOfLiterals) {
-			return new CNF(maximumNumberOfLiterals);
+			return new CNF(maximumNumberOfLiterals, false);
+		}
+
+		/**
+		 * @param maximumNumberOfLiterals the maximum number of literals for the
+		 *                                distributive law
+		 * @param simplifyingClauses      whether to simplify the resulting clauses
+		 *                                with a
+		 *                                {@link org.spldev.formula.clauses.ClauseSimplifier}
+		 * @return a new CNF provider
+		 */
+		public static CNF fromFormula(int maximumNumberOfLiterals, boolean simplifyingClauses) {
+			return new CNF(maximumNumberOfLiterals, simplifyingClauses);
 		}
 
 	}
@@ -25,12 +25,16 @@ package org.spldev.formula.expression;
 import java.util.*;
 import java.util.stream.*;
 
+import org.spldev.formula.clauses.*;
 import org.spldev.formula.expression.ValueVisitor.*;
 import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.eval.*;
 import org.spldev.formula.expression.term.*;
 import org.spldev.formula.expression.transform.*;
 import org.spldev.formula.expression.transform.NormalForms.*;
 import org.spldev.util.data.Result;
+import org.spldev.util.job.*;
 import org.spldev.util.tree.*;
 import org.spldev.util.tree.visitor.*;
 
@@ -45,6 +49,45 @@ public final class Formulas {
 		return Trees.traverse(expression, visitor);
 	}
 
+	/**
+	 * Compiles the given formula for repeated evaluation. In contrast to
+	 * {@link #evaluate(Expression, Assignment)}, the returned evaluator does not
+	 * traverse the formula tree and does not box intermediate values.
+	 *
+	 * @param formula the formula
+	 * @return a new evaluator
+	 */
+	public static CompiledEvaluator compile(Formula formula) {
+		return EvaluatorCompiler.compile(formula);
+	}
+
+	/**
+	 * Evaluates a formula for many assignments in parallel.
+	 *
+	 * @param formula     the formula
+	 * @param assignments the assignments
+	 * @return the values of the formula in the order of the assignments
+	 *
+	 * @see ParallelEvaluation
+	 */
+	public static List<Optional<Object>> evaluateAll(Formula formula, Collection<? extends Assignment> assignments) {
+		return ParallelEvaluation.evaluateAll(formula, assignments);
+	}
+
+	/**
+	 * Lazily evaluates a formula for all assignments of a stream. The returned
+	 * stream is parallel if the given stream is parallel.
+	 *
+	 * @param formula     the formula
+	 * @param assignments the assignments
+	 * @return a stream of the values of the formula
+	 *
+	 * @see ParallelEvaluation
+	 */
+	public static Stream<Optional<Object>> evaluateAll(Formula formula, Stream<? extends Assignment> assignments) {
+		return ParallelEvaluation.evaluateStream(formula, assignments);
+	}
+
 	public static boolean isCNF(Formula formula) {
 		return NormalForms.isNF(formula, NormalForm.CNF, false);
 	}
@@ -67,6 +110,69 @@ public final class Formulas {
 		return NormalForms.toNF(formula, transformer);
 	}
 
+	/**
+	 * Transforms a formula into CNF and passes each clause to the given sink
+	 * without creating a formula for the whole CNF.
+	 *
+	 * @param formula the formula
+	 * @param sink    the sink of the clauses
+	 * @return the variable map of the clauses, including all new variables
+	 */
+	public static VariableMap toCNF(Formula formula, ClauseSink sink) {
+		return new CNFTransformer().execute(formula, sink);
+	}
+
+	public static Result<ClauseList> toClauseList(Formula formula) {
+		return Executor.run((cnf, monitor) -> ClauseList.fromCNF(new CNFTransformer().execute(cnf, monitor)),
+			formula);
+	}
+
+	/**
+	 * Transforms a formula into CNF and simplifies the resulting clauses with a
+	 * {@link ClauseSimplifier}.
+	 *
+	 * @param formula the formula
+	 * @return a simplified formula in clausal CNF
+	 */
+	public static Result<Formula> toSimplifiedCNF(Formula formula) {
+		final CNFTransformer transformer = new CNFTransformer();
+		transformer.setSimplifyingClauses(true);
+		return NormalForms.toNF(formula, transformer);
+	}
+
+	/**
+	 * Removes tautologies, duplicate literals, and duplicate and subsumed clauses
+	 * from a clause list and applies self-subsuming resolution.
+	 *
+	 * @param clauseList the clauses
+	 * @return a new, simplified clause list
+	 */
+	public static Result<ClauseList> simplifyClauses(ClauseList clauseList) {
+		return Executor.run(new ClauseSimplifier(), clauseList);
+	}
+
+	/**
+	 * Simplifies a formula with a {@link BooleanSimplifier} without changing its
+	 * models.
+	 *
+	 * @param formula the formula
+	 * @return a simplified formula
+	 */
+	public static Result<Formula> simplify(Formula formula) {
+		return Executor.run(new BooleanSimplifier(), formula);
+	}
+
+	/**
+	 * Replaces nested integer and real terms by linear sums with a
+	 * {@link LinearSumTransformer}.
+	 *
+	 * @param formula the formula
+	 * @return a formula with linear sums
+	 */
+	public static Result<Formula> toLinearSums(Formula formula) {
+		return Executor.run(new LinearSumTransformer(), formula);
+	}
+
 	public static Result<Formula> toDNF(Formula formula) {
 		return NormalForms.toNF(formula, new DNFTransformer());
 	}
@@ -77,8 +183,33 @@ public final class Formulas {
 		return auxiliaryRoot.getChild();
 	}
 
+	/**
+	 * Computes the number of nodes on the longest path from the given expression
+	 * to a leaf with an explicit stack, such that arbitrarily deep expressions are
+	 * supported.
+	 *
+	 * @param expression the expression
+	 * @return the maximum depth of the expression
+	 */
 	public static int getMaxDepth(Expression expression) {
-		return Trees.traverse(expression, new TreeDepthCounter()).get();
+		int maxDepth = 0;
+		final ArrayDeque<Expression> nodes = new ArrayDeque<>();
+		int[] depths = new int[16];
+		nodes.push(expression);
+		depths[0] = 1;
+		while (!nodes.isEmpty()) {
+			final Expression node = nodes.pop();
+			final int depth = depths[nodes.size()];
+			maxDepth = Math.max(maxDepth, depth);
+			for (final Expression child : node.getChildren()) {
+				if (nodes.size() == depths.length) {
+					depths = Arrays.copyOf(depths, depths.length << 1);
+				}
+				depths[nodes.size()] = depth + 1;
+				nodes.push(child);
+			}
+		}
+		return maxDepth;
 	}
 
 	public static Stream<Variable<?>> getVariableStream(Expression node) {
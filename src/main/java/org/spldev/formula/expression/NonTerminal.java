@@ -24,7 +24,8 @@ package org.spldev.formula.expression;
 
 import java.util.*;
 
-import org.spldev.util.tree.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.term.*;
 import org.spldev.util.tree.structure.*;
 
 /**
@@ -59,26 +60,135 @@ public abstract class NonTerminal extends AbstractNonTerminal<Expression> implem
 		hasHashCode = false;
 	}
 
+	/**
+	 * Sets the variable map of all variables in this subtree. Variables and
+	 * literals are not modified, but replaced, as they may be shared with other
+	 * formulas. The subtree is traversed with an explicit stack.
+	 */
+	@Override
+	public void setVariableMap(VariableMap map) {
+		replaceVariables(map, false);
+	}
+
+	/**
+	 * Adapts all variables in this subtree to the given variable map. Variables and
+	 * literals are not modified, but replaced, as they may be shared with other
+	 * formulas. The subtree is traversed with an explicit stack.
+	 */
+	@Override
+	public void adaptVariableMap(VariableMap map) {
+		replaceVariables(map, true);
+	}
+
+	private void replaceVariables(VariableMap map, boolean adapt) {
+		final ArrayDeque<NonTerminal> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			final NonTerminal node = stack.pop();
+			for (final ListIterator<Expression> iterator = node.children.listIterator(); iterator.hasNext();) {
+				final Expression child = iterator.next();
+				if (child instanceof Variable) {
+					final Variable<?> variable = (Variable<?>) child;
+					iterator.set(adapt ? variable.withAdaptedVariableMap(map) : variable.withVariableMap(map));
+				} else if (child instanceof LiteralPredicate) {
+					final LiteralPredicate literal = (LiteralPredicate) child;
+					iterator.set(adapt ? literal.withAdaptedVariableMap(map) : literal.withVariableMap(map));
+				} else if (child instanceof NonTerminal) {
+					stack.push((NonTerminal) child);
+				} else if (adapt) {
+					child.adaptVariableMap(map);
+				} else {
+					child.setVariableMap(map);
+				}
+			}
+			node.hasHashCode = false;
+		}
+	}
+
+	/**
+	 * Computes the hash codes of all descendants without a cached hash code in
+	 * post-order with an explicit stack, such that arbitrarily deep formulas can
+	 * be hashed.
+	 */
 	@Override
 	public int hashCode() {
 		if (!hasHashCode) {
-			int tempHashCode = computeHashCode();
-			for (final Expression child : children) {
-				tempHashCode += (tempHashCode * 37) + child.hashCode();
+			final ArrayDeque<NonTerminal> stack = new ArrayDeque<>();
+			final ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+			stack.push(this);
+			expanded.push(Boolean.FALSE);
+			while (!stack.isEmpty()) {
+				final NonTerminal node = stack.peek();
+				if (node.hasHashCode) {
+					stack.pop();
+					expanded.pop();
+				} else if (expanded.pop()) {
+					stack.pop();
+					node.computeCachedHashCode();
+				} else {
+					expanded.push(Boolean.TRUE);
+					for (final Expression child : node.children) {
+						if ((child instanceof NonTerminal) && !(child instanceof LiteralPredicate)
+							&& !((NonTerminal) child).hasHashCode) {
+							stack.push((NonTerminal) child);
+							expanded.push(Boolean.FALSE);
+						}
+					}
+				}
 			}
-			hashCode = tempHashCode;
-			hasHashCode = true;
 		}
 		return hashCode;
 	}
 
+	private void computeCachedHashCode() {
+		int tempHashCode = computeHashCode();
+		for (final Expression child : children) {
+			tempHashCode += (tempHashCode * 37) + child.hashCode();
+		}
+		hashCode = tempHashCode;
+		hasHashCode = true;
+	}
+
 	protected int computeHashCode() {
 		return Objects.hash(getClass(), children.size());
 	}
 
+	/**
+	 * Compares both subtrees pairwise with an explicit stack, such that
+	 * arbitrarily deep formulas can be compared.
+	 */
 	@Override
 	public boolean equals(Object other) {
-		return (other instanceof NonTerminal) && Trees.equals(this, (NonTerminal) other);
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof NonTerminal)) {
+			return false;
+		}
+		final ArrayDeque<Expression> stack = new ArrayDeque<>();
+		stack.push(this);
+		stack.push((NonTerminal) other);
+		while (!stack.isEmpty()) {
+			final Expression node2 = stack.pop();
+			final Expression node1 = stack.pop();
+			if (node1 == node2) {
+				continue;
+			}
+			if ((node1 instanceof NonTerminal) && (node2 instanceof NonTerminal)) {
+				if (!node1.equalsNode(node2)) {
+					return false;
+				}
+				final List<Expression> children1 = ((NonTerminal) node1).children;
+				final List<Expression> children2 = ((NonTerminal) node2).children;
+				for (int i = children1.size() - 1; i >= 0; i--) {
+					stack.push(children1.get(i));
+					stack.push(children2.get(i));
+				}
+			} else if (!Objects.equals(node1, node2)) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	@Override
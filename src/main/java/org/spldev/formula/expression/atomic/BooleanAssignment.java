@@ -0,0 +1,359 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.atomic;
+
+import java.util.*;
+
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.util.data.*;
+
+/**
+ * Dense assignment for boolean variables. For each variable index, one bit
+ * stores whether the variable is assigned and another bit stores its value.
+ * Apart from the {@link Assignment} methods, all accessors work on primitive
+ * values.
+ *
+ * @author Sebastian Krieter
+ */
+public class BooleanAssignment implements Assignment {
+
+	private final int size;
+	private final long[] assigned;
+	private final long[] values;
+
+	/**
+	 * Creates an empty assignment for the variable indexes {@code 1} to
+	 * {@code size}.
+	 *
+	 * @param size the maximum variable index
+	 */
+	public BooleanAssignment(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException(String.valueOf(size));
+		}
+		this.size = size;
+		assigned = new long[(size >>> 6) + 1];
+		values = new long[assigned.length];
+	}
+
+	/**
+	 * Creates an empty assignment for all indexes of the given variable map.
+	 *
+	 * @param variables the variable map
+	 */
+	public BooleanAssignment(VariableMap variables) {
+		this(variables.getMaxIndex());
+	}
+
+	public BooleanAssignment(BooleanAssignment otherAssignment) {
+		size = otherAssignment.size;
+		assigned = Arrays.copyOf(otherAssignment.assigned, otherAssignment.assigned.length);
+		values = Arrays.copyOf(otherAssignment.values, otherAssignment.values.length);
+	}
+
+	/**
+	 * Creates an assignment from literals (i.e., variable indexes that are negative
+	 * if the variable is assigned {@code false}).
+	 *
+	 * @param size     the maximum variable index
+	 * @param literals the assigned literals
+	 * @return a new assignment
+	 */
+	public static BooleanAssignment fromLiterals(int size, int... literals) {
+		final BooleanAssignment assignment = new BooleanAssignment(size);
+		for (final int literal : literals) {
+			assignment.setLiteral(literal);
+		}
+		return assignment;
+	}
+
+	/**
+	 * @return the maximum variable index
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void checkIndex(int index) {
+		if ((index < 1) || (index > size)) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+	}
+
+	public boolean isAssigned(int index) {
+		checkIndex(index);
+		return (assigned[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * @param index the variable index
+	 * @return {@code true} if the variable is assigned {@code true}
+	 */
+	public boolean isTrue(int index) {
+		checkIndex(index);
+		return (values[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * @param index the variable index
+	 * @return {@code true} if the variable is assigned {@code false}
+	 */
+	public boolean isFalse(int index) {
+		checkIndex(index);
+		final int word = index >>> 6;
+		final long bit = 1L << index;
+		return (assigned[word] & ~values[word] & bit) != 0;
+	}
+
+	/**
+	 * Returns the assigned literal of a variable.
+	 *
+	 * @param index the variable index
+	 * @return {@code index} if the variable is {@code true}, {@code -index} if it
+	 *         is {@code false}, and {@code 0} if it is not assigned
+	 */
+	public int getLiteral(int index) {
+		checkIndex(index);
+		final int word = index >>> 6;
+		final long bit = 1L << index;
+		if ((assigned[word] & bit) == 0) {
+			return 0;
+		}
+		return (values[word] & bit) != 0 ? index : -index;
+	}
+
+	public void set(int index, boolean value) {
+		checkIndex(index);
+		final int word = index >>> 6;
+		final long bit = 1L << index;
+		assigned[word] |= bit;
+		if (value) {
+			values[word] |= bit;
+		} else {
+			values[word] &= ~bit;
+		}
+	}
+
+	/**
+	 * Assigns a variable according to a literal.
+	 *
+	 * @param literal the variable index, which is negative if the variable is
+	 *                assigned {@code false}
+	 */
+	public void setLiteral(int literal) {
+		set(Math.abs(literal), literal > 0);
+	}
+
+	@Override
+	public void set(int index, Object assignment) {
+		if (assignment == null) {
+			unset(index);
+		} else if (assignment instanceof Boolean) {
+			set(index, ((Boolean) assignment).booleanValue());
+		} else {
+			throw new ClassCastException(String.valueOf(Boolean.class));
+		}
+	}
+
+	@Override
+	public void unset(int index) {
+		checkIndex(index);
+		final int word = index >>> 6;
+		final long bit = ~(1L << index);
+		assigned[word] &= bit;
+		values[word] &= bit;
+	}
+
+	@Override
+	public void unsetAll() {
+		Arrays.fill(assigned, 0);
+		Arrays.fill(values, 0);
+	}
+
+	/**
+	 * Returns the value of a variable. In contrast to the primitive accessors, an
+	 * index that is out of range is treated as an unassigned variable.
+	 *
+	 * @param index the variable index
+	 * @return the value of the variable or an empty optional if it is not assigned
+	 *         or its index is out of range
+	 */
+	@Override
+	public Optional<Object> get(int index) {
+		if ((index < 1) || (index > size)) {
+			return Optional.empty();
+		}
+		final int literal = getLiteral(index);
+		return literal == 0 ? Optional.empty() : Optional.of(literal > 0 ? Boolean.TRUE : Boolean.FALSE);
+	}
+
+	@Override
+	public List<Pair<Integer, Object>> getAll() {
+		final List<Pair<Integer, Object>> all = new ArrayList<>();
+		for (int index = nextAssigned(1); index > 0; index = nextAssigned(index + 1)) {
+			all.add(new Pair<>(index, (values[index >>> 6] & (1L << index)) != 0));
+		}
+		return all;
+	}
+
+	/**
+	 * Returns the smallest assigned variable index that is greater or equal to the
+	 * given index.
+	 *
+	 * @param index the index to start from
+	 * @return the next assigned index or {@code -1} if there is none
+	 */
+	public int nextAssigned(int index) {
+		if (index > size) {
+			return -1;
+		}
+		int word = index >>> 6;
+		long bits = assigned[word] & (-1L << index);
+		while (bits == 0) {
+			if (++word == assigned.length) {
+				return -1;
+			}
+			bits = assigned[word];
+		}
+		final int next = (word << 6) + Long.numberOfTrailingZeros(bits);
+		return next <= size ? next : -1;
+	}
+
+	/**
+	 * @return the number of assigned variables
+	 */
+	public int countAssigned() {
+		int count = 0;
+		for (final long word : assigned) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * @return the literals of all assigned variables in ascending order of their
+	 *         indexes
+	 */
+	public int[] getLiterals() {
+		final int[] literals = new int[countAssigned()];
+		int i = 0;
+		for (int index = nextAssigned(1); index > 0; index = nextAssigned(index + 1)) {
+			literals[i++] = (values[index >>> 6] & (1L << index)) != 0 ? index : -index;
+		}
+		return literals;
+	}
+
+	/**
+	 * Overwrites this assignment with the given assignment. Both assignments must
+	 * have the same size.
+	 *
+	 * @param otherAssignment the assignment to copy
+	 */
+	public void setAll(BooleanAssignment otherAssignment) {
+		checkSize(otherAssignment);
+		System.arraycopy(otherAssignment.assigned, 0, assigned, 0, assigned.length);
+		System.arraycopy(otherAssignment.values, 0, values, 0, values.length);
+	}
+
+	/**
+	 * Assigns all variables that are assigned in the given assignment and keeps all
+	 * other variables. Both assignments must have the same size.
+	 *
+	 * @param otherAssignment the assignment to merge
+	 */
+	public void merge(BooleanAssignment otherAssignment) {
+		checkSize(otherAssignment);
+		for (int i = 0; i < assigned.length; i++) {
+			final long otherAssigned = otherAssignment.assigned[i];
+			assigned[i] |= otherAssigned;
+			values[i] = (values[i] & ~otherAssigned) | otherAssignment.values[i];
+		}
+	}
+
+	/**
+	 * Returns all variable indexes whose assignment differs between this and the
+	 * given assignment (i.e., that are assigned in only one of them or are assigned
+	 * different values). Both assignments must have the same size.
+	 *
+	 * @param otherAssignment the assignment to compare with
+	 * @return the differing indexes in ascending order
+	 */
+	public int[] diff(BooleanAssignment otherAssignment) {
+		checkSize(otherAssignment);
+		int count = 0;
+		for (int i = 0; i < assigned.length; i++) {
+			count += Long.bitCount(getDifference(otherAssignment, i));
+		}
+		final int[] indexes = new int[count];
+		int j = 0;
+		for (int i = 0; i < assigned.length; i++) {
+			long bits = getDifference(otherAssignment, i);
+			while (bits != 0) {
+				indexes[j++] = (i << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+			}
+		}
+		return indexes;
+	}
+
+	private long getDifference(BooleanAssignment otherAssignment, int word) {
+		return (assigned[word] ^ otherAssignment.assigned[word]) | (values[word] ^ otherAssignment.values[word]);
+	}
+
+	private void checkSize(BooleanAssignment otherAssignment) {
+		if (size != otherAssignment.size) {
+			throw new IllegalArgumentException(String.format("Size %d does not match size %d", otherAssignment.size,
+				size));
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return (31 * Arrays.hashCode(assigned)) + Arrays.hashCode(values);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if ((obj == null) || (getClass() != obj.getClass())) {
+			return false;
+		}
+		final BooleanAssignment other = (BooleanAssignment) obj;
+		return (size == other.size) && Arrays.equals(assigned, other.assigned) && Arrays.equals(values, other.values);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		for (int index = nextAssigned(1); index > 0; index = nextAssigned(index + 1)) {
+			sb.append(index);
+			sb.append(": ");
+			sb.append((values[index >>> 6] & (1L << index)) != 0);
+			sb.append("\n");
+		}
+		return sb.toString();
+	}
+
+}
@@ -25,13 +25,18 @@ package org.spldev.formula.expression.atomic.literal;
 import java.util.*;
 
 import org.spldev.formula.expression.atomic.predicate.*;
+import org.spldev.formula.expression.term.*;
 import org.spldev.formula.expression.term.bool.*;
 
 /**
  * A positive or negative literal. Is associated with a {@link BoolVariable
  * boolean variable}. It can be seen as an expression in the form of
  * {@code x == positive}, where x is the variable and positive is the either
- * {@code true} or {@code false}.
+ * {@code true} or {@code false}.<br>
+ * Literals obtained from a {@link VariableMap} are shared and are therefore
+ * never modified by {@link #setVariableMap(VariableMap)} or
+ * {@link #adaptVariableMap(VariableMap)} of their parents. Instead, the parents
+ * replace them with new literals.
  *
  * @author Sebastian Krieter
  */
@@ -80,6 +85,55 @@ public final class LiteralPredicate extends Predicate<Boolean> implements Litera
 		return new LiteralPredicate(getVariable(), !positive);
 	}
 
+	@Override
+	public void setVariableMap(VariableMap map) {
+		checkNotShared();
+		super.setVariableMap(map);
+	}
+
+	@Override
+	public void adaptVariableMap(VariableMap map) {
+		checkNotShared();
+		super.adaptVariableMap(map);
+	}
+
+	private void checkNotShared() {
+		if (getVariable().getVariableMap().getLiteral(getIndex(), positive).orElse(null) == this) {
+			throw new UnsupportedOperationException("Shared literal must not be modified: " + this);
+		}
+	}
+
+	/**
+	 * Returns a literal that equals this literal after calling
+	 * {@link #setVariableMap(VariableMap)}, without modifying this literal.
+	 *
+	 * @param map the new variable map
+	 * @return a literal that refers to the given map
+	 * @see Variable#withVariableMap(VariableMap)
+	 */
+	public LiteralPredicate withVariableMap(VariableMap map) {
+		return withVariable(getVariable().withVariableMap(map), map);
+	}
+
+	/**
+	 * Returns a literal that equals this literal after calling
+	 * {@link #adaptVariableMap(VariableMap)}, without modifying this literal.
+	 *
+	 * @param newMap the new variable map
+	 * @return a literal that refers to the given map
+	 * @see Variable#withAdaptedVariableMap(VariableMap)
+	 */
+	public LiteralPredicate withAdaptedVariableMap(VariableMap newMap) {
+		return withVariable(getVariable().withAdaptedVariableMap(newMap), newMap);
+	}
+
+	private LiteralPredicate withVariable(Variable<?> variable, VariableMap map) {
+		final LiteralPredicate literal = map.getLiteral(variable.getIndex(), positive).orElse(null);
+		return (literal != null) && (literal.getVariable() == variable)
+			? literal
+			: new LiteralPredicate((BoolVariable) variable, positive);
+	}
+
 	@Override
 	public LiteralPredicate cloneNode() {
 		return new LiteralPredicate(getVariable(), positive);
@@ -49,11 +49,33 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 		private final int index;
 		private final Class<? extends Variable<?>> type;
 
+		private final transient Variable<?> variable;
+		private final transient LiteralPredicate positiveLiteral;
+		private final transient LiteralPredicate negativeLiteral;
+
 		public VariableSignature(VariableMap map, String name, int index, Class<? extends Variable<?>> type) {
 			this.map = map;
-			this.name = name;
+			this.name = name == null ? null : name.intern();
 			this.index = index;
 			this.type = type;
+			variable = newInstance();
+			if (variable instanceof BoolVariable) {
+				positiveLiteral = new LiteralPredicate((BoolVariable) variable, true);
+				negativeLiteral = new LiteralPredicate((BoolVariable) variable, false);
+			} else {
+				positiveLiteral = null;
+				negativeLiteral = null;
+			}
+		}
+
+		private VariableSignature(VariableSignature otherSignature, String name) {
+			map = otherSignature.map;
+			this.name = name == null ? null : name.intern();
+			index = otherSignature.index;
+			type = otherSignature.type;
+			variable = otherSignature.variable;
+			positiveLiteral = otherSignature.positiveLiteral;
+			negativeLiteral = otherSignature.negativeLiteral;
 		}
 
 		public String getName() {
@@ -69,21 +91,33 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 		}
 
 		private VariableSignature rename(String newName) {
-			return new VariableSignature(map, newName, index, type);
+			return new VariableSignature(this, newName);
 		}
 
 		private Variable<?> newInstance() {
-			try {
-				return type.getConstructor(int.class, VariableMap.class).newInstance(index, map);
-			} catch (final Exception e) {
-				Logger.logError(e);
-				return null;
+			if (type == BoolVariable.class) {
+				return new BoolVariable(index, map);
+			} else if (type == IntVariable.class) {
+				return new IntVariable(index, map);
+			} else if (type == RealVariable.class) {
+				return new RealVariable(index, map);
+			} else {
+				try {
+					return type.getConstructor(int.class, VariableMap.class).newInstance(index, map);
+				} catch (final Exception e) {
+					Logger.logError(e);
+					return null;
+				}
 			}
 		}
 
+		private Object readResolve() {
+			return new VariableSignature(map, name, index, type);
+		}
+
 		@Override
 		public VariableSignature clone() {
-			return new VariableSignature(map, name, index, type);
+			return new VariableSignature(this, name);
 		}
 
 		@Override
@@ -113,7 +147,14 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 	private static final long serialVersionUID = 4252808504545415221L;
 
 	private final ArrayList<VariableSignature> indexToName;
-	private final LinkedHashMap<String, VariableSignature> nameToIndex;
+
+	/**
+	 * Open-addressing hash table (linear probing) that maps names to indexes. Each
+	 * slot contains the index of a variable or 0 if it is empty. The name of an
+	 * index is looked up in {@link #indexToName}.
+	 */
+	private transient int[] nameTable;
+	private transient int nameCount;
 
 	public static VariableMap fromNames(Collection<String> names) {
 		Objects.requireNonNull(names);
@@ -144,7 +185,7 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 				final int newIndex = newMap.indexToName.size();
 				sig = new VariableSignature(newMap, sig.name, newIndex, sig.type);
 				newMap.indexToName.add(sig);
-				newMap.nameToIndex.put(sig.name, sig);
+				newMap.putName(sig.name, newIndex);
 			}
 		}
 		newMap.indexToName.trimToSize();
@@ -161,7 +202,7 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 				final int newIndex = newMap.indexToName.size();
 				sig = new VariableSignature(newMap, sig.name, newIndex, sig.type);
 				newMap.indexToName.add(sig);
-				newMap.nameToIndex.put(sig.name, sig);
+				newMap.putName(sig.name, newIndex);
 			}
 		}
 		newMap.indexToName.trimToSize();
@@ -169,7 +210,7 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 	}
 
 	private VariableMap(Map<Integer, String> nameMap) {
-		nameToIndex = new LinkedHashMap<>();
+		nameTable = new int[tableCapacity(nameMap.size())];
 		if (nameMap.isEmpty()) {
 			indexToName = new ArrayList<>();
 			indexToName.add(null);
@@ -182,7 +223,7 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 
 	private VariableMap(VariableMap otherMap, boolean normalize) {
 		indexToName = new ArrayList<>(otherMap.indexToName.size());
-		nameToIndex = new LinkedHashMap<>();
+		nameTable = new int[otherMap.nameTable.length];
 		if (normalize) {
 			indexToName.add(null);
 			for (VariableSignature sig : otherMap.indexToName) {
@@ -190,7 +231,7 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 					final int newIndex = indexToName.size();
 					sig = new VariableSignature(this, sig.name, newIndex, sig.type);
 					indexToName.add(sig);
-					nameToIndex.put(sig.name, sig);
+					putName(sig.name, newIndex);
 				}
 			}
 			indexToName.trimToSize();
@@ -199,9 +240,9 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 				if (sig == null) {
 					indexToName.add(null);
 				} else {
-					sig = sig.clone();
+					sig = new VariableSignature(this, sig.name, sig.index, sig.type);
 					indexToName.add(sig);
-					nameToIndex.put(sig.name, sig);
+					putName(sig.name, sig.index);
 				}
 			}
 		}
@@ -209,16 +250,131 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 
 	private VariableMap() {
 		indexToName = new ArrayList<>();
-		nameToIndex = new LinkedHashMap<>();
+		nameTable = new int[tableCapacity(0)];
 		indexToName.add(null);
 	}
 
+	private static int tableCapacity(int size) {
+		int capacity = 16;
+		while (capacity < (size << 1)) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private static int hash(String name) {
+		final int hash = name.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the slot of the given name in the name table or, if the name is not
+	 * contained, the empty slot at which it would be inserted.
+	 */
+	private int findSlot(String name) {
+		final int mask = nameTable.length - 1;
+		for (int slot = hash(name) & mask;; slot = (slot + 1) & mask) {
+			final int index = nameTable[slot];
+			if (index == 0) {
+				return slot;
+			}
+			final String otherName = indexToName.get(index).name;
+			if ((otherName == name) || otherName.equals(name)) {
+				return slot;
+			}
+		}
+	}
+
+	private void putName(String name, int index) {
+		final int slot = findSlot(name);
+		if (nameTable[slot] == 0) {
+			nameCount++;
+		}
+		nameTable[slot] = index;
+		if ((nameCount << 1) > nameTable.length) {
+			final int[] oldTable = nameTable;
+			nameTable = new int[oldTable.length << 1];
+			for (final int oldIndex : oldTable) {
+				if (oldIndex != 0) {
+					nameTable[findSlot(indexToName.get(oldIndex).name)] = oldIndex;
+				}
+			}
+		}
+	}
+
+	private void removeName(String name) {
+		final int mask = nameTable.length - 1;
+		int slot = findSlot(name);
+		if (nameTable[slot] == 0) {
+			return;
+		}
+		nameCount--;
+		// shift back subsequent entries that would not be found anymore otherwise
+		for (int next = (slot + 1) & mask; nameTable[next] != 0; next = (next + 1) & mask) {
+			final int index = nameTable[next];
+			final int home = hash(indexToName.get(index).name) & mask;
+			if (((next - home) & mask) >= ((next - slot) & mask)) {
+				nameTable[slot] = index;
+				slot = next;
+			}
+		}
+		nameTable[slot] = 0;
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		nameTable = new int[tableCapacity(indexToName.size())];
+		for (final VariableSignature sig : indexToName) {
+			if (sig != null) {
+				putName(sig.name, sig.index);
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the variable with the given name. In contrast to
+	 * {@link #getIndex(String)}, no object is created.
+	 *
+	 * @param name the name of the variable
+	 * @return the index of the variable or {@code -1} if there is no variable with
+	 *         the name
+	 */
+	public int indexOf(String name) {
+		if (name == null) {
+			return -1;
+		}
+		final int index = nameTable[findSlot(name)];
+		return index == 0 ? -1 : index;
+	}
+
+	/**
+	 * Returns the name of the variable with the given index. In contrast to
+	 * {@link #getName(int)}, no object is created.
+	 *
+	 * @param index the index of the variable
+	 * @return the name of the variable or {@code null} if there is no variable with
+	 *         the index
+	 */
+	public String nameOf(int index) {
+		final VariableSignature sig = getSignature(index);
+		return sig == null ? null : sig.name;
+	}
+
+	private VariableSignature getSignature(int index) {
+		return isValidIndex(index) ? indexToName.get(index) : null;
+	}
+
+	private VariableSignature getSignature(String name) {
+		final int index = indexOf(name);
+		return index < 0 ? null : indexToName.get(index);
+	}
+
 	public boolean hasVariable(int index) {
 		return isValidIndex(index) && (indexToName.get(index) != null);
 	}
 
 	public boolean hasVariable(String name) {
-		return nameToIndex.containsKey(name);
+		return indexOf(name) > 0;
 	}
 
 	public Optional<String> getName(final int index) {
@@ -228,17 +384,65 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 	}
 
 	public Optional<Integer> getIndex(String name) {
-		return Optional.ofNullable(nameToIndex.get(name)).map(s -> s.index);
+		final int index = indexOf(name);
+		return index < 0 ? Optional.empty() : Optional.of(index);
 	}
 
+	/**
+	 * Returns the variable with the given index. The returned instance is shared
+	 * by all callers and must not be modified (use {@link Variable#cloneNode()} to
+	 * obtain a private copy).
+	 *
+	 * @param index the index of the variable
+	 * @return An {@link Optional optional} with the variable or an empty optional
+	 *         if there is no variable with the index.
+	 */
 	public Optional<Variable<?>> getVariable(int index) {
 		return isValidIndex(index)
-			? Optional.ofNullable(indexToName.get(index)).map(VariableSignature::newInstance)
+			? Optional.ofNullable(indexToName.get(index)).map(s -> s.variable)
 			: Optional.empty();
 	}
 
+	/**
+	 * Returns the variable with the given name. The returned instance is shared by
+	 * all callers and must not be modified.
+	 *
+	 * @param name the name of the variable
+	 * @return An {@link Optional optional} with the variable or an empty optional
+	 *         if there is no variable with the name.
+	 */
 	public Optional<Variable<?>> getVariable(String name) {
-		return Optional.ofNullable(nameToIndex.get(name)).map(VariableSignature::newInstance);
+		return Optional.ofNullable(getSignature(name)).map(s -> s.variable);
+	}
+
+	/**
+	 * Returns a literal of the {@link BoolVariable boolean variable} with the given
+	 * index. The returned instance is shared by all callers and must not be
+	 * modified.
+	 *
+	 * @param index    the index of the variable
+	 * @param positive whether the literal is positive or negative
+	 * @return An {@link Optional optional} with the literal or an empty optional if
+	 *         there is no boolean variable with the index.
+	 */
+	public Optional<LiteralPredicate> getLiteral(int index, boolean positive) {
+		return isValidIndex(index)
+			? Optional.ofNullable(indexToName.get(index)).map(s -> positive ? s.positiveLiteral : s.negativeLiteral)
+			: Optional.empty();
+	}
+
+	/**
+	 * Returns a literal of the {@link BoolVariable boolean variable} with the given
+	 * name. The returned instance is shared by all callers and must not be
+	 * modified.
+	 *
+	 * @param name     the name of the variable
+	 * @param positive whether the literal is positive or negative
+	 * @return An {@link Optional optional} with the literal or an empty optional if
+	 *         there is no boolean variable with the name.
+	 */
+	public Optional<LiteralPredicate> getLiteral(String name, boolean positive) {
+		return Optional.ofNullable(getSignature(name)).map(s -> positive ? s.positiveLiteral : s.negativeLiteral);
 	}
 
 	private boolean isValidIndex(final int index) {
@@ -267,9 +471,9 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 			final VariableSignature oldSig = indexToName.get(index);
 			if (oldSig != null) {
 				final VariableSignature newSig = oldSig.rename(newName);
+				removeName(oldSig.name);
 				indexToName.set(index, newSig);
-				nameToIndex.remove(oldSig.name);
-				nameToIndex.put(newName, newSig);
+				putName(newSig.name, index);
 			} else {
 				throw new NoSuchElementException(String.valueOf(index));
 			}
@@ -281,12 +485,12 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 	public void renameVariable(String oldName, String newName) {
 		Objects.requireNonNull(oldName);
 		Objects.requireNonNull(newName);
-		final VariableSignature oldSig = nameToIndex.get(oldName);
+		final VariableSignature oldSig = getSignature(oldName);
 		if (oldSig != null) {
 			final VariableSignature newSig = oldSig.rename(newName);
+			removeName(oldSig.name);
 			indexToName.set(newSig.index, newSig);
-			nameToIndex.remove(oldSig.name);
-			nameToIndex.put(newName, newSig);
+			putName(newSig.name, newSig.index);
 		} else {
 			throw new NoSuchElementException(String.valueOf(oldName));
 		}
@@ -297,8 +501,8 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 			indexToName.add(null);
 		}
 		final VariableSignature sig = new VariableSignature(this, name, index, type);
-		nameToIndex.put(name, sig);
 		indexToName.set(index, sig);
+		putName(sig.name, index);
 		return sig;
 	}
 
@@ -311,8 +515,8 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 	 *         optional if a variable with the name already exists.
 	 */
 	public Optional<BoolVariable> addBooleanVariable(String name) {
-		return (name != null) && !nameToIndex.containsKey(name)
-			? Optional.ofNullable((BoolVariable) addVariable(name, getMaxIndex() + 1, BoolVariable.class).newInstance())
+		return (name != null) && (indexOf(name) < 0)
+			? Optional.ofNullable((BoolVariable) addVariable(name, getMaxIndex() + 1, BoolVariable.class).variable)
 			: Optional.empty();
 	}
 
@@ -325,8 +529,8 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 	 *         optional if a variable with the name already exists.
 	 */
 	public Optional<IntVariable> addIntegerVariable(String name) {
-		return (name != null) && !nameToIndex.containsKey(name)
-			? Optional.ofNullable((IntVariable) addVariable(name, getMaxIndex() + 1, IntVariable.class).newInstance())
+		return (name != null) && (indexOf(name) < 0)
+			? Optional.ofNullable((IntVariable) addVariable(name, getMaxIndex() + 1, IntVariable.class).variable)
 			: Optional.empty();
 	}
 
@@ -341,20 +545,20 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 	 *         is {@code null}.
 	 */
 	public Optional<RealVariable> addRealVariable(String name) {
-		return (name != null) && !nameToIndex.containsKey(name)
-			? Optional.ofNullable((RealVariable) addVariable(name, getMaxIndex() + 1, RealVariable.class).newInstance())
+		return (name != null) && (indexOf(name) < 0)
+			? Optional.ofNullable((RealVariable) addVariable(name, getMaxIndex() + 1, RealVariable.class).variable)
 			: Optional.empty();
 	}
 
 	public boolean removeVariable(String name) {
-		final VariableSignature oldSig = nameToIndex.get(name);
+		final VariableSignature oldSig = getSignature(name);
 		if (oldSig != null) {
+			removeName(name);
 			if (oldSig.index == getMaxIndex()) {
 				indexToName.remove(oldSig.index);
 			} else {
 				indexToName.set(oldSig.index, null);
 			}
-			nameToIndex.remove(name);
 			return true;
 		} else {
 			return false;
@@ -363,12 +567,15 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 
 	public boolean removeIndex(int index) {
 		if (isValidIndex(index)) {
+			final VariableSignature oldSig = indexToName.get(index);
+			if ((oldSig != null) && (indexOf(oldSig.name) == index)) {
+				removeName(oldSig.name);
+			}
 			if (index == getMaxIndex()) {
 				indexToName.remove(index);
 			} else {
 				indexToName.set(index, null);
 			}
-			getName(index).ifPresent(nameToIndex::remove);
 			return true;
 		} else {
 			return false;
@@ -376,7 +583,7 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 	}
 
 	public boolean hasGaps() {
-		return nameToIndex.size() != indexToName.size();
+		return nameCount != (indexToName.size() - 1);
 	}
 
 	public VariableMap normalize() {
@@ -411,7 +618,12 @@ public class VariableMap implements Cloneable, Serializable, Iterable<VariableMa
 	}
 
 	public boolean containsAll(VariableMap variables) {
-		return nameToIndex.keySet().containsAll(variables.nameToIndex.keySet());
+		for (final VariableSignature sig : variables.indexToName) {
+			if ((sig != null) && (indexOf(sig.name) < 0)) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	@Override
@@ -0,0 +1,202 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.eval;
+
+import java.util.*;
+
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.util.data.*;
+
+/**
+ * A block of up to 64 Boolean assignments in bit-sliced form. For each
+ * variable, there is one {@code long} whose bits denote the configurations in
+ * which the variable is {@code true} and one whose bits denote the
+ * configurations in which it is {@code false}. If neither bit is set, the
+ * variable is unassigned in the respective configuration.
+ *
+ * @author Sebastian Krieter
+ */
+public class AssignmentBlock {
+
+	public static final int CAPACITY = Long.SIZE;
+
+	private final int size;
+	private final long[] trueMasks;
+	private final long[] falseMasks;
+	private final Assignment[] assignments = new Assignment[CAPACITY];
+	private int count;
+
+	/**
+	 * Creates a new empty block.
+	 *
+	 * @param size the largest variable index
+	 */
+	public AssignmentBlock(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException(String.valueOf(size));
+		}
+		this.size = size;
+		trueMasks = new long[size + 1];
+		falseMasks = new long[size + 1];
+	}
+
+	public AssignmentBlock(VariableMap variables) {
+		this(variables.getMaxIndex());
+	}
+
+	/**
+	 * @return the largest variable index that can be stored in this block
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of configurations in this block
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Sets the number of configurations in this block. Can be used to fill the
+	 * block via {@link #setVariable(int, long, long)}.
+	 *
+	 * @param count the number of configurations
+	 */
+	public void setCount(int count) {
+		if ((count < 0) || (count > CAPACITY)) {
+			throw new IllegalArgumentException(String.valueOf(count));
+		}
+		this.count = count;
+	}
+
+	public boolean isFull() {
+		return count == CAPACITY;
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * @return a mask with one bit set for each configuration in this block
+	 */
+	public long getMask() {
+		return count == CAPACITY ? -1L : (1L << count) - 1;
+	}
+
+	/**
+	 * Adds an assignment as a new configuration to this block. Only Boolean
+	 * values of variables with an index up to {@link #size()} are stored in
+	 * bit-sliced form. The assignment itself is kept to evaluate other atomic
+	 * formulas.
+	 *
+	 * @param assignment the assignment
+	 * @return the position of the new configuration
+	 */
+	public int add(Assignment assignment) {
+		if (count == CAPACITY) {
+			throw new IllegalStateException("Block is full");
+		}
+		final int position = count++;
+		assignments[position] = assignment;
+		if (assignment instanceof BooleanAssignment) {
+			final BooleanAssignment booleanAssignment = (BooleanAssignment) assignment;
+			final int maxIndex = Math.min(size, booleanAssignment.size());
+			for (int index = booleanAssignment.nextAssigned(1); (index > 0) && (index <= maxIndex); index =
+				booleanAssignment.nextAssigned(index + 1)) {
+				set(position, index, booleanAssignment.isTrue(index));
+			}
+		} else {
+			for (final Pair<Integer, Object> pair : assignment.getAll()) {
+				final int index = pair.getKey();
+				if ((index > 0) && (index <= size) && (pair.getValue() instanceof Boolean)) {
+					set(position, index, (Boolean) pair.getValue());
+				}
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * Assigns a value to a variable in one configuration.
+	 *
+	 * @param position the position of the configuration
+	 * @param index    the index of the variable
+	 * @param value    the value
+	 */
+	public void set(int position, int index, boolean value) {
+		final long bit = 1L << position;
+		if (value) {
+			trueMasks[index] |= bit;
+			falseMasks[index] &= ~bit;
+		} else {
+			falseMasks[index] |= bit;
+			trueMasks[index] &= ~bit;
+		}
+	}
+
+	/**
+	 * Sets the values of a variable for all configurations at once.
+	 *
+	 * @param index     the index of the variable
+	 * @param trueMask  the configurations in which the variable is {@code true}
+	 * @param falseMask the configurations in which the variable is {@code false}
+	 */
+	public void setVariable(int index, long trueMask, long falseMask) {
+		if ((trueMask & falseMask) != 0) {
+			throw new IllegalArgumentException("Variable " + index + " is both true and false");
+		}
+		trueMasks[index] = trueMask;
+		falseMasks[index] = falseMask;
+	}
+
+	public long getTrueMask(int index) {
+		return trueMasks[index];
+	}
+
+	public long getFalseMask(int index) {
+		return falseMasks[index];
+	}
+
+	/**
+	 * Returns the original assignment of a configuration.
+	 *
+	 * @param position the position of the configuration
+	 * @return the assignment or {@code null} if the configuration was not added
+	 *         via {@link #add(Assignment)}
+	 */
+	public Assignment getAssignment(int position) {
+		return assignments[position];
+	}
+
+	public void clear() {
+		Arrays.fill(trueMasks, 0);
+		Arrays.fill(falseMasks, 0);
+		Arrays.fill(assignments, null);
+		count = 0;
+	}
+
+}
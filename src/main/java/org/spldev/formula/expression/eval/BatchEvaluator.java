@@ -0,0 +1,317 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.eval;
+
+import java.util.*;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.flat.*;
+
+/**
+ * Evaluates a formula for up to 64 configurations at once. The configurations
+ * are given in bit-sliced form as an {@link AssignmentBlock}. The value of each
+ * subformula is represented by two masks, one for the configurations in which
+ * it is {@code true} and one for those in which it is {@code false}, such that
+ * all operators are computed with a few bit operations per 64 configurations.
+ * The results correspond to {@link Formulas#evaluate(Expression, Assignment)},
+ * where configurations in which neither bit is set evaluate to an unknown
+ * value.<br>
+ * An instance is not thread-safe, use {@link #copy()} to obtain an evaluator
+ * for another thread.
+ *
+ * @author Sebastian Krieter
+ */
+public class BatchEvaluator {
+
+	private final FlatFormula formula;
+	private final long[] trueMasks;
+	private final long[] falseMasks;
+	private final long[] trueCounts;
+	private final long[] possibleCounts;
+
+	private long lastMask;
+	private long lastFalseMask;
+
+	public BatchEvaluator(Formula formula) {
+		this(FlatFormula.fromFormula(formula));
+	}
+
+	public BatchEvaluator(FlatFormula formula) {
+		this.formula = formula;
+		trueMasks = new long[formula.size()];
+		falseMasks = new long[formula.size()];
+		int maxThreshold = 0;
+		for (int node = 0; node < formula.size(); node++) {
+			if (isCardinal(formula.getOpcode(node))) {
+				maxThreshold = Math.max(maxThreshold, getThreshold(node));
+			}
+		}
+		trueCounts = new long[maxThreshold + 1];
+		possibleCounts = new long[maxThreshold + 1];
+	}
+
+	/**
+	 * Creates a new evaluator for the same formula, which has its own internal
+	 * state.
+	 *
+	 * @return a new evaluator
+	 */
+	public BatchEvaluator copy() {
+		return new BatchEvaluator(formula);
+	}
+
+	public FlatFormula getFormula() {
+		return formula;
+	}
+
+	/**
+	 * Evaluates the formula for all configurations in the given block.
+	 *
+	 * @param block the configurations
+	 * @return a mask with one bit set for each configuration that satisfies the
+	 *         formula
+	 */
+	public long evaluate(AssignmentBlock block) {
+		for (int node = 0; node < formula.size(); node++) {
+			evaluateNode(node, block);
+		}
+		final int root = formula.getRoot();
+		lastMask = block.getMask();
+		lastFalseMask = falseMasks[root] & lastMask;
+		return trueMasks[root] & lastMask;
+	}
+
+	/**
+	 * @return a mask with one bit set for each configuration that did not satisfy
+	 *         the formula in the last call of {@link #evaluate(AssignmentBlock)}
+	 */
+	public long getFalseMask() {
+		return lastFalseMask;
+	}
+
+	/**
+	 * @return a mask with one bit set for each configuration for which the value
+	 *         of the formula was unknown in the last call of
+	 *         {@link #evaluate(AssignmentBlock)}
+	 */
+	public long getUnknownMask() {
+		return lastMask & ~lastFalseMask & ~(trueMasks[formula.getRoot()]);
+	}
+
+	/**
+	 * Evaluates the formula for a list of assignments.
+	 *
+	 * @param assignments the assignments
+	 * @return a bit set with the bit at position {@code i} set if the {@code i}-th
+	 *         assignment satisfies the formula
+	 */
+	public BitSet evaluateAll(List<? extends Assignment> assignments) {
+		final long[] words = new long[(assignments.size() + (AssignmentBlock.CAPACITY - 1))
+			/ AssignmentBlock.CAPACITY];
+		final AssignmentBlock block = new AssignmentBlock(formula.getVariableMap());
+		int word = 0;
+		for (final Assignment assignment : assignments) {
+			block.add(assignment);
+			if (block.isFull()) {
+				words[word++] = evaluate(block);
+				block.clear();
+			}
+		}
+		if (!block.isEmpty()) {
+			words[word] = evaluate(block);
+		}
+		return BitSet.valueOf(words);
+	}
+
+	private void evaluateNode(int node, AssignmentBlock block) {
+		final int offset = formula.getChildOffset(node);
+		final int childCount = formula.getChildCount(node);
+		final int opcode = formula.getOpcode(node);
+		long trueMask;
+		long falseMask;
+		switch (opcode) {
+		case FlatFormula.TRUE:
+			trueMask = -1L;
+			falseMask = 0L;
+			break;
+		case FlatFormula.FALSE:
+			trueMask = 0L;
+			falseMask = -1L;
+			break;
+		case FlatFormula.LITERAL: {
+			final int literal = formula.getLiteral(node);
+			final int index = Math.abs(literal);
+			if (index > block.size()) {
+				trueMask = 0L;
+				falseMask = 0L;
+			} else if (literal > 0) {
+				trueMask = block.getTrueMask(index);
+				falseMask = block.getFalseMask(index);
+			} else {
+				trueMask = block.getFalseMask(index);
+				falseMask = block.getTrueMask(index);
+			}
+			break;
+		}
+		case FlatFormula.ATOM: {
+			final Formula atom = formula.getAtom(node);
+			trueMask = 0L;
+			falseMask = 0L;
+			for (int position = 0; position < block.getCount(); position++) {
+				final Assignment assignment = block.getAssignment(position);
+				if (assignment == null) {
+					throw new IllegalStateException("No assignment for configuration " + position + " to evaluate "
+						+ atom);
+				}
+				final byte value = CompiledEvaluator.getValue(atom, assignment);
+				if (value == FormulaEvaluator.TRUE) {
+					trueMask |= 1L << position;
+				} else if (value == FormulaEvaluator.FALSE) {
+					falseMask |= 1L << position;
+				}
+			}
+			break;
+		}
+		case FlatFormula.AND:
+			trueMask = -1L;
+			falseMask = 0L;
+			for (int i = 0; i < childCount; i++) {
+				final int child = formula.getChildAt(offset + i);
+				trueMask &= trueMasks[child];
+				falseMask |= falseMasks[child];
+			}
+			break;
+		case FlatFormula.OR:
+			trueMask = 0L;
+			falseMask = -1L;
+			for (int i = 0; i < childCount; i++) {
+				final int child = formula.getChildAt(offset + i);
+				trueMask |= trueMasks[child];
+				falseMask &= falseMasks[child];
+			}
+			break;
+		case FlatFormula.NOT: {
+			final int child = formula.getChildAt(offset);
+			trueMask = falseMasks[child];
+			falseMask = trueMasks[child];
+			break;
+		}
+		case FlatFormula.IMPLIES:
+			if (childCount != 2) {
+				trueMask = 0L;
+				falseMask = -1L;
+			} else {
+				final int left = formula.getChildAt(offset);
+				final int right = formula.getChildAt(offset + 1);
+				trueMask = falseMasks[left] | trueMasks[right];
+				falseMask = trueMasks[left] & falseMasks[right];
+			}
+			break;
+		case FlatFormula.BIIMPLIES:
+			if (childCount != 2) {
+				trueMask = 0L;
+				falseMask = -1L;
+			} else {
+				final int left = formula.getChildAt(offset);
+				final int right = formula.getChildAt(offset + 1);
+				trueMask = (trueMasks[left] & trueMasks[right]) | (falseMasks[left] & falseMasks[right]);
+				falseMask = (trueMasks[left] & falseMasks[right]) | (falseMasks[left] & trueMasks[right]);
+			}
+			break;
+		case FlatFormula.AT_LEAST:
+		case FlatFormula.AT_MOST:
+		case FlatFormula.BETWEEN:
+		case FlatFormula.CHOOSE: {
+			final int threshold = getThreshold(node);
+			Arrays.fill(trueCounts, 0, threshold + 1, 0L);
+			Arrays.fill(possibleCounts, 0, threshold + 1, 0L);
+			trueCounts[0] = -1L;
+			possibleCounts[0] = -1L;
+			for (int i = 0; i < childCount; i++) {
+				final int child = formula.getChildAt(offset + i);
+				final long childTrue = trueMasks[child];
+				final long childPossible = ~falseMasks[child];
+				for (int k = Math.min(threshold, i + 1); k > 0; k--) {
+					trueCounts[k] |= trueCounts[k - 1] & childTrue;
+					possibleCounts[k] |= possibleCounts[k - 1] & childPossible;
+				}
+			}
+			final int lower = getLowerBound(node);
+			final int upper = getUpperBound(node);
+			final long trueAtLeastMin = atLeast(trueCounts, lower, threshold);
+			final long trueAboveMax = atLeast(trueCounts, upper, threshold);
+			final long possibleAtLeastMin = atLeast(possibleCounts, lower, threshold);
+			final long possibleAboveMax = atLeast(possibleCounts, upper, threshold);
+			trueMask = trueAtLeastMin & ~possibleAboveMax;
+			falseMask = trueAboveMax | ~possibleAtLeastMin;
+			break;
+		}
+		default:
+			throw new IllegalStateException(String.valueOf(opcode));
+		}
+		trueMasks[node] = trueMask;
+		falseMasks[node] = falseMask;
+	}
+
+	private static boolean isCardinal(int opcode) {
+		return (opcode == FlatFormula.AT_LEAST) || (opcode == FlatFormula.AT_MOST) || (opcode == FlatFormula.BETWEEN)
+			|| (opcode == FlatFormula.CHOOSE);
+	}
+
+	/**
+	 * Returns the minimum number of children of a cardinal node, clamped to the
+	 * range between 0 and the number of children + 1.
+	 */
+	private int getLowerBound(int node) {
+		return Math.min(Math.max(formula.getMin(node), 0), formula.getChildCount(node) + 1);
+	}
+
+	/**
+	 * Returns the maximum number of children of a cardinal node + 1 (i.e., the
+	 * smallest number that exceeds the maximum), clamped to the range between 0
+	 * and the number of children + 1.
+	 */
+	private int getUpperBound(int node) {
+		final int max = formula.getMax(node);
+		return max >= formula.getChildCount(node) ? formula.getChildCount(node) + 1 : Math.max(max + 1, 0);
+	}
+
+	/**
+	 * Returns the largest count that needs to be tracked for a cardinal node.
+	 */
+	private int getThreshold(int node) {
+		return Math.min(formula.getChildCount(node), Math.max(getLowerBound(node), getUpperBound(node)));
+	}
+
+	private static long atLeast(long[] counts, int count, int threshold) {
+		if (count <= 0) {
+			return -1L;
+		} else if (count > threshold) {
+			return 0L;
+		} else {
+			return counts[count];
+		}
+	}
+
+}
@@ -0,0 +1,234 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.eval;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.flat.*;
+
+/**
+ * Evaluates a formula that was compiled by {@link EvaluatorCompiler} using a
+ * preallocated operand stack. For a {@link BooleanAssignment}, evaluation does
+ * not allocate any objects (unless the formula contains atoms that are not
+ * boolean literals). Other assignments are accessed via
+ * {@link Assignment#get(int)}.<br>
+ * An instance is not thread-safe, use {@link #copy()} to obtain an evaluator
+ * for another thread.
+ *
+ * @author Sebastian Krieter
+ */
+public class CompiledEvaluator implements FormulaEvaluator {
+
+	private final int[] code;
+	private final Formula[] atoms;
+	private final byte[] stack;
+	private final byte[] registers;
+
+	CompiledEvaluator(int[] code, Formula[] atoms, int stackSize, int registerCount) {
+		this.code = code;
+		this.atoms = atoms;
+		stack = new byte[stackSize];
+		registers = new byte[registerCount];
+	}
+
+	private CompiledEvaluator(CompiledEvaluator otherEvaluator) {
+		code = otherEvaluator.code;
+		atoms = otherEvaluator.atoms;
+		stack = new byte[otherEvaluator.stack.length];
+		registers = new byte[otherEvaluator.registers.length];
+	}
+
+	/**
+	 * Creates a new evaluator for the same formula, which shares the compiled code
+	 * but has its own stack.
+	 *
+	 * @return a new evaluator
+	 */
+	public CompiledEvaluator copy() {
+		return new CompiledEvaluator(this);
+	}
+
+	@Override
+	public byte evaluate(Assignment assignment) {
+		final BooleanAssignment booleanAssignment = (assignment instanceof BooleanAssignment)
+			? (BooleanAssignment) assignment
+			: null;
+		final int[] code = this.code;
+		final byte[] stack = this.stack;
+		int top = 0;
+		int pc = 0;
+		while (pc < code.length) {
+			switch (code[pc++]) {
+			case FlatFormula.TRUE:
+				stack[top++] = TRUE;
+				break;
+			case FlatFormula.FALSE:
+				stack[top++] = FALSE;
+				break;
+			case FlatFormula.LITERAL: {
+				final int literal = code[pc++];
+				stack[top++] = booleanAssignment != null
+					? getValue(literal, booleanAssignment)
+					: getValue(literal, assignment);
+				break;
+			}
+			case FlatFormula.ATOM:
+				stack[top++] = getValue(atoms[code[pc++]], assignment);
+				break;
+			case FlatFormula.AND: {
+				final int start = top - code[pc++];
+				byte result = TRUE;
+				for (int i = start; i < top; i++) {
+					final byte value = stack[i];
+					if (value == FALSE) {
+						result = FALSE;
+						break;
+					} else if (value == UNKNOWN) {
+						result = UNKNOWN;
+					}
+				}
+				top = start;
+				stack[top++] = result;
+				break;
+			}
+			case FlatFormula.OR: {
+				final int start = top - code[pc++];
+				byte result = FALSE;
+				for (int i = start; i < top; i++) {
+					final byte value = stack[i];
+					if (value == TRUE) {
+						result = TRUE;
+						break;
+					} else if (value == UNKNOWN) {
+						result = UNKNOWN;
+					}
+				}
+				top = start;
+				stack[top++] = result;
+				break;
+			}
+			case FlatFormula.NOT: {
+				final byte value = stack[top - 1];
+				stack[top - 1] = value == UNKNOWN ? UNKNOWN : (byte) (TRUE - value);
+				break;
+			}
+			case FlatFormula.IMPLIES: {
+				final int childCount = code[pc++];
+				final int start = top - childCount;
+				byte result = FALSE;
+				if (childCount == 2) {
+					final byte leftValue = stack[start];
+					final byte rightValue = stack[start + 1];
+					if ((rightValue == TRUE) || (leftValue == FALSE)) {
+						result = TRUE;
+					} else if ((leftValue == UNKNOWN) || (rightValue == UNKNOWN)) {
+						result = UNKNOWN;
+					}
+				}
+				top = start;
+				stack[top++] = result;
+				break;
+			}
+			case FlatFormula.BIIMPLIES: {
+				final int childCount = code[pc++];
+				final int start = top - childCount;
+				byte result = FALSE;
+				if (childCount == 2) {
+					final byte leftValue = stack[start];
+					final byte rightValue = stack[start + 1];
+					if ((leftValue == UNKNOWN) || (rightValue == UNKNOWN)) {
+						result = UNKNOWN;
+					} else {
+						result = leftValue == rightValue ? TRUE : FALSE;
+					}
+				}
+				top = start;
+				stack[top++] = result;
+				break;
+			}
+			case FlatFormula.AT_LEAST:
+			case FlatFormula.AT_MOST:
+			case FlatFormula.BETWEEN:
+			case FlatFormula.CHOOSE: {
+				final int start = top - code[pc++];
+				final int min = code[pc++];
+				final int max = code[pc++];
+				int trueCount = 0;
+				int unknownCount = 0;
+				for (int i = start; i < top; i++) {
+					final byte value = stack[i];
+					if (value == TRUE) {
+						trueCount++;
+					} else if (value == UNKNOWN) {
+						unknownCount++;
+					}
+				}
+				top = start;
+				if ((trueCount >= min) && ((trueCount + unknownCount) <= max)) {
+					stack[top++] = TRUE;
+				} else if (((trueCount + unknownCount) < min) || (trueCount > max)) {
+					stack[top++] = FALSE;
+				} else {
+					stack[top++] = UNKNOWN;
+				}
+				break;
+			}
+			case EvaluatorCompiler.STORE:
+				registers[code[pc++]] = stack[top - 1];
+				break;
+			case EvaluatorCompiler.LOAD:
+				stack[top++] = registers[code[pc++]];
+				break;
+			default:
+				throw new IllegalStateException(String.valueOf(code[pc - 1]));
+			}
+		}
+		return stack[0];
+	}
+
+	static byte getValue(int literal, BooleanAssignment assignment) {
+		final int index = Math.abs(literal);
+		if (index > assignment.size()) {
+			return UNKNOWN;
+		}
+		final int value = assignment.getLiteral(index);
+		return value == 0 ? UNKNOWN : value == literal ? TRUE : FALSE;
+	}
+
+	static byte getValue(int literal, Assignment assignment) {
+		final Object value = assignment.get(Math.abs(literal)).orElse(null);
+		if (value == null) {
+			return UNKNOWN;
+		} else if (value instanceof Boolean) {
+			return ((Boolean) value) == (literal > 0) ? TRUE : FALSE;
+		} else {
+			throw new IllegalArgumentException(String.valueOf(value));
+		}
+	}
+
+	static byte getValue(Formula atom, Assignment assignment) {
+		final Object value = Formulas.evaluate(atom, assignment).orElse(null);
+		return value == null ? UNKNOWN : (Boolean) value ? TRUE : FALSE;
+	}
+
+}
@@ -0,0 +1,155 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.eval;
+
+import java.util.*;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.flat.*;
+
+/**
+ * Lowers a formula into a postfix instruction array that can be evaluated by a
+ * {@link CompiledEvaluator}. Subformulas that are referenced more than once in
+ * the {@link FlatFormula flat representation} are evaluated only once and
+ * reloaded from a register at every further reference.
+ *
+ * @author Sebastian Krieter
+ */
+public final class EvaluatorCompiler {
+
+	static final int STORE = 13;
+	static final int LOAD = 14;
+
+	private EvaluatorCompiler() {
+	}
+
+	/**
+	 * Compiles the given formula.
+	 *
+	 * @param formula the formula
+	 * @return a new evaluator
+	 * @throws IllegalArgumentException if the formula contains a quantifier or a
+	 *                                  node that is not a formula
+	 */
+	public static CompiledEvaluator compile(Formula formula) {
+		return compile(FlatFormula.fromFormula(formula));
+	}
+
+	public static CompiledEvaluator compile(FlatFormula formula) {
+		final int size = formula.size();
+		final int[] references = new int[size];
+		for (int node = 0; node < size; node++) {
+			for (int i = 0; i < formula.getChildCount(node); i++) {
+				references[formula.getChild(node, i)]++;
+			}
+		}
+		final int[] registers = new int[size];
+		Arrays.fill(registers, -1);
+		int registerCount = 0;
+
+		int[] code = new int[size * 2];
+		int codeLength = 0;
+		int stackHeight = 0;
+		int maxStackHeight = 0;
+
+		final int[] nodeStack = new int[size + 1];
+		final int[] childStack = new int[size + 1];
+		int top = 0;
+		nodeStack[0] = formula.getRoot();
+		childStack[0] = 0;
+		while (top >= 0) {
+			final int node = nodeStack[top];
+			final int opcode = formula.getOpcode(node);
+			if (registers[node] >= 0) {
+				code = ensureCapacity(code, codeLength + 2);
+				code[codeLength++] = LOAD;
+				code[codeLength++] = registers[node];
+				maxStackHeight = Math.max(maxStackHeight, ++stackHeight);
+				top--;
+				continue;
+			}
+			final int childCount = formula.getChildCount(node);
+			final int nextChild = childStack[top];
+			if (nextChild < childCount) {
+				childStack[top]++;
+				top++;
+				nodeStack[top] = formula.getChild(node, nextChild);
+				childStack[top] = 0;
+				continue;
+			}
+			top--;
+			code = ensureCapacity(code, codeLength + 6);
+			code[codeLength++] = opcode;
+			switch (opcode) {
+			case FlatFormula.TRUE:
+			case FlatFormula.FALSE:
+				break;
+			case FlatFormula.LITERAL:
+				code[codeLength++] = formula.getLiteral(node);
+				break;
+			case FlatFormula.ATOM:
+				code[codeLength++] = node;
+				break;
+			case FlatFormula.NOT:
+				break;
+			case FlatFormula.AND:
+			case FlatFormula.OR:
+			case FlatFormula.IMPLIES:
+			case FlatFormula.BIIMPLIES:
+				code[codeLength++] = childCount;
+				break;
+			case FlatFormula.AT_LEAST:
+			case FlatFormula.AT_MOST:
+			case FlatFormula.BETWEEN:
+			case FlatFormula.CHOOSE:
+				code[codeLength++] = childCount;
+				code[codeLength++] = formula.getMin(node);
+				code[codeLength++] = formula.getMax(node);
+				break;
+			default:
+				throw new IllegalStateException(String.valueOf(opcode));
+			}
+			stackHeight = (stackHeight - childCount) + 1;
+			maxStackHeight = Math.max(maxStackHeight, stackHeight);
+			if ((references[node] > 1) && (opcode != FlatFormula.LITERAL) && (opcode != FlatFormula.TRUE)
+				&& (opcode != FlatFormula.FALSE)) {
+				registers[node] = registerCount++;
+				code[codeLength++] = STORE;
+				code[codeLength++] = registers[node];
+			}
+		}
+
+		final Formula[] atoms = new Formula[size];
+		for (int node = 0; node < size; node++) {
+			if (formula.getOpcode(node) == FlatFormula.ATOM) {
+				atoms[node] = formula.getAtom(node);
+			}
+		}
+		return new CompiledEvaluator(Arrays.copyOf(code, codeLength), atoms, maxStackHeight, registerCount);
+	}
+
+	private static int[] ensureCapacity(int[] code, int length) {
+		return code.length < length ? Arrays.copyOf(code, Math.max(length, code.length << 1)) : code;
+	}
+
+}
@@ -0,0 +1,68 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.eval;
+
+import org.spldev.formula.expression.atomic.*;
+
+/**
+ * Evaluates a fixed formula for different assignments using three-valued
+ * logic. The result is encoded as a byte ({@link #FALSE}, {@link #TRUE}, or
+ * {@link #UNKNOWN}) to avoid boxing.
+ *
+ * @author Sebastian Krieter
+ */
+public interface FormulaEvaluator {
+
+	byte FALSE = 0;
+	byte TRUE = 1;
+	byte UNKNOWN = 2;
+
+	/**
+	 * Evaluates the formula for the given assignment. The result is equal to
+	 * {@link org.spldev.formula.expression.Formulas#evaluate(org.spldev.formula.expression.Expression, Assignment)
+	 * Formulas.evaluate}.
+	 *
+	 * @param assignment the assignment
+	 * @return {@link #TRUE}, {@link #FALSE}, or {@link #UNKNOWN}
+	 */
+	byte evaluate(Assignment assignment);
+
+	/**
+	 * Converts a three-valued result into a boolean object.
+	 *
+	 * @param value the result of {@link #evaluate(Assignment)}
+	 * @return {@link Boolean#TRUE}, {@link Boolean#FALSE}, or {@code null} if the
+	 *         value is unknown
+	 */
+	static Boolean toBoolean(byte value) {
+		switch (value) {
+		case TRUE:
+			return Boolean.TRUE;
+		case FALSE:
+			return Boolean.FALSE;
+		default:
+			return null;
+		}
+	}
+
+}
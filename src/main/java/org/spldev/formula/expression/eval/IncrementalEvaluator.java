@@ -0,0 +1,411 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.eval;
+
+import java.util.*;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.flat.*;
+import org.spldev.formula.expression.term.*;
+
+/**
+ * Keeps the values of all subformulas of a formula up to date while an
+ * assignment is changed one variable at a time. Each variable is indexed to
+ * the literals and atoms that contain it. When a variable changes, only these
+ * nodes and those of their ancestors whose value actually changes are
+ * re-evaluated. And, Or, and cardinals keep counters of their children's
+ * values, such that a changed child is processed in constant time.<br>
+ * The top-level constraints are the children of the formula if it is an
+ * {@link And} or the formula itself otherwise. For each update, the evaluator
+ * reports which of these constraints changed their value.
+ *
+ * @author Sebastian Krieter
+ */
+public class IncrementalEvaluator {
+
+	private static final int[] NO_CHANGES = new int[0];
+
+	private final FlatFormula formula;
+	private final Assignment assignment;
+	private final List<Formula> constraints;
+	private final int[] constraintNodes;
+
+	private final int[] parentOffsets;
+	private final int[] parents;
+	private final int[] variableOffsets;
+	private final int[] variableNodes;
+	private final int[] nodeConstraintOffsets;
+	private final int[] nodeConstraints;
+
+	private final byte[] values;
+	private final int[] trueCounts;
+	private final int[] unknownCounts;
+
+	private final boolean[] dirty;
+	private final int[] heap;
+	private int heapSize;
+
+	/**
+	 * Creates a new evaluator and evaluates the formula once.
+	 *
+	 * @param formula    the formula
+	 * @param assignment the assignment, which is changed by
+	 *                   {@link #set(int, Object)}
+	 */
+	public IncrementalEvaluator(Formula formula, Assignment assignment) {
+		this.formula = FlatFormula.fromFormula(formula);
+		this.assignment = assignment;
+		final int size = this.formula.size();
+		final int root = this.formula.getRoot();
+
+		if (formula instanceof And) {
+			final List<Formula> children = new ArrayList<>();
+			for (final Expression child : formula.getChildren()) {
+				children.add((Formula) child);
+			}
+			constraints = Collections.unmodifiableList(children);
+			constraintNodes = new int[constraints.size()];
+			for (int i = 0; i < constraintNodes.length; i++) {
+				constraintNodes[i] = this.formula.getChildAt(this.formula.getChildOffset(root) + i);
+			}
+		} else {
+			constraints = Collections.singletonList(formula);
+			constraintNodes = new int[] { root };
+		}
+
+		final int[] parentCounts = new int[size + 1];
+		for (int node = 0; node < size; node++) {
+			final int offset = this.formula.getChildOffset(node);
+			for (int i = 0; i < this.formula.getChildCount(node); i++) {
+				parentCounts[this.formula.getChildAt(offset + i)]++;
+			}
+		}
+		parentOffsets = toOffsets(parentCounts);
+		parents = new int[parentOffsets[size]];
+		final int[] parentPositions = Arrays.copyOf(parentOffsets, size);
+		for (int node = 0; node < size; node++) {
+			final int offset = this.formula.getChildOffset(node);
+			for (int i = 0; i < this.formula.getChildCount(node); i++) {
+				parents[parentPositions[this.formula.getChildAt(offset + i)]++] = node;
+			}
+		}
+
+		final int[][] nodeVariables = new int[size][];
+		int maxIndex = 0;
+		for (int node = 0; node < size; node++) {
+			switch (this.formula.getOpcode(node)) {
+			case FlatFormula.LITERAL:
+				nodeVariables[node] = new int[] { Math.abs(this.formula.getLiteral(node)) };
+				break;
+			case FlatFormula.ATOM:
+				nodeVariables[node] = Formulas.getVariableStream(this.formula.getAtom(node)) //
+					.mapToInt(Variable::getIndex) //
+					.filter(index -> index > 0) //
+					.distinct() //
+					.toArray();
+				break;
+			default:
+				continue;
+			}
+			for (final int index : nodeVariables[node]) {
+				maxIndex = Math.max(maxIndex, index);
+			}
+		}
+		final int[] variableCounts = new int[maxIndex + 2];
+		for (int node = 0; node < size; node++) {
+			if (nodeVariables[node] != null) {
+				for (final int index : nodeVariables[node]) {
+					variableCounts[index]++;
+				}
+			}
+		}
+		variableOffsets = toOffsets(variableCounts);
+		variableNodes = new int[variableOffsets[maxIndex + 1]];
+		final int[] variablePositions = Arrays.copyOf(variableOffsets, maxIndex + 1);
+		for (int node = 0; node < size; node++) {
+			if (nodeVariables[node] != null) {
+				for (final int index : nodeVariables[node]) {
+					variableNodes[variablePositions[index]++] = node;
+				}
+			}
+		}
+
+		final int[] constraintCounts = new int[size + 1];
+		for (final int node : constraintNodes) {
+			constraintCounts[node]++;
+		}
+		nodeConstraintOffsets = toOffsets(constraintCounts);
+		nodeConstraints = new int[constraintNodes.length];
+		final int[] constraintPositions = Arrays.copyOf(nodeConstraintOffsets, size);
+		for (int i = 0; i < constraintNodes.length; i++) {
+			nodeConstraints[constraintPositions[constraintNodes[i]]++] = i;
+		}
+
+		values = new byte[size];
+		trueCounts = new int[size];
+		unknownCounts = new int[size];
+		dirty = new boolean[size];
+		heap = new int[size];
+		reset();
+	}
+
+	/**
+	 * Converts an array of counts into an array of offsets in place. The last
+	 * element of the array is used for the total count.
+	 */
+	private static int[] toOffsets(int[] counts) {
+		int sum = 0;
+		for (int i = 0; i < counts.length; i++) {
+			final int count = counts[i];
+			counts[i] = sum;
+			sum += count;
+		}
+		return counts;
+	}
+
+	public Assignment getAssignment() {
+		return assignment;
+	}
+
+	/**
+	 * @return the current value of the whole formula
+	 */
+	public byte getValue() {
+		return values[formula.getRoot()];
+	}
+
+	public List<Formula> getConstraints() {
+		return constraints;
+	}
+
+	public int getConstraintCount() {
+		return constraintNodes.length;
+	}
+
+	/**
+	 * @param constraint the index of a top-level constraint
+	 * @return the current value of the constraint
+	 */
+	public byte getConstraintValue(int constraint) {
+		return values[constraintNodes[constraint]];
+	}
+
+	/**
+	 * Re-evaluates all subformulas. Must be called when the assignment was
+	 * changed without notifying this evaluator.
+	 */
+	public void reset() {
+		for (int node = 0; node < formula.size(); node++) {
+			trueCounts[node] = 0;
+			unknownCounts[node] = 0;
+			final int offset = formula.getChildOffset(node);
+			for (int i = 0; i < formula.getChildCount(node); i++) {
+				count(node, values[formula.getChildAt(offset + i)], 1);
+			}
+			values[node] = evaluateNode(node);
+		}
+	}
+
+	/**
+	 * Assigns a value to a variable and updates all affected subformulas.
+	 *
+	 * @param index the index of the variable
+	 * @param value the new value or {@code null} to unset the variable
+	 * @return the indexes of all top-level constraints that changed their value in
+	 *         ascending order
+	 */
+	public int[] set(int index, Object value) {
+		assignment.set(index, value);
+		return update(index);
+	}
+
+	/**
+	 * Updates all subformulas that contain the given variable. Must be called
+	 * after the value of the variable was changed directly in the assignment.
+	 *
+	 * @param index the index of the variable
+	 * @return the indexes of all top-level constraints that changed their value in
+	 *         ascending order
+	 */
+	public int[] update(int index) {
+		if ((index <= 0) || (index >= (variableOffsets.length - 1))) {
+			return NO_CHANGES;
+		}
+		for (int i = variableOffsets[index]; i < variableOffsets[index + 1]; i++) {
+			push(variableNodes[i]);
+		}
+		int[] changedConstraints = NO_CHANGES;
+		int changedCount = 0;
+		while (heapSize > 0) {
+			final int node = pop();
+			final byte oldValue = values[node];
+			final byte newValue = evaluateNode(node);
+			if (oldValue != newValue) {
+				values[node] = newValue;
+				for (int i = parentOffsets[node]; i < parentOffsets[node + 1]; i++) {
+					final int parent = parents[i];
+					count(parent, oldValue, -1);
+					count(parent, newValue, 1);
+					push(parent);
+				}
+				for (int i = nodeConstraintOffsets[node]; i < nodeConstraintOffsets[node + 1]; i++) {
+					if (changedCount == changedConstraints.length) {
+						changedConstraints = Arrays.copyOf(changedConstraints, Math.max(4, changedCount * 2));
+					}
+					changedConstraints[changedCount++] = nodeConstraints[i];
+				}
+			}
+		}
+		if (changedCount == 0) {
+			return NO_CHANGES;
+		}
+		final int[] result = Arrays.copyOf(changedConstraints, changedCount);
+		Arrays.sort(result);
+		return result;
+	}
+
+	private void count(int node, byte value, int delta) {
+		if (value == FormulaEvaluator.TRUE) {
+			trueCounts[node] += delta;
+		} else if (value == FormulaEvaluator.UNKNOWN) {
+			unknownCounts[node] += delta;
+		}
+	}
+
+	private byte evaluateNode(int node) {
+		final int childCount = formula.getChildCount(node);
+		final int trueCount = trueCounts[node];
+		final int unknownCount = unknownCounts[node];
+		switch (formula.getOpcode(node)) {
+		case FlatFormula.TRUE:
+			return FormulaEvaluator.TRUE;
+		case FlatFormula.FALSE:
+			return FormulaEvaluator.FALSE;
+		case FlatFormula.LITERAL:
+			return assignment instanceof BooleanAssignment
+				? CompiledEvaluator.getValue(formula.getLiteral(node), (BooleanAssignment) assignment)
+				: CompiledEvaluator.getValue(formula.getLiteral(node), assignment);
+		case FlatFormula.ATOM:
+			return CompiledEvaluator.getValue(formula.getAtom(node), assignment);
+		case FlatFormula.AND:
+			if ((trueCount + unknownCount) < childCount) {
+				return FormulaEvaluator.FALSE;
+			}
+			return unknownCount > 0 ? FormulaEvaluator.UNKNOWN : FormulaEvaluator.TRUE;
+		case FlatFormula.OR:
+			if (trueCount > 0) {
+				return FormulaEvaluator.TRUE;
+			}
+			return unknownCount > 0 ? FormulaEvaluator.UNKNOWN : FormulaEvaluator.FALSE;
+		case FlatFormula.NOT: {
+			final byte value = values[formula.getChildAt(formula.getChildOffset(node))];
+			return value == FormulaEvaluator.UNKNOWN ? FormulaEvaluator.UNKNOWN : (byte) (FormulaEvaluator.TRUE - value);
+		}
+		case FlatFormula.IMPLIES: {
+			if (childCount != 2) {
+				return FormulaEvaluator.FALSE;
+			}
+			final int offset = formula.getChildOffset(node);
+			final byte leftValue = values[formula.getChildAt(offset)];
+			final byte rightValue = values[formula.getChildAt(offset + 1)];
+			if ((rightValue == FormulaEvaluator.TRUE) || (leftValue == FormulaEvaluator.FALSE)) {
+				return FormulaEvaluator.TRUE;
+			} else if ((leftValue == FormulaEvaluator.UNKNOWN) || (rightValue == FormulaEvaluator.UNKNOWN)) {
+				return FormulaEvaluator.UNKNOWN;
+			}
+			return FormulaEvaluator.FALSE;
+		}
+		case FlatFormula.BIIMPLIES: {
+			if (childCount != 2) {
+				return FormulaEvaluator.FALSE;
+			}
+			final int offset = formula.getChildOffset(node);
+			final byte leftValue = values[formula.getChildAt(offset)];
+			final byte rightValue = values[formula.getChildAt(offset + 1)];
+			if ((leftValue == FormulaEvaluator.UNKNOWN) || (rightValue == FormulaEvaluator.UNKNOWN)) {
+				return FormulaEvaluator.UNKNOWN;
+			}
+			return leftValue == rightValue ? FormulaEvaluator.TRUE : FormulaEvaluator.FALSE;
+		}
+		case FlatFormula.AT_LEAST:
+		case FlatFormula.AT_MOST:
+		case FlatFormula.BETWEEN:
+		case FlatFormula.CHOOSE:
+			if ((trueCount >= formula.getMin(node)) && ((trueCount + unknownCount) <= formula.getMax(node))) {
+				return FormulaEvaluator.TRUE;
+			} else if (((trueCount + unknownCount) < formula.getMin(node)) || (trueCount > formula.getMax(node))) {
+				return FormulaEvaluator.FALSE;
+			}
+			return FormulaEvaluator.UNKNOWN;
+		default:
+			throw new IllegalStateException(String.valueOf(formula.getOpcode(node)));
+		}
+	}
+
+	/**
+	 * Adds a node to the queue of nodes to re-evaluate. As children have smaller
+	 * ids than their parents, the queue is a min-heap, which ensures that each node
+	 * is evaluated only once per update.
+	 */
+	private void push(int node) {
+		if (!dirty[node]) {
+			dirty[node] = true;
+			int i = heapSize++;
+			while (i > 0) {
+				final int parent = (i - 1) >>> 1;
+				if (heap[parent] <= node) {
+					break;
+				}
+				heap[i] = heap[parent];
+				i = parent;
+			}
+			heap[i] = node;
+		}
+	}
+
+	private int pop() {
+		final int node = heap[0];
+		final int last = heap[--heapSize];
+		int i = 0;
+		while (true) {
+			int child = (2 * i) + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (((child + 1) < heapSize) && (heap[child + 1] < heap[child])) {
+				child++;
+			}
+			if (heap[child] >= last) {
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = last;
+		dirty[node] = false;
+		return node;
+	}
+
+}
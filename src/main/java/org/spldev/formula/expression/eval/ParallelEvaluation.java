@@ -0,0 +1,201 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.eval;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+
+/**
+ * Evaluates a formula for many assignments in parallel. The formula is
+ * compiled once and each worker uses its own {@link CompiledEvaluator#copy()
+ * copy} of the evaluator. Results are equal to
+ * {@link Formulas#evaluate(Expression, Assignment)} and are returned in the
+ * order of the given assignments.
+ *
+ * @author Sebastian Krieter
+ */
+public final class ParallelEvaluation {
+
+	private static final Optional<Object> TRUE_RESULT = Optional.of(Boolean.TRUE);
+	private static final Optional<Object> FALSE_RESULT = Optional.of(Boolean.FALSE);
+
+	/**
+	 * The minimal number of assignments evaluated by one task.
+	 */
+	private static final int MINIMUM_TASK_SIZE = 256;
+
+	private ParallelEvaluation() {
+	}
+
+	private static class EvaluationTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final CompiledEvaluator evaluator;
+		private final Assignment[] assignments;
+		private final Optional<?>[] results;
+		private final int from;
+		private final int to;
+		private final int taskSize;
+
+		private EvaluationTask(CompiledEvaluator evaluator, Assignment[] assignments, Optional<?>[] results, int from,
+			int to, int taskSize) {
+			this.evaluator = evaluator;
+			this.assignments = assignments;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.taskSize = taskSize;
+		}
+
+		@Override
+		protected void compute() {
+			if ((to - from) <= taskSize) {
+				final CompiledEvaluator localEvaluator = evaluator.copy();
+				for (int i = from; i < to; i++) {
+					results[i] = toResult(localEvaluator.evaluate(assignments[i]));
+				}
+			} else {
+				final int middle = (from + to) >>> 1;
+				invokeAll(new EvaluationTask(evaluator, assignments, results, from, middle, taskSize),
+					new EvaluationTask(evaluator, assignments, results, middle, to, taskSize));
+			}
+		}
+	}
+
+	private static class EvaluationSpliterator implements Spliterator<Optional<Object>> {
+
+		private final Spliterator<? extends Assignment> source;
+		private final CompiledEvaluator evaluator;
+
+		private EvaluationSpliterator(Spliterator<? extends Assignment> source, CompiledEvaluator evaluator) {
+			this.source = source;
+			this.evaluator = evaluator;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Optional<Object>> action) {
+			return source.tryAdvance(assignment -> action.accept(toResult(evaluator.evaluate(assignment))));
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super Optional<Object>> action) {
+			source.forEachRemaining(assignment -> action.accept(toResult(evaluator.evaluate(assignment))));
+		}
+
+		@Override
+		public Spliterator<Optional<Object>> trySplit() {
+			final Spliterator<? extends Assignment> prefix = source.trySplit();
+			return prefix == null ? null : new EvaluationSpliterator(prefix, evaluator.copy());
+		}
+
+		@Override
+		public long estimateSize() {
+			return source.estimateSize();
+		}
+
+		@Override
+		public int characteristics() {
+			return (source.characteristics() & (ORDERED | SIZED | SUBSIZED | IMMUTABLE | CONCURRENT)) | NONNULL;
+		}
+	}
+
+	/**
+	 * Evaluates a formula for all given assignments in the common fork/join pool.
+	 *
+	 * @param formula     the formula
+	 * @param assignments the assignments
+	 * @return the values of the formula in the order of the assignments
+	 */
+	public static List<Optional<Object>> evaluateAll(Formula formula, Collection<? extends Assignment> assignments) {
+		return evaluateAll(formula, assignments, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Evaluates a formula for all given assignments in the given fork/join pool.
+	 *
+	 * @param formula     the formula
+	 * @param assignments the assignments
+	 * @param pool        the pool
+	 * @return the values of the formula in the order of the assignments
+	 */
+	public static List<Optional<Object>> evaluateAll(Formula formula, Collection<? extends Assignment> assignments,
+		ForkJoinPool pool) {
+		final Assignment[] assignmentArray = assignments.toArray(new Assignment[0]);
+		final Optional<?>[] results = new Optional<?>[assignmentArray.length];
+		if (assignmentArray.length > 0) {
+			final int taskSize = Math.max(MINIMUM_TASK_SIZE, assignmentArray.length / (pool.getParallelism() * 4));
+			pool.invoke(new EvaluationTask(EvaluatorCompiler.compile(formula), assignmentArray, results, 0,
+				assignmentArray.length, taskSize));
+		}
+		@SuppressWarnings("unchecked")
+		final List<Optional<Object>> resultList = (List<Optional<Object>>) (List<?>) Arrays.asList(results);
+		return Collections.unmodifiableList(resultList);
+	}
+
+	/**
+	 * Lazily evaluates a formula for all assignments of the given stream. If the
+	 * given stream is parallel, the returned stream is parallel, too, and each
+	 * split uses its own evaluator. As for every stream, the encounter order of
+	 * the assignments is kept.
+	 *
+	 * @param formula     the formula
+	 * @param assignments the assignments
+	 * @return a stream of the values of the formula
+	 */
+	public static Stream<Optional<Object>> evaluateStream(Formula formula, Stream<? extends Assignment> assignments) {
+		final boolean parallel = assignments.isParallel();
+		return StreamSupport.stream(spliterator(formula, assignments.spliterator()), parallel)
+			.onClose(assignments::close);
+	}
+
+	/**
+	 * Creates a spliterator that evaluates a formula for all assignments of the
+	 * given spliterator.
+	 *
+	 * @param formula     the formula
+	 * @param assignments the assignments
+	 * @return a spliterator of the values of the formula
+	 */
+	public static Spliterator<Optional<Object>> spliterator(Formula formula,
+		Spliterator<? extends Assignment> assignments) {
+		return new EvaluationSpliterator(assignments, EvaluatorCompiler.compile(formula));
+	}
+
+	private static Optional<Object> toResult(byte value) {
+		switch (value) {
+		case FormulaEvaluator.TRUE:
+			return TRUE_RESULT;
+		case FormulaEvaluator.FALSE:
+			return FALSE_RESULT;
+		default:
+			return Optional.empty();
+		}
+	}
+
+}
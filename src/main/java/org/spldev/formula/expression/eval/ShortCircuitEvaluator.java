@@ -0,0 +1,367 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.eval;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.flat.*;
+
+/**
+ * Evaluates a formula lazily. Children of {@link FlatFormula#AND And},
+ * {@link FlatFormula#OR Or}, {@link FlatFormula#IMPLIES Implies},
+ * {@link FlatFormula#BIIMPLIES Biimplies}, and cardinals are only evaluated
+ * until the value of their parent is decided. The result is the same as for a
+ * complete evaluation, except that exceptions in skipped subformulas (e.g., for
+ * {@link org.spldev.formula.expression.atomic.literal.ErrorLiteral error
+ * literals}) are not thrown.<br>
+ * Optionally, the children of each And and Or are reordered from time to time,
+ * such that children that decided the value of their parent most often (i.e.,
+ * {@code false} for And and {@code true} for Or) are evaluated first.<br>
+ * The evaluator uses an explicit stack instead of recursion. An instance is not
+ * thread-safe, use {@link #copy()} to obtain an evaluator for another thread.
+ *
+ * @author Sebastian Krieter
+ */
+public class ShortCircuitEvaluator implements FormulaEvaluator {
+
+	private static final byte UNDECIDED = -1;
+
+	private final FlatFormula formula;
+	private final int[] children;
+	private final boolean reorderChildren;
+	private final int[] decisions;
+	private int reorderInterval = 1024;
+	private int evaluationCount = 0;
+
+	private final int[] frameNodes;
+	private final int[] framePositions;
+	private final int[] frameTrueCounts;
+	private final int[] frameUnknownCounts;
+
+	public ShortCircuitEvaluator(Formula formula) {
+		this(FlatFormula.fromFormula(formula), false);
+	}
+
+	public ShortCircuitEvaluator(Formula formula, boolean reorderChildren) {
+		this(FlatFormula.fromFormula(formula), reorderChildren);
+	}
+
+	public ShortCircuitEvaluator(FlatFormula formula) {
+		this(formula, false);
+	}
+
+	/**
+	 * Creates a new evaluator.
+	 *
+	 * @param formula         the formula
+	 * @param reorderChildren whether the children of And and Or should be
+	 *                        reordered by the frequency in which they decide the
+	 *                        value of their parent
+	 */
+	public ShortCircuitEvaluator(FlatFormula formula, boolean reorderChildren) {
+		this.formula = formula;
+		this.reorderChildren = reorderChildren;
+		final int size = formula.size();
+		final int childCount = formula.getChildOffset(size - 1) + formula.getChildCount(size - 1);
+		children = new int[childCount];
+		for (int i = 0; i < childCount; i++) {
+			children[i] = formula.getChildAt(i);
+		}
+		decisions = reorderChildren ? new int[childCount] : null;
+		frameNodes = new int[size];
+		framePositions = new int[size];
+		frameTrueCounts = new int[size];
+		frameUnknownCounts = new int[size];
+	}
+
+	private ShortCircuitEvaluator(ShortCircuitEvaluator otherEvaluator) {
+		formula = otherEvaluator.formula;
+		reorderChildren = otherEvaluator.reorderChildren;
+		reorderInterval = otherEvaluator.reorderInterval;
+		children = reorderChildren ? otherEvaluator.children.clone() : otherEvaluator.children;
+		decisions = reorderChildren ? otherEvaluator.decisions.clone() : null;
+		final int size = formula.size();
+		frameNodes = new int[size];
+		framePositions = new int[size];
+		frameTrueCounts = new int[size];
+		frameUnknownCounts = new int[size];
+	}
+
+	/**
+	 * Creates a new evaluator for the same formula, which has its own stack and, if
+	 * children are reordered, its own child order.
+	 *
+	 * @return a new evaluator
+	 */
+	public ShortCircuitEvaluator copy() {
+		return new ShortCircuitEvaluator(this);
+	}
+
+	public boolean isReorderingChildren() {
+		return reorderChildren;
+	}
+
+	public int getReorderInterval() {
+		return reorderInterval;
+	}
+
+	/**
+	 * Sets the number of evaluations after which the children are reordered.
+	 * Defaults to 1024.
+	 *
+	 * @param reorderInterval the number of evaluations
+	 */
+	public void setReorderInterval(int reorderInterval) {
+		if (reorderInterval <= 0) {
+			throw new IllegalArgumentException(String.valueOf(reorderInterval));
+		}
+		this.reorderInterval = reorderInterval;
+	}
+
+	@Override
+	public byte evaluate(Assignment assignment) {
+		final BooleanAssignment booleanAssignment = (assignment instanceof BooleanAssignment)
+			? (BooleanAssignment) assignment
+			: null;
+		if (reorderChildren && (++evaluationCount >= reorderInterval)) {
+			evaluationCount = 0;
+			reorder();
+		}
+
+		final int root = formula.getRoot();
+		byte value = getLeafValue(root, assignment, booleanAssignment);
+		if (value != UNDECIDED) {
+			return value;
+		}
+		int top = 0;
+		pushFrame(top, root);
+		boolean hasValue = false;
+		while (true) {
+			final int node = frameNodes[top];
+			if (hasValue) {
+				value = accept(top, node, value);
+				hasValue = value != UNDECIDED;
+			} else {
+				final int position = framePositions[top];
+				if (position < getChildEnd(node)) {
+					framePositions[top]++;
+					final int child = children[position];
+					value = getLeafValue(child, assignment, booleanAssignment);
+					if (value == UNDECIDED) {
+						pushFrame(++top, child);
+					} else {
+						hasValue = true;
+					}
+					continue;
+				} else {
+					value = finish(top, node);
+					hasValue = true;
+				}
+			}
+			if (hasValue && (value != UNDECIDED)) {
+				if (top == 0) {
+					return value;
+				}
+				top--;
+			}
+		}
+	}
+
+	private void pushFrame(int top, int node) {
+		frameNodes[top] = node;
+		framePositions[top] = formula.getChildOffset(node);
+		frameTrueCounts[top] = 0;
+		frameUnknownCounts[top] = 0;
+	}
+
+	private int getChildEnd(int node) {
+		return formula.getChildOffset(node) + formula.getChildCount(node);
+	}
+
+	/**
+	 * Returns the value of a leaf or of a node that does not need to evaluate its
+	 * children.
+	 */
+	private byte getLeafValue(int node, Assignment assignment, BooleanAssignment booleanAssignment) {
+		switch (formula.getOpcode(node)) {
+		case FlatFormula.TRUE:
+			return TRUE;
+		case FlatFormula.FALSE:
+			return FALSE;
+		case FlatFormula.LITERAL:
+			return booleanAssignment != null
+				? CompiledEvaluator.getValue(formula.getLiteral(node), booleanAssignment)
+				: CompiledEvaluator.getValue(formula.getLiteral(node), assignment);
+		case FlatFormula.ATOM:
+			return CompiledEvaluator.getValue(formula.getAtom(node), assignment);
+		case FlatFormula.IMPLIES:
+		case FlatFormula.BIIMPLIES:
+			return formula.getChildCount(node) != 2 ? FALSE : UNDECIDED;
+		default:
+			return UNDECIDED;
+		}
+	}
+
+	/**
+	 * Processes the value of the last evaluated child of the node in the given
+	 * frame.
+	 *
+	 * @return the value of the node or {@link #UNDECIDED} if more children need to
+	 *         be evaluated
+	 */
+	private byte accept(int top, int node, byte childValue) {
+		final int position = framePositions[top];
+		switch (formula.getOpcode(node)) {
+		case FlatFormula.AND:
+			if (childValue == FALSE) {
+				countDecision(position - 1);
+				return FALSE;
+			} else if (childValue == UNKNOWN) {
+				frameUnknownCounts[top]++;
+			}
+			return UNDECIDED;
+		case FlatFormula.OR:
+			if (childValue == TRUE) {
+				countDecision(position - 1);
+				return TRUE;
+			} else if (childValue == UNKNOWN) {
+				frameUnknownCounts[top]++;
+			}
+			return UNDECIDED;
+		case FlatFormula.NOT:
+			return childValue == UNKNOWN ? UNKNOWN : (byte) (TRUE - childValue);
+		case FlatFormula.IMPLIES:
+			if (position < getChildEnd(node)) {
+				if (childValue == FALSE) {
+					return TRUE;
+				}
+				frameTrueCounts[top] = childValue;
+				return UNDECIDED;
+			} else {
+				final int leftValue = frameTrueCounts[top];
+				if (childValue == TRUE) {
+					return TRUE;
+				} else if ((leftValue == UNKNOWN) || (childValue == UNKNOWN)) {
+					return UNKNOWN;
+				} else {
+					return FALSE;
+				}
+			}
+		case FlatFormula.BIIMPLIES:
+			if (childValue == UNKNOWN) {
+				return UNKNOWN;
+			} else if (position < getChildEnd(node)) {
+				frameTrueCounts[top] = childValue;
+				return UNDECIDED;
+			} else {
+				return frameTrueCounts[top] == childValue ? TRUE : FALSE;
+			}
+		case FlatFormula.AT_LEAST:
+		case FlatFormula.AT_MOST:
+		case FlatFormula.BETWEEN:
+		case FlatFormula.CHOOSE: {
+			if (childValue == TRUE) {
+				frameTrueCounts[top]++;
+			} else if (childValue == UNKNOWN) {
+				frameUnknownCounts[top]++;
+			}
+			final int trueCount = frameTrueCounts[top];
+			final int possibleCount = trueCount + frameUnknownCounts[top] + (getChildEnd(node) - position);
+			if ((trueCount > formula.getMax(node)) || (possibleCount < formula.getMin(node))) {
+				return FALSE;
+			} else if ((trueCount >= formula.getMin(node)) && (possibleCount <= formula.getMax(node))) {
+				return TRUE;
+			}
+			return UNDECIDED;
+		}
+		default:
+			throw new IllegalStateException(String.valueOf(formula.getOpcode(node)));
+		}
+	}
+
+	/**
+	 * Computes the value of the node in the given frame after all children were
+	 * evaluated without deciding its value.
+	 */
+	private byte finish(int top, int node) {
+		switch (formula.getOpcode(node)) {
+		case FlatFormula.AND:
+			return frameUnknownCounts[top] > 0 ? UNKNOWN : TRUE;
+		case FlatFormula.OR:
+			return frameUnknownCounts[top] > 0 ? UNKNOWN : FALSE;
+		case FlatFormula.AT_LEAST:
+		case FlatFormula.AT_MOST:
+		case FlatFormula.BETWEEN:
+		case FlatFormula.CHOOSE: {
+			final int trueCount = frameTrueCounts[top];
+			final int possibleCount = trueCount + frameUnknownCounts[top];
+			if ((trueCount >= formula.getMin(node)) && (possibleCount <= formula.getMax(node))) {
+				return TRUE;
+			} else if ((possibleCount < formula.getMin(node)) || (trueCount > formula.getMax(node))) {
+				return FALSE;
+			} else {
+				return UNKNOWN;
+			}
+		}
+		default:
+			throw new IllegalStateException(String.valueOf(formula.getOpcode(node)));
+		}
+	}
+
+	private void countDecision(int position) {
+		if (decisions != null) {
+			decisions[position]++;
+		}
+	}
+
+	/**
+	 * Sorts the children of each And and Or by the number of decisions in
+	 * descending order and halves all counts afterwards, such that recent
+	 * decisions weigh more.
+	 */
+	private void reorder() {
+		for (int node = 0; node < formula.size(); node++) {
+			final int opcode = formula.getOpcode(node);
+			if ((opcode == FlatFormula.AND) || (opcode == FlatFormula.OR)) {
+				final int start = formula.getChildOffset(node);
+				final int end = getChildEnd(node);
+				for (int i = start + 1; i < end; i++) {
+					final int child = children[i];
+					final int decision = decisions[i];
+					int j = i - 1;
+					while ((j >= start) && (decisions[j] < decision)) {
+						children[j + 1] = children[j];
+						decisions[j + 1] = decisions[j];
+						j--;
+					}
+					children[j + 1] = child;
+					decisions[j + 1] = decision;
+				}
+			}
+		}
+		for (int i = 0; i < decisions.length; i++) {
+			decisions[i] >>>= 1;
+		}
+	}
+
+}
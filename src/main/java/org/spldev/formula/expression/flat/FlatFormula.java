@@ -0,0 +1,499 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.flat;
+
+import java.util.*;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.util.tree.*;
+
+/**
+ * Compact, read-only representation of a propositional formula. All nodes are
+ * stored in primitive arrays and are identified by their position. Each node
+ * has an opcode, an argument (the signed variable index of a literal, the index
+ * of an atom, or the position of the bounds of a cardinal), and a range in a
+ * shared child array.<br>
+ * Nodes are stored in post-order, i.e., the children of a node always have a
+ * smaller position than the node itself and the last node is the root.
+ * Subformulas that are shared in the original formula (e.g., when created by an
+ * {@link ExpressionFactory}) are also shared in the flat representation.<br>
+ * Literals that refer to a boolean variable are encoded directly. All other
+ * atomic formulas (e.g., predicates over numeric terms) are kept as objects in
+ * a separate atom table.
+ *
+ * @author Sebastian Krieter
+ */
+public final class FlatFormula {
+
+	public static final int TRUE = 0;
+	public static final int FALSE = 1;
+	public static final int LITERAL = 2;
+	public static final int ATOM = 3;
+	public static final int AND = 4;
+	public static final int OR = 5;
+	public static final int NOT = 6;
+	public static final int IMPLIES = 7;
+	public static final int BIIMPLIES = 8;
+	public static final int AT_LEAST = 9;
+	public static final int AT_MOST = 10;
+	public static final int BETWEEN = 11;
+	public static final int CHOOSE = 12;
+
+	private final int[] opcodes;
+	private final int[] arguments;
+	private final int[] childOffsets;
+	private final int[] children;
+	private final int[] bounds;
+	private final Formula[] atoms;
+	private final VariableMap variableMap;
+
+	private FlatFormula(int[] opcodes, int[] arguments, int[] childOffsets, int[] children, int[] bounds,
+		Formula[] atoms, VariableMap variableMap) {
+		this.opcodes = opcodes;
+		this.arguments = arguments;
+		this.childOffsets = childOffsets;
+		this.children = children;
+		this.bounds = bounds;
+		this.atoms = atoms;
+		this.variableMap = variableMap;
+	}
+
+	/**
+	 * Converts the given formula into its flat representation. The formula is not
+	 * modified.
+	 *
+	 * @param formula the formula to convert
+	 * @return a new flat formula
+	 * @throws IllegalArgumentException if the formula contains a quantifier or a
+	 *                                  node that is not a formula
+	 */
+	public static FlatFormula fromFormula(Formula formula) {
+		return new Builder().build(formula);
+	}
+
+	private static final class Builder {
+
+		private VariableMap variableMap;
+
+		private int[] opcodes = new int[16];
+		private int[] arguments = new int[16];
+		private int[] childOffsets = new int[17];
+		private int[] children = new int[16];
+		private int[] bounds = new int[0];
+		private final ArrayList<Formula> atoms = new ArrayList<>();
+
+		private int nodeCount = 0;
+		private int childCount = 0;
+		private int boundsCount = 0;
+
+		private FlatFormula build(Formula root) {
+			final IdentityHashMap<Expression, Integer> positions = new IdentityHashMap<>();
+			final ArrayDeque<Expression> stack = new ArrayDeque<>();
+			final Set<Expression> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+			stack.push(root);
+			while (!stack.isEmpty()) {
+				final Expression node = stack.peek();
+				if (positions.containsKey(node)) {
+					stack.pop();
+				} else if (isLeaf(node)) {
+					stack.pop();
+					positions.put(node, addLeaf((Formula) node));
+				} else if (visited.add(node)) {
+					final List<? extends Expression> nodeChildren = node.getChildren();
+					for (int i = nodeChildren.size() - 1; i >= 0; i--) {
+						stack.push(nodeChildren.get(i));
+					}
+				} else {
+					stack.pop();
+					visited.remove(node);
+					positions.put(node, addCompound((Compound) node, positions));
+				}
+			}
+			childOffsets[nodeCount] = childCount;
+			if (variableMap == null) {
+				variableMap = atoms.isEmpty() ? VariableMap.emptyMap() : atoms.get(0).getVariableMap();
+			}
+			return new FlatFormula(Arrays.copyOf(opcodes, nodeCount), Arrays.copyOf(arguments, nodeCount),
+				Arrays.copyOf(childOffsets, nodeCount + 1), Arrays.copyOf(children, childCount),
+				Arrays.copyOf(bounds, boundsCount), atoms.toArray(new Formula[0]), variableMap);
+		}
+
+		private boolean isLeaf(Expression node) {
+			if (node instanceof Atomic) {
+				return true;
+			} else if ((node instanceof Compound) && !(node instanceof Quantifier)) {
+				return false;
+			} else {
+				throw new IllegalArgumentException(String.valueOf(node));
+			}
+		}
+
+		private int addLeaf(Formula node) {
+			if (node == Literal.True) {
+				return addNode(TRUE, 0);
+			} else if (node == Literal.False) {
+				return addNode(FALSE, 0);
+			} else if (node instanceof LiteralPredicate) {
+				final LiteralPredicate literal = (LiteralPredicate) node;
+				final int index = literal.getIndex();
+				if (variableMap == null) {
+					variableMap = literal.getVariable().getVariableMap();
+				}
+				if (index > 0) {
+					return addNode(LITERAL, literal.isPositive() ? index : -index);
+				}
+			}
+			atoms.add(node);
+			return addNode(ATOM, atoms.size() - 1);
+		}
+
+		private int addCompound(Compound node, IdentityHashMap<Expression, Integer> positions) {
+			final int position;
+			if (node instanceof And) {
+				position = addNode(AND, 0);
+			} else if (node instanceof Or) {
+				position = addNode(OR, 0);
+			} else if (node instanceof Not) {
+				position = addNode(NOT, 0);
+			} else if (node instanceof Implies) {
+				position = addNode(IMPLIES, 0);
+			} else if (node instanceof Biimplies) {
+				position = addNode(BIIMPLIES, 0);
+			} else if (node instanceof Cardinal) {
+				final Cardinal cardinal = (Cardinal) node;
+				final int opcode;
+				if (node instanceof AtLeast) {
+					opcode = AT_LEAST;
+				} else if (node instanceof AtMost) {
+					opcode = AT_MOST;
+				} else if (node instanceof Choose) {
+					opcode = CHOOSE;
+				} else {
+					opcode = BETWEEN;
+				}
+				position = addNode(opcode, boundsCount);
+				if (bounds.length < (boundsCount + 2)) {
+					bounds = Arrays.copyOf(bounds, Math.max(boundsCount + 2, bounds.length << 1));
+				}
+				bounds[boundsCount++] = cardinal.getMin();
+				bounds[boundsCount++] = cardinal.getMax();
+			} else {
+				throw new IllegalArgumentException(String.valueOf(node));
+			}
+			for (final Formula child : node.getChildren()) {
+				if (children.length == childCount) {
+					children = Arrays.copyOf(children, childCount << 1);
+				}
+				children[childCount++] = positions.get(child);
+			}
+			return position;
+		}
+
+		private int addNode(int opcode, int argument) {
+			if (opcodes.length == nodeCount) {
+				final int newLength = nodeCount << 1;
+				opcodes = Arrays.copyOf(opcodes, newLength);
+				arguments = Arrays.copyOf(arguments, newLength);
+				childOffsets = Arrays.copyOf(childOffsets, newLength + 1);
+			}
+			opcodes[nodeCount] = opcode;
+			arguments[nodeCount] = argument;
+			childOffsets[nodeCount] = childCount;
+			return nodeCount++;
+		}
+
+	}
+
+	/**
+	 * Converts this flat formula back into a formula tree. Subformulas that are
+	 * shared in this flat formula are copied, such that the returned formula is a
+	 * tree.
+	 *
+	 * @return a new formula
+	 */
+	public Formula toFormula() {
+		final Formula[] nodes = new Formula[opcodes.length];
+		final boolean[] used = new boolean[opcodes.length];
+		for (int node = 0; node < opcodes.length; node++) {
+			final int childCount = getChildCount(node);
+			final List<Formula> nodeChildren = new ArrayList<>(childCount);
+			for (int i = 0; i < childCount; i++) {
+				final int child = getChild(node, i);
+				if (used[child]) {
+					nodeChildren.add(Trees.cloneTree(nodes[child]));
+				} else {
+					used[child] = true;
+					nodeChildren.add(nodes[child]);
+				}
+			}
+			nodes[node] = createNode(node, nodeChildren);
+		}
+		return nodes[opcodes.length - 1];
+	}
+
+	private Formula createNode(int node, List<Formula> nodeChildren) {
+		switch (opcodes[node]) {
+		case TRUE:
+			return Literal.True;
+		case FALSE:
+			return Literal.False;
+		case LITERAL: {
+			final int literal = arguments[node];
+			return variableMap.getLiteral(Math.abs(literal), literal > 0).get();
+		}
+		case ATOM:
+			return Trees.cloneTree(atoms[arguments[node]]);
+		case AND:
+			return nodeChildren.isEmpty() ? And.empty(variableMap) : new And(nodeChildren);
+		case OR:
+			return nodeChildren.isEmpty() ? Or.empty(variableMap) : new Or(nodeChildren);
+		case NOT:
+			return new Not(nodeChildren.get(0));
+		case IMPLIES:
+			return new Implies(nodeChildren.get(0), nodeChildren.get(1));
+		case BIIMPLIES:
+			return new Biimplies(nodeChildren.get(0), nodeChildren.get(1));
+		case AT_LEAST:
+			return new AtLeast(nodeChildren, getMin(node));
+		case AT_MOST:
+			return new AtMost(nodeChildren, getMax(node));
+		case BETWEEN:
+			return new Between(nodeChildren, getMin(node), getMax(node));
+		case CHOOSE:
+			return new Choose(nodeChildren, getMin(node));
+		default:
+			throw new IllegalStateException(String.valueOf(opcodes[node]));
+		}
+	}
+
+	/**
+	 * Evaluates this formula for the given assignment. The result is equal to
+	 * {@link Formulas#evaluate(Expression, Assignment)} for the original formula.
+	 *
+	 * @param assignment the assignment
+	 * @return the value of the formula or an empty optional if the value is
+	 *         unknown
+	 */
+	public Optional<Boolean> evaluate(Assignment assignment) {
+		final Boolean[] values = new Boolean[opcodes.length];
+		for (int node = 0; node < opcodes.length; node++) {
+			values[node] = evaluateNode(node, values, assignment);
+		}
+		return Optional.ofNullable(values[opcodes.length - 1]);
+	}
+
+	private Boolean evaluateNode(int node, Boolean[] values, Assignment assignment) {
+		final int offset = childOffsets[node];
+		final int childCount = childOffsets[node + 1] - offset;
+		switch (opcodes[node]) {
+		case TRUE:
+			return Boolean.TRUE;
+		case FALSE:
+			return Boolean.FALSE;
+		case LITERAL: {
+			final int literal = arguments[node];
+			final Object value = assignment.get(Math.abs(literal)).orElse(null);
+			if (value == null) {
+				return null;
+			} else if (value instanceof Boolean) {
+				return (Boolean) value == (literal > 0);
+			} else {
+				throw new IllegalArgumentException(String.valueOf(value));
+			}
+		}
+		case ATOM:
+			return (Boolean) Formulas.evaluate(atoms[arguments[node]], assignment).orElse(null);
+		case AND: {
+			Boolean result = Boolean.TRUE;
+			for (int i = offset; i < (offset + childCount); i++) {
+				final Boolean value = values[children[i]];
+				if (value == Boolean.FALSE) {
+					return Boolean.FALSE;
+				} else if (value == null) {
+					result = null;
+				}
+			}
+			return result;
+		}
+		case OR: {
+			Boolean result = Boolean.FALSE;
+			for (int i = offset; i < (offset + childCount); i++) {
+				final Boolean value = values[children[i]];
+				if (value == Boolean.TRUE) {
+					return Boolean.TRUE;
+				} else if (value == null) {
+					result = null;
+				}
+			}
+			return result;
+		}
+		case NOT: {
+			final Boolean value = values[children[offset]];
+			return value == null ? null : !value;
+		}
+		case IMPLIES: {
+			if (childCount != 2) {
+				return Boolean.FALSE;
+			}
+			final Boolean leftValue = values[children[offset]];
+			final Boolean rightValue = values[children[offset + 1]];
+			if ((rightValue == Boolean.TRUE) || (leftValue == Boolean.FALSE)) {
+				return Boolean.TRUE;
+			}
+			return (leftValue == null) || (rightValue == null) ? null : Boolean.FALSE;
+		}
+		case BIIMPLIES: {
+			if (childCount != 2) {
+				return Boolean.FALSE;
+			}
+			final Boolean leftValue = values[children[offset]];
+			final Boolean rightValue = values[children[offset + 1]];
+			return (leftValue == null) || (rightValue == null) ? null : leftValue == rightValue;
+		}
+		case AT_LEAST:
+		case AT_MOST:
+		case BETWEEN:
+		case CHOOSE: {
+			int trueCount = 0;
+			int unknownCount = 0;
+			for (int i = offset; i < (offset + childCount); i++) {
+				final Boolean value = values[children[i]];
+				if (value == Boolean.TRUE) {
+					trueCount++;
+				} else if (value == null) {
+					unknownCount++;
+				}
+			}
+			final int min = getMin(node);
+			final int max = getMax(node);
+			if ((trueCount >= min) && ((trueCount + unknownCount) <= max)) {
+				return Boolean.TRUE;
+			} else if (((trueCount + unknownCount) < min) || (trueCount > max)) {
+				return Boolean.FALSE;
+			} else {
+				return null;
+			}
+		}
+		default:
+			throw new IllegalStateException(String.valueOf(opcodes[node]));
+		}
+	}
+
+	public VariableMap getVariableMap() {
+		return variableMap;
+	}
+
+	/**
+	 * Returns the number of nodes. Valid positions range from {@code 0} to
+	 * {@code size() - 1}.
+	 *
+	 * @return the number of nodes
+	 */
+	public int size() {
+		return opcodes.length;
+	}
+
+	public int getRoot() {
+		return opcodes.length - 1;
+	}
+
+	public int getOpcode(int node) {
+		return opcodes[node];
+	}
+
+	/**
+	 * Returns the literal of a {@link #LITERAL} node as signed variable index
+	 * (i.e., negative if the literal is negated).
+	 *
+	 * @param node the position of the node
+	 * @return the signed variable index
+	 */
+	public int getLiteral(int node) {
+		return arguments[node];
+	}
+
+	public Formula getAtom(int node) {
+		return atoms[arguments[node]];
+	}
+
+	public int getNumberOfAtoms() {
+		return atoms.length;
+	}
+
+	public int getMin(int node) {
+		return bounds[arguments[node]];
+	}
+
+	public int getMax(int node) {
+		return bounds[arguments[node] + 1];
+	}
+
+	public int getChildCount(int node) {
+		return childOffsets[node + 1] - childOffsets[node];
+	}
+
+	public int getChild(int node, int childIndex) {
+		return children[childOffsets[node] + childIndex];
+	}
+
+	/**
+	 * Returns the position of the first child of the given node within the shared
+	 * child array. The children of a node are located at {@link #getChildAt(int)
+	 * getChildAt(offset)} to {@code getChildAt(offset + getChildCount(node) - 1)}.
+	 *
+	 * @param node the position of the node
+	 * @return the offset of the first child
+	 */
+	public int getChildOffset(int node) {
+		return childOffsets[node];
+	}
+
+	public int getChildAt(int offset) {
+		return children[offset];
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		for (int node = 0; node < opcodes.length; node++) {
+			sb.append(node);
+			sb.append(": ");
+			sb.append(opcodes[node]);
+			sb.append(' ');
+			sb.append(arguments[node]);
+			sb.append(" [");
+			for (int i = childOffsets[node]; i < childOffsets[node + 1]; i++) {
+				sb.append(children[i]);
+				if (i < (childOffsets[node + 1] - 1)) {
+					sb.append(", ");
+				}
+			}
+			sb.append("]\n");
+		}
+		return sb.toString();
+	}
+
+}
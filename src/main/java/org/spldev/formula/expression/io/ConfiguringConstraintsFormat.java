@@ -198,8 +198,8 @@ public class ConfiguringConstraintsFormat implements Format<Formula> {
 				}
 				break;
 			case VAR:
-				nodes.add(map.getVariable(e.getTextContent())
-					.map(v -> (Literal) new LiteralPredicate((BoolVariable) v, true))
+				nodes.add(map.getLiteral(e.getTextContent(), true)
+					.map(l -> (Literal) l)
 					.orElse(new ErrorLiteral(nodeName)));
 				break;
 			case EQUALS:
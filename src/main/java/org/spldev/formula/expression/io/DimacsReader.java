@@ -27,10 +27,9 @@ import java.text.*;
 import java.util.*;
 import java.util.regex.*;
 
+import org.spldev.formula.clauses.*;
 import org.spldev.formula.expression.*;
 import org.spldev.formula.expression.atomic.literal.*;
-import org.spldev.formula.expression.compound.*;
-import org.spldev.formula.expression.term.bool.*;
 import org.spldev.util.io.*;
 
 public class DimacsReader {
@@ -85,6 +84,20 @@ public class DimacsReader {
 	 *                        format
 	 */
 	public Formula read(Reader in) throws ParseException, IOException {
+		return readClauseList(in).toFormula();
+	}
+
+	/**
+	 * Reads the input into a {@link ClauseList}, without creating a formula for
+	 * each clause.
+	 *
+	 * @param in The source to read from.
+	 * @return a clause list; not null
+	 * @throws IOException    if the reader encounters a problem.
+	 * @throws ParseException if the input does not conform to the DIMACS CNF file
+	 *                        format
+	 */
+	public ClauseList readClauseList(Reader in) throws ParseException, IOException {
 		indexVariables.clear();
 		variableCount = -1;
 		clauseCount = -1;
@@ -108,7 +121,7 @@ public class DimacsReader {
 				map = VariableMap.fromNameMap(indexVariables);
 			}
 
-			final List<Or> clauses = readClauses(lineIterator);
+			final ClauseList clauses = readClauses(lineIterator);
 			final int actualVariableCount = indexVariables.size();
 			final int actualClauseCount = clauses.size();
 			if (variableCount != actualVariableCount) {
@@ -119,7 +132,8 @@ public class DimacsReader {
 				throw new ParseException(String.format("Found %d instead of %d clauses", actualClauseCount,
 					clauseCount), 1);
 			}
-			return clauses.isEmpty() ? And.empty(map) : new And(clauses);
+			clauses.trimToSize();
+			return clauses;
 		}
 	}
 
@@ -147,6 +161,19 @@ public class DimacsReader {
 		return read(new StringReader(in));
 	}
 
+	/**
+	 * Reads the input. Calls {@link #readClauseList(Reader)}.
+	 *
+	 * @param in The string to read from.
+	 * @return a clause list; not null
+	 * @throws IOException    if the reader encounters a problem.
+	 * @throws ParseException if the input does not conform to the DIMACS CNF file
+	 *                        format
+	 */
+	public ClauseList readClauseList(String in) throws ParseException, IOException {
+		return readClauseList(new StringReader(in));
+	}
+
 	/**
 	 * Reads the problem definition.
 	 *
@@ -196,9 +223,9 @@ public class DimacsReader {
 	 *                        format
 	 * @throws IOException
 	 */
-	private List<Or> readClauses(LineIterator lineIterator) throws ParseException, IOException {
+	private ClauseList readClauses(LineIterator lineIterator) throws ParseException, IOException {
 		final LinkedList<String> literalQueue = new LinkedList<>();
-		final List<Or> clauses = new ArrayList<>(clauseCount);
+		final ClauseList clauses = new ClauseList(map, clauseCount, clauseCount);
 		int readClausesCount = 0;
 		for (String line = lineIterator.currentLine(); line != null; line = lineIterator.get()) {
 			if (commentPattern.matcher(line).matches()) {
@@ -216,9 +243,9 @@ public class DimacsReader {
 				if (clauseSize < 0) {
 					throw new ParseException("Invalid clause", lineIterator.getLineCount());
 				} else if (clauseSize == 0) {
-					clauses.add(Or.empty(map));
+					clauses.addClause();
 				} else {
-					clauses.add(parseClause(readClausesCount, clauseSize, literalQueue, lineIterator));
+					clauses.addClause(parseClause(readClausesCount, clauseSize, literalQueue, lineIterator));
 				}
 				readClausesCount++;
 
@@ -229,7 +256,7 @@ public class DimacsReader {
 			} while (!literalQueue.isEmpty());
 		}
 		if (!literalQueue.isEmpty()) {
-			clauses.add(parseClause(readClausesCount, literalQueue.size(), literalQueue, lineIterator));
+			clauses.addClause(parseClause(readClausesCount, literalQueue.size(), literalQueue, lineIterator));
 			readClausesCount++;
 		}
 		if (readClausesCount < clauseCount) {
@@ -238,12 +265,12 @@ public class DimacsReader {
 		return clauses;
 	}
 
-	private Or parseClause(int readClausesCount, int clauseSize, LinkedList<String> literalQueue,
+	private int[] parseClause(int readClausesCount, int clauseSize, LinkedList<String> literalQueue,
 		LineIterator lineIterator) throws ParseException {
 		if (readClausesCount == clauseCount) {
 			throw new ParseException(String.format("Found more than %d clauses", clauseCount), 1);
 		}
-		final Literal[] literals = new Literal[clauseSize];
+		final int[] literals = new int[clauseSize];
 		for (int j = 0; j < literals.length; j++) {
 			final String token = literalQueue.removeFirst();
 			final int index;
@@ -261,12 +288,13 @@ public class DimacsReader {
 				variableName = String.valueOf(key);
 				indexVariables.put(key, variableName);
 			}
-			if (map.getIndex(variableName).isEmpty()) {
-				map.addBooleanVariable(variableName);
+			int variableIndex = map.indexOf(variableName);
+			if (variableIndex < 0) {
+				variableIndex = map.addBooleanVariable(variableName).get().getIndex();
 			}
-			literals[j] = new LiteralPredicate((BoolVariable) map.getVariable(variableName).get(), index > 0);
+			literals[j] = index > 0 ? variableIndex : -variableIndex;
 		}
-		return new Or(literals);
+		return literals;
 	}
 
 	/**
@@ -0,0 +1,226 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.io;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+
+import org.spldev.formula.clauses.*;
+import org.spldev.formula.expression.atomic.literal.*;
+
+/**
+ * Writes clauses in the DIMACS CNF format as soon as they are added, such that
+ * only a constant amount of memory is needed. As the number of clauses is only
+ * known after the last clause, the problem line is written as a fixed-width
+ * placeholder and overwritten when the sink is {@link #close() closed}. This
+ * requires a seekable output (i.e., a file). For other output streams, clauses
+ * are buffered in a temporary file and copied to the output when the sink is
+ * closed.<br>
+ * Variables are written with their index in the variable map. The variable
+ * directory contains all variables of the map at the time the sink is created.
+ *
+ * @author Sebastian Krieter
+ */
+public class DimacsSink implements ClauseSink, Closeable {
+
+	/**
+	 * The maximum number of digits of a non-negative int.
+	 */
+	private static final int COUNT_WIDTH = 10;
+
+	private final VariableMap variableMap;
+	private final OutputStream out;
+	private final FileChannel channel;
+	private final Path temporaryFile;
+	private final Writer writer;
+	private final boolean writingVariableDirectory;
+
+	private long headerPosition;
+	private int maxIndex;
+	private int clauseCount;
+	private boolean closed;
+
+	/**
+	 * Creates a new sink that writes to the given file.
+	 *
+	 * @param file        the file
+	 * @param variableMap the variable map of the clauses
+	 * @throws IOException if the file cannot be written
+	 */
+	public DimacsSink(Path file, VariableMap variableMap) throws IOException {
+		this(new FileOutputStream(file.toFile()), variableMap, true);
+	}
+
+	/**
+	 * Creates a new sink that writes to the given output stream. The stream is
+	 * closed when the sink is closed or if the sink cannot be created.
+	 *
+	 * @param out                      the output stream
+	 * @param variableMap              the variable map of the clauses
+	 * @param writingVariableDirectory whether to write the names of the variables
+	 * @throws IOException if the output cannot be written
+	 */
+	public DimacsSink(OutputStream out, VariableMap variableMap, boolean writingVariableDirectory)
+		throws IOException {
+		this.out = out;
+		this.variableMap = variableMap;
+		this.writingVariableDirectory = writingVariableDirectory;
+		maxIndex = variableMap.getMaxIndex();
+		FileChannel fileChannel = null;
+		Path file = null;
+		Writer fileWriter = null;
+		try {
+			if (out instanceof FileOutputStream) {
+				fileChannel = ((FileOutputStream) out).getChannel();
+				fileWriter = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+				writeVariableDirectory(fileWriter);
+				fileWriter.flush();
+				headerPosition = fileChannel.position();
+				fileWriter.write(getProblem());
+			} else {
+				final Writer outWriter = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+				writeVariableDirectory(outWriter);
+				outWriter.flush();
+				file = Files.createTempFile("clauses", ".dimacs");
+				fileWriter = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+			}
+		} catch (IOException | RuntimeException e) {
+			try {
+				if (fileWriter != null) {
+					fileWriter.close();
+				}
+				out.close();
+				if (file != null) {
+					Files.deleteIfExists(file);
+				}
+			} catch (final IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw e;
+		}
+		channel = fileChannel;
+		temporaryFile = file;
+		writer = fileWriter;
+	}
+
+	@Override
+	public void addClause(int... literals) {
+		if (closed) {
+			throw new IllegalStateException("Sink is closed");
+		}
+		for (final int literal : literals) {
+			if (literal == 0) {
+				throw new IllegalArgumentException("Literal must not be 0");
+			}
+		}
+		try {
+			for (final int literal : literals) {
+				maxIndex = Math.max(maxIndex, Math.abs(literal));
+				writer.write(Integer.toString(literal));
+				writer.write(' ');
+			}
+			writer.write(DIMACSConstants.CLAUSE_END);
+			writer.write(System.lineSeparator());
+			clauseCount++;
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return the number of clauses written so far
+	 */
+	public int getClauseCount() {
+		return clauseCount;
+	}
+
+	/**
+	 * Completes the problem line and closes the output.
+	 *
+	 * @throws IOException if the output cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (channel != null) {
+			try {
+				writer.flush();
+				final ByteBuffer header = ByteBuffer.wrap(getProblem().getBytes(StandardCharsets.UTF_8));
+				while (header.hasRemaining()) {
+					channel.write(header, headerPosition + header.position());
+				}
+			} finally {
+				writer.close();
+			}
+		} else {
+			try {
+				writer.close();
+				try (OutputStream outStream = out) {
+					outStream.write(getProblem().getBytes(StandardCharsets.UTF_8));
+					Files.copy(temporaryFile, outStream);
+				}
+			} finally {
+				Files.deleteIfExists(temporaryFile);
+			}
+		}
+	}
+
+	private void writeVariableDirectory(Writer writer) throws IOException {
+		if (writingVariableDirectory) {
+			for (int i = 1; i <= variableMap.getMaxIndex(); i++) {
+				final String name = variableMap.nameOf(i);
+				if (name != null) {
+					writer.write(DIMACSConstants.COMMENT_START);
+					writer.write(Integer.toString(i));
+					writer.write(' ');
+					writer.write(name);
+					writer.write(System.lineSeparator());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the problem line, in which both numbers are padded to a fixed width.
+	 */
+	private String getProblem() {
+		return DIMACSConstants.PROBLEM + " " + DIMACSConstants.CNF + " " + pad(maxIndex) + " " + pad(clauseCount)
+			+ System.lineSeparator();
+	}
+
+	private static String pad(int count) {
+		final StringBuilder sb = new StringBuilder(COUNT_WIDTH);
+		sb.append(count);
+		while (sb.length() < COUNT_WIDTH) {
+			sb.append(' ');
+		}
+		return sb.toString();
+	}
+
+}
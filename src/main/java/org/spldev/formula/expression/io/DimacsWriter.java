@@ -22,9 +22,12 @@
  */
 package org.spldev.formula.expression.io;
 
+import java.util.*;
+
+import org.spldev.formula.clauses.*;
 import org.spldev.formula.expression.*;
 import org.spldev.formula.expression.atomic.literal.*;
-import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.atomic.literal.VariableMap.*;
 
 public class DimacsWriter {
 
@@ -34,8 +37,8 @@ public class DimacsWriter {
 	 */
 	private boolean writingVariableDirectory = true;
 
-	private final Formula formula;
-	private VariableMap variables;
+	private final ClauseList clauses;
+	private int[] dimacsIndexes;
 
 	/**
 	 * Constructs a new instance of this class with the given CNF.
@@ -47,7 +50,20 @@ public class DimacsWriter {
 		if ((formula == null) || !Formulas.isCNF(formula)) {
 			throw new IllegalArgumentException();
 		}
-		this.formula = Formulas.toCNF(formula).get();
+		clauses = ClauseList.fromCNF(Formulas.toCNF(formula).get());
+	}
+
+	/**
+	 * Constructs a new instance of this class with the given clause list.
+	 *
+	 * @param clauses the clauses to write; not null
+	 * @throws IllegalArgumentException if the input is null
+	 */
+	public DimacsWriter(ClauseList clauses) throws IllegalArgumentException {
+		if (clauses == null) {
+			throw new IllegalArgumentException();
+		}
+		this.clauses = clauses;
 	}
 
 	/**
@@ -78,12 +94,12 @@ public class DimacsWriter {
 	 * @return the transformed CNF; not null
 	 */
 	public String write() {
-		variables = VariableMap.fromExpression(formula);
 		final StringBuilder sb = new StringBuilder();
+		final int variableCount = computeDimacsIndexes();
 		if (writingVariableDirectory) {
 			writeVariableDirectory(sb);
 		}
-		writeProblem(sb);
+		writeProblem(sb, variableCount);
 		writeClauses(sb);
 		return sb.toString();
 	}
@@ -94,12 +110,32 @@ public class DimacsWriter {
 	 * @param sb the string builder that builds the document
 	 */
 	private void writeVariableDirectory(StringBuilder sb) {
-		int index = 1;
-		for (final String name : variables.getNames()) {
-			writeVariableDirectoryEntry(sb, index++, name);
+		final VariableMap variables = clauses.getVariableMap();
+		for (int i = 1; i < dimacsIndexes.length; i++) {
+			if (dimacsIndexes[i] > 0) {
+				writeVariableDirectoryEntry(sb, dimacsIndexes[i], variables.nameOf(i));
+			}
 		}
 	}
 
+	/**
+	 * Assigns consecutive DIMACS indexes to all variables, skipping gaps in the
+	 * variable map.
+	 *
+	 * @return the number of variables
+	 */
+	private int computeDimacsIndexes() {
+		final List<VariableSignature> signatures = clauses.getVariableMap().getSignatures();
+		dimacsIndexes = new int[signatures.size()];
+		int index = 0;
+		for (int i = 1; i < dimacsIndexes.length; i++) {
+			if (signatures.get(i) != null) {
+				dimacsIndexes[i] = ++index;
+			}
+		}
+		return index;
+	}
+
 	/**
 	 * Writes an entry of the variable directory.
 	 *
@@ -118,30 +154,32 @@ public class DimacsWriter {
 	/**
 	 * Writes the problem description.
 	 *
-	 * @param sb the string builder that builds the document
+	 * @param sb            the string builder that builds the document
+	 * @param variableCount the number of variables
 	 */
-	private void writeProblem(StringBuilder sb) {
+	private void writeProblem(StringBuilder sb, int variableCount) {
 		sb.append(DIMACSConstants.PROBLEM);
 		sb.append(' ');
 		sb.append(DIMACSConstants.CNF);
 		sb.append(' ');
-		sb.append(variables.size());
+		sb.append(variableCount);
 		sb.append(' ');
-		sb.append(formula.getChildren().size());
+		sb.append(clauses.size());
 		sb.append(System.lineSeparator());
 	}
 
 	/**
 	 * Writes the given clause.
 	 *
-	 * @param sb     the string builder that builds the document
-	 * @param clause clause to transform; not null
+	 * @param sb          the string builder that builds the document
+	 * @param clauseIndex index of the clause to write
 	 */
-	private void writeClause(StringBuilder sb, Or clause) {
-		for (final Formula child : clause.getChildren()) {
-			final Literal l = (Literal) child;
-			final Integer index = variables.getIndex(l.getName()).get();
-			sb.append(l.isPositive() ? index : -index);
+	private void writeClause(StringBuilder sb, int clauseIndex) {
+		final int end = clauses.getClauseEnd(clauseIndex);
+		for (int i = clauses.getClauseStart(clauseIndex); i < end; i++) {
+			final int literal = clauses.getLiteralAt(i);
+			final int index = dimacsIndexes[Math.abs(literal)];
+			sb.append(literal > 0 ? index : -index);
 			sb.append(' ');
 		}
 		sb.append(DIMACSConstants.CLAUSE_END);
@@ -154,8 +192,8 @@ public class DimacsWriter {
 	 * @param sb the string builder that builds the document
 	 */
 	private void writeClauses(StringBuilder sb) {
-		for (final Expression clause : formula.getChildren()) {
-			writeClause(sb, (Or) clause);
+		for (int i = 0; i < clauses.size(); i++) {
+			writeClause(sb, i);
 		}
 	}
 
@@ -36,8 +36,8 @@ import org.spldev.formula.expression.term.Term;
 import org.spldev.formula.expression.term.Variable;
 import org.spldev.formula.expression.term.attribute.AggregationType;
 import org.spldev.formula.expression.term.bool.BoolVariable;
-import org.spldev.formula.expression.term.integer.IntAdd;
 import org.spldev.formula.expression.term.integer.IntConstant;
+import org.spldev.formula.expression.term.integer.IntLinearSum;
 import org.spldev.formula.expression.term.integer.IntVariable;
 import org.spldev.formula.expression.term.real.RealConstant;
 import org.spldev.formula.expression.term.real.RealVariable;
@@ -143,20 +143,18 @@ public class XmlExtendedFeatureModelFormat extends XmlFeatureModelFormat {
 	private List<Formula> buildCount() {
 		// TODO Move to correct class
 		List<Formula> constraints = new ArrayList<>();
-		Term<Long> l = null;
+		List<Term<Long>> summands = new ArrayList<>();
 		List<String> featureNames = map.getNames();
 		for (String featureName : featureNames) {
-			BoolVariable feature = (BoolVariable) map.getVariable(featureName).get();
+			LiteralPredicate selected = map.getLiteral(featureName, true).get();
 			IntVariable var = map.addIntegerVariable(featureName + COUNT_SUFFIX).orElseThrow(RuntimeException::new);
-			LiteralPredicate selected = new LiteralPredicate(feature, true);
 			constraints.add(new Implies(selected, new Equals<>(var, new IntConstant(1L))));
 			constraints.add(new Implies(new Not(selected), new Equals<>(var, new IntConstant(0L))));
-			if (l == null) {
-				l = var;
-			} else {
-				l = new IntAdd(l, var);
-			}
+			summands.add(var);
 		}
+		long[] coefficients = new long[summands.size()];
+		Arrays.fill(coefficients, 1L);
+		Term<Long> l = new IntLinearSum(summands, coefficients, 0L);
 		IntVariable count = map.addIntegerVariable("count").get();
 		Equals<Long> assignment = new Equals<>(count, l);
 		constraints.add(assignment);
@@ -210,13 +208,13 @@ public class XmlExtendedFeatureModelFormat extends XmlFeatureModelFormat {
 				}
 			}
 		}
-		if (map.getIndex(name).isEmpty()) {
+		if (!map.hasVariable(name)) {
 			map.addBooleanVariable(name);
 		} else {
 			throw new ParseException("Duplicate feature name!");
 		}
 
-		final LiteralPredicate f = new LiteralPredicate((BoolVariable) map.getVariable(name).get(), true);
+		final LiteralPredicate f = map.getLiteral(name, true).get();
 
 		if (parent == null) {
 			constraints.add(f);
@@ -23,7 +23,6 @@
 package org.spldev.formula.expression.io;
 
 import java.util.*;
-import java.util.stream.*;
 
 import org.spldev.formula.expression.*;
 import org.spldev.formula.expression.atomic.literal.*;
@@ -37,9 +36,24 @@ public class XmlFeatureModelCNFFormat extends XmlFeatureModelFormat {
 
 	public static final String ID = XmlFeatureModelCNFFormat.class.getCanonicalName();
 
+	private final CardinalityEncoder cardinalityEncoder = new CardinalityEncoder();
+
 	public XmlFeatureModelCNFFormat() {
 	}
 
+	/**
+	 * Returns the encoder for alternative and {@code atmost1} groups. By default,
+	 * all groups are encoded with the binomial encoding, such that the number of
+	 * configurations is preserved. If another encoding is selected, large groups
+	 * are encoded with auxiliary variables, which are added to the variable map
+	 * after all features.
+	 *
+	 * @return the cardinality encoder
+	 */
+	public CardinalityEncoder getCardinalityEncoder() {
+		return cardinalityEncoder;
+	}
+
 	@Override
 	protected Formula readDocument(Document doc) throws ParseException {
 		map = VariableMap.emptyMap();
@@ -62,12 +76,6 @@ public class XmlFeatureModelCNFFormat extends XmlFeatureModelFormat {
 		return Trees.cloneTree(simplify(new And(constraints)));
 	}
 
-	@Override
-	protected Formula atMost(final List<Formula> parseFeatures) {
-		return new And(groupElements(parseFeatures.stream().map(Not::new).collect(Collectors.toList()), 1,
-			parseFeatures.size()));
-	}
-
 	@Override
 	protected Formula biimplies(Formula a, final Formula b) {
 		return new And(new Or(new Not(a), b), new Or(new Not(b), a));
@@ -91,47 +99,10 @@ public class XmlFeatureModelCNFFormat extends XmlFeatureModelFormat {
 		return new Or(list);
 	}
 
-	private List<Formula> groupElements(List<? extends Formula> elements, int k, final int n) {
-		final List<Formula> groupedElements = new ArrayList<>();
-		final Formula[] clause = new Formula[k + 1];
-		final int[] index = new int[k + 1];
-
-		// the position that is currently filled in clause
-		int level = 0;
-		index[level] = -1;
-
-		while (level >= 0) {
-			// fill this level with the next element
-			index[level]++;
-			// did we reach the maximum for this level
-			if (index[level] >= (n - (k - level))) {
-				// go to previous level
-				level--;
-			} else {
-				clause[level] = elements.get(index[level]);
-				if (level == k) {
-					final Formula[] clonedClause = new Formula[clause.length];
-					Arrays.copyOf(clause, clause.length);
-					for (int i = 0; i < clause.length; i++) {
-						clonedClause[i] = clause[i];
-					}
-					groupedElements.add(new Or(clonedClause));
-				} else {
-					// go to next level
-					level++;
-					// allow only ascending orders (to prevent from duplicates)
-					index[level] = index[level - 1];
-				}
-			}
-		}
-		return groupedElements;
-	}
-
-	private static Formula simplify(Formula formula) {
-		final AuxiliaryRoot auxiliaryRoot = new AuxiliaryRoot(formula);
-		Trees.traverse(auxiliaryRoot, new DeMorganVisitor());
-		Trees.traverse(auxiliaryRoot, new TreeSimplifier());
-		return (Formula) auxiliaryRoot.getChild();
+	private Formula simplify(Formula formula) {
+		cardinalityEncoder.setVariableMap(map);
+		final Formula nnf = NormalForms.simplifyForNF(formula, cardinalityEncoder);
+		return (nnf instanceof And) ? nnf : new And(nnf);
 	}
 
 	@Override
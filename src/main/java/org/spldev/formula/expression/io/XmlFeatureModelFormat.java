@@ -29,7 +29,6 @@ import javax.xml.parsers.*;
 import org.spldev.formula.expression.*;
 import org.spldev.formula.expression.atomic.literal.*;
 import org.spldev.formula.expression.compound.*;
-import org.spldev.formula.expression.term.bool.*;
 import org.spldev.util.data.Problem;
 import org.spldev.util.data.Problem.*;
 import org.spldev.util.data.Result;
@@ -207,8 +206,8 @@ public class XmlFeatureModelFormat implements Format<Formula> {
 				}
 				break;
 			case VAR:
-				nodes.add(map.getVariable(e.getTextContent())
-					.map(v -> (Literal) new LiteralPredicate((BoolVariable) v, true))
+				nodes.add(map.getLiteral(e.getTextContent(), true)
+					.map(l -> (Literal) l)
 					.orElse(new ErrorLiteral(nodeName)));
 				break;
 			default:
@@ -266,13 +265,13 @@ public class XmlFeatureModelFormat implements Format<Formula> {
 				}
 			}
 		}
-		if (map.getIndex(name).isEmpty()) {
+		if (!map.hasVariable(name)) {
 			map.addBooleanVariable(name);
 		} else {
 			throw new ParseException("Duplicate feature name!");
 		}
 
-		final LiteralPredicate f = new LiteralPredicate((BoolVariable) map.getVariable(name).get(), true);
+		final LiteralPredicate f = map.getLiteral(name, true).get();
 
 		if (parent == null) {
 			constraints.add(f);
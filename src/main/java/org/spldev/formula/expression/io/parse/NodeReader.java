@@ -29,7 +29,6 @@ import org.spldev.formula.expression.*;
 import org.spldev.formula.expression.atomic.literal.*;
 import org.spldev.formula.expression.compound.*;
 import org.spldev.formula.expression.io.parse.Symbols.*;
-import org.spldev.formula.expression.term.bool.*;
 import org.spldev.util.data.Problem;
 import org.spldev.util.data.Problem.*;
 import org.spldev.util.data.Result;
@@ -94,7 +93,6 @@ public class NodeReader {
 	private static final Pattern subExpressionPattern = Pattern.compile(Pattern.quote(subExpressionMarker) + "\\d+");
 	private static final Pattern featureNamePattern = Pattern.compile(Pattern.quote(featureNameMarker) + "\\d+");
 
-	private static final Pattern parenthesisPattern = Pattern.compile("\\(([^()]*)\\)");
 	private static final Pattern quotePattern = Pattern.compile("\\\"(.*?)\\\"");
 
 	private static final String symbolPatternString = "\\s*(%s)\\s*";
@@ -179,120 +177,163 @@ public class NodeReader {
 		}
 	}
 
-	private Formula checkExpression(String source, List<String> quotedVariables, List<String> subExpressions)
-		throws ParseException {
-		if (source.isEmpty()) {
-			return handleInvalidExpression(ErrorMessage.EMPTY_EXPRESSION, source);
-		}
-		source = SPACE + source + SPACE;
-		// traverse all symbols
-		for (final Operator operator : operators) {
-			final String symbol = getSymbols().getSymbol(operator);
-			final String symbolPattern = String.format(symbolPatternString, Pattern.quote(symbol));
-			final Matcher matcher = Pattern.compile(symbolPattern).matcher(source);
-			while (matcher.find()) {
-				// 1st symbol occurrence
-				final int index = matcher.start(1);
+	/**
+	 * A missing name or expression on one side of an operator.
+	 */
+	private static final class MissingExpression {
+		private final ErrorMessage message;
+		private final String source;
 
-				// recursion for children nodes
+		private MissingExpression(ErrorMessage message, String source) {
+			this.message = message;
+			this.source = source;
+		}
+	}
 
-				final Formula node1, node2;
-				if (operator == Operator.NOT) {
-					final String rightSide = source.substring(index + symbol.length(), source.length()).trim();
-					node1 = null;
-					if (rightSide.isEmpty()) {
-						node2 = handleInvalidExpression(ErrorMessage.MISSING_NAME, source);
-					} else {
-						node2 = checkExpression(rightSide, quotedVariables, subExpressions);
-					}
-					if (node2 == null) {
-						return null;
-					}
+	/**
+	 * Parses an expression whose quoted variables and parenthesized subexpressions
+	 * are replaced by markers. Instead of recursion, an explicit stack holds the
+	 * remaining subexpressions and the operators, whose nodes are created as soon
+	 * as their operands are parsed. Thus, arbitrarily deep expressions are
+	 * supported.
+	 */
+	private Formula checkExpression(String expression, List<String> quotedVariables, List<String> subExpressions)
+		throws ParseException {
+		final Pattern[] symbolPatterns = new Pattern[operators.length];
+		for (int i = 0; i < operators.length; i++) {
+			final String symbol = getSymbols().getSymbol(operators[i]);
+			symbolPatterns[i] = Pattern.compile(String.format(symbolPatternString, Pattern.quote(symbol)));
+		}
+		final ArrayDeque<Object> tasks = new ArrayDeque<>();
+		final ArrayDeque<Formula> nodes = new ArrayDeque<>();
+		tasks.push(expression);
+		while (!tasks.isEmpty()) {
+			final Object task = tasks.pop();
+			final Formula node;
+			if (task instanceof Operator) {
+				node = createNode((Operator) task, nodes);
+			} else if (task instanceof MissingExpression) {
+				final MissingExpression missingExpression = (MissingExpression) task;
+				node = handleInvalidExpression(missingExpression.message, missingExpression.source);
+			} else {
+				String source = (String) task;
+				if (source.isEmpty()) {
+					node = handleInvalidExpression(ErrorMessage.EMPTY_EXPRESSION, source);
+				} else if (pushOperator(SPACE + source + SPACE, symbolPatterns, tasks)) {
+					continue;
 				} else {
-					final String leftSide = source.substring(0, index).trim();
-					if (leftSide.isEmpty()) {
-						node1 = handleInvalidExpression(ErrorMessage.MISSING_NAME_LEFT, source);
+					source = source.trim();
+					final Matcher subExpressionMatcher = subExpressionPattern.matcher(source);
+					if (subExpressionMatcher.find()) {
+						if ((subExpressionMatcher.start() == 0) && (subExpressionMatcher.end() == source.length())) {
+							tasks.push(subExpressions.get(Integer.parseInt(source.substring(1))).trim());
+							continue;
+						} else {
+							node = handleInvalidExpression(ErrorMessage.MISSING_OPERATOR, source);
+						}
 					} else {
-						node1 = checkExpression(leftSide, quotedVariables, subExpressions);
-					}
-					if (node1 == null) {
-						return null;
-					}
-					final String rightSide = source.substring(index + symbol.length(), source.length()).trim();
-					if (rightSide.isEmpty()) {
-						node2 = handleInvalidExpression(ErrorMessage.MISSING_NAME_RIGHT, source);
-					} else {
-						node2 = checkExpression(rightSide, quotedVariables, subExpressions);
-					}
-					if (node2 == null) {
-						return null;
+						node = checkFeatureName(source, quotedVariables);
 					}
 				}
+			}
+			if (node == null) {
+				// an invalid operand invalidates all of its ancestors
+				return null;
+			}
+			nodes.push(node);
+		}
+		return nodes.pop();
+	}
 
-				switch (operator) {
-				case EQUALS: {
-					return new Biimplies(node1, node2);
-				}
-				case IMPLIES: {
-					return new Implies(node1, node2);
-				}
-				case OR: {
-					return new Or(node1, node2);
-				}
-				case AND: {
-					return new And(node1, node2);
-				}
-				case NOT: {
-					return new Not(node2);
-				}
-				case ATLEAST:
-				case ATMOST:
-				case BETWEEN:
-				case CHOOSE:
-				case EXISTS:
-				case FORALL:
-				case UNKNOWN:
-					return null;
-				default:
-					throw new IllegalStateException(String.valueOf(operator));
+	/**
+	 * Finds the first operator in the given expression and pushes the operator and
+	 * its operands onto the stack, such that the left operand is parsed first.
+	 *
+	 * @return {@code true} if the expression contains an operator
+	 */
+	private boolean pushOperator(String source, Pattern[] symbolPatterns, ArrayDeque<Object> tasks) {
+		for (int i = 0; i < operators.length; i++) {
+			final Operator operator = operators[i];
+			final Matcher matcher = symbolPatterns[i].matcher(source);
+			if (matcher.find()) {
+				// 1st symbol occurrence
+				final int index = matcher.start(1);
+				final int symbolLength = matcher.end(1) - index;
+				tasks.push(operator);
+				final String rightSide = source.substring(index + symbolLength, source.length()).trim();
+				if (operator == Operator.NOT) {
+					tasks.push(rightSide.isEmpty() ? new MissingExpression(ErrorMessage.MISSING_NAME, source)
+						: rightSide);
+				} else {
+					tasks.push(rightSide.isEmpty() ? new MissingExpression(ErrorMessage.MISSING_NAME_RIGHT, source)
+						: rightSide);
+					final String leftSide = source.substring(0, index).trim();
+					tasks.push(leftSide.isEmpty() ? new MissingExpression(ErrorMessage.MISSING_NAME_LEFT, source)
+						: leftSide);
 				}
+				return true;
 			}
 		}
-		source = source.trim();
-		final Matcher subExpressionMatcher = subExpressionPattern.matcher(source);
-		if (subExpressionMatcher.find()) {
-			if ((subExpressionMatcher.start() == 0) && (subExpressionMatcher.end() == source.length())) {
-				return checkExpression(subExpressions.get(Integer.parseInt(source.substring(1))).trim(),
-					quotedVariables, subExpressions);
+		return false;
+	}
+
+	private Formula createNode(Operator operator, ArrayDeque<Formula> nodes) {
+		final Formula node2 = nodes.pop();
+		final Formula node1 = (operator == Operator.NOT) ? null : nodes.pop();
+		switch (operator) {
+		case EQUALS: {
+			return new Biimplies(node1, node2);
+		}
+		case IMPLIES: {
+			return new Implies(node1, node2);
+		}
+		case OR: {
+			return new Or(node1, node2);
+		}
+		case AND: {
+			return new And(node1, node2);
+		}
+		case NOT: {
+			return new Not(node2);
+		}
+		case ATLEAST:
+		case ATMOST:
+		case BETWEEN:
+		case CHOOSE:
+		case EXISTS:
+		case FORALL:
+		case UNKNOWN:
+			return null;
+		default:
+			throw new IllegalStateException(String.valueOf(operator));
+		}
+	}
+
+	private Formula checkFeatureName(String source, List<String> quotedVariables) throws ParseException {
+		String featureName;
+		final Matcher featureNameMatcher = featureNamePattern.matcher(source);
+		if (featureNameMatcher.find()) {
+			if ((featureNameMatcher.start() == 0) && (featureNameMatcher.end() == source.length())) {
+				featureName = quotedVariables.get(Integer.parseInt(source.substring(1)));
 			} else {
 				return handleInvalidExpression(ErrorMessage.MISSING_OPERATOR, source);
 			}
 		} else {
-			String featureName;
-			final Matcher featureNameMatcher = featureNamePattern.matcher(source);
-			if (featureNameMatcher.find()) {
-				if ((featureNameMatcher.start() == 0) && (featureNameMatcher.end() == source.length())) {
-					featureName = quotedVariables.get(Integer.parseInt(source.substring(1)));
-				} else {
-					return handleInvalidExpression(ErrorMessage.MISSING_OPERATOR, source);
-				}
-			} else {
-				if (source.contains(String.valueOf(SPACE))) {
-					return handleInvalidFeatureName(source);
-				}
-				featureName = source;
-			}
-			featureName = featureName.replace(replacedFeatureNameMarker, featureNameMarker)
-				.replace(replacedSubExpressionMarker, subExpressionMarker);
-			if (hasVariableNames && map.getIndex(featureName).isEmpty()) {
-				return handleInvalidFeatureName(featureName);
+			if (source.contains(String.valueOf(SPACE))) {
+				return handleInvalidFeatureName(source);
 			}
-			if (map.getIndex(featureName).isEmpty()) {
-				map.addBooleanVariable(featureName);
-			}
-
-			return new LiteralPredicate((BoolVariable) map.getVariable(featureName).get(), true);
+			featureName = source;
 		}
+		featureName = featureName.replace(replacedFeatureNameMarker, featureNameMarker)
+			.replace(replacedSubExpressionMarker, subExpressionMarker);
+		if (hasVariableNames && !map.hasVariable(featureName)) {
+			return handleInvalidFeatureName(featureName);
+		}
+		if (!map.hasVariable(featureName)) {
+			map.addBooleanVariable(featureName);
+		}
+
+		return map.getLiteral(featureName, true).get();
 	}
 
 	private Formula handleInvalidFeatureName(String featureName) throws ParseException {
@@ -366,13 +407,39 @@ public class NodeReader {
 		if (constraint.contains(String.valueOf(QUOTE))) {
 			constraint = replaceGroup(constraint, featureNameMarker, quotedFeatureNames, quotePattern);
 		}
-		while (constraint.contains(String.valueOf(PARENTHESIS_OPEN))) {
-			constraint = replaceGroup(constraint, subExpressionMarker, subExpressions, parenthesisPattern);
+		if (constraint.contains(String.valueOf(PARENTHESIS_OPEN))) {
+			constraint = replaceParentheses(constraint, subExpressions);
 		}
 
 		return checkExpression(constraint, quotedFeatureNames, subExpressions);
 	}
 
+	/**
+	 * Replaces each group of balanced parentheses by a marker for its content in a
+	 * single pass. The content of each group is stored with its inner groups
+	 * replaced by markers as well.
+	 */
+	private String replaceParentheses(String constraint, final List<String> groupList) {
+		final ArrayDeque<StringBuilder> outerGroups = new ArrayDeque<>();
+		StringBuilder group = new StringBuilder(constraint.length());
+		for (int i = 0; i < constraint.length(); i++) {
+			final char curChar = constraint.charAt(i);
+			if (curChar == PARENTHESIS_OPEN) {
+				outerGroups.push(group);
+				group = new StringBuilder();
+			} else if (curChar == PARENTHESIS_CLOSE) {
+				final String content = group.toString();
+				group = outerGroups.pop();
+				group.append(subExpressionMarker);
+				group.append(groupList.size());
+				groupList.add(content);
+			} else {
+				group.append(curChar);
+			}
+		}
+		return group.toString();
+	}
+
 	private String replaceGroup(String constraint, String marker, final List<String> groupList, final Pattern pattern) {
 		int counter = groupList.size();
 
@@ -271,7 +271,41 @@ public class NodeWriter {
 		nodeToString(formula, null, sb, -1);
 	}
 
+	/**
+	 * A node that is written after the strings and nodes on top of it.
+	 */
+	private static final class Task {
+		private final Formula formula;
+		private final Operator parent;
+		private final int depth;
+
+		private Task(Formula formula, Operator parent, int depth) {
+			this.formula = formula;
+			this.parent = parent;
+			this.depth = depth;
+		}
+	}
+
+	/**
+	 * Writes the given node with an explicit stack of pending strings and nodes,
+	 * such that arbitrarily deep formulas can be written.
+	 */
 	private void nodeToString(Formula formula, Operator parent, StringBuilder sb, int depth) {
+		final ArrayDeque<Object> stack = new ArrayDeque<>();
+		stack.push(new Task(formula, parent, depth));
+		while (!stack.isEmpty()) {
+			final Object next = stack.pop();
+			if (next instanceof Task) {
+				final Task task = (Task) next;
+				taskToString(task.formula, task.parent, sb, task.depth, stack);
+			} else {
+				sb.append((String) next);
+			}
+		}
+	}
+
+	private void taskToString(Formula formula, Operator parent, StringBuilder sb, int depth,
+		ArrayDeque<Object> stack) {
 		if (formula == null) {
 			sb.append(String.valueOf(formula));
 		} else {
@@ -285,7 +319,12 @@ public class NodeWriter {
 			if (formula instanceof Literal) {
 				literalToString((Literal) formula, sb, depth + 1);
 			} else {
-				operationToString((Compound) formula, parent, sb, depth + 1);
+				final List<Object> pending = new ArrayList<>();
+				operationToString((Compound) formula, parent, sb, depth + 1, pending);
+				for (final ListIterator<Object> iterator = pending.listIterator(pending.size()); iterator
+					.hasPrevious();) {
+					stack.push(iterator.previous());
+				}
 			}
 		}
 	}
@@ -348,13 +387,16 @@ public class NodeWriter {
 	 * Converts an operation (i.e. a node that is not a literal) into the specified
 	 * textual representation.
 	 *
-	 * @param node   an operation to convert; not null
-	 * @param parent the class of the node's parent; null if not available (i.e. the
-	 *               current node is the root node)
-	 * @param sb     the {@link StringBuilder} containing the textual
-	 *               representation.
+	 * @param node    an operation to convert; not null
+	 * @param parent  the class of the node's parent; null if not available (i.e.
+	 *                the current node is the root node)
+	 * @param sb      the {@link StringBuilder} containing the textual
+	 *                representation.
+	 * @param pending the list to which the strings and children that follow the
+	 *                written prefix are added
 	 */
-	private void operationToString(Compound node, Operator parent, StringBuilder sb, int depth) {
+	private void operationToString(Compound node, Operator parent, StringBuilder sb, int depth,
+		List<Object> pending) {
 		alignLine(sb, depth);
 		final List<Formula> children = node.getChildren();
 		if (children.size() == 0) {
@@ -376,15 +418,13 @@ public class NodeWriter {
 				if (parenthesis) {
 					sb.append('(');
 				}
-				nodeToString(children.get(0), operator, sb, depth);
+				pending.add(new Task(children.get(0), operator, depth));
 				for (int i = 1; i < children.size(); i++) {
-					sb.append(' ');
-					sb.append(getSymbols().getSymbol(operator));
-					sb.append(' ');
-					nodeToString(children.get(i), operator, sb, depth);
+					pending.add(' ' + getSymbols().getSymbol(operator) + ' ');
+					pending.add(new Task(children.get(i), operator, depth));
 				}
 				if (parenthesis) {
-					sb.append(')');
+					pending.add(")");
 				}
 			} else {
 				sb.append(getSymbols().getSymbol(operator));
@@ -392,36 +432,34 @@ public class NodeWriter {
 					sb.append(' ');
 				}
 				sb.append('(');
-				nodeToString(children.get(0), operator, sb, depth);
+				pending.add(new Task(children.get(0), operator, depth));
 				for (int i = 1; i < children.size(); i++) {
-					sb.append(getSeparator());
-					nodeToString(children.get(i), operator, sb, depth);
+					pending.add(getSeparator());
+					pending.add(new Task(children.get(i), operator, depth));
 				}
-				sb.append(')');
+				pending.add(")");
 			}
 			break;
 		case PREFIX:
 			sb.append('(');
 			sb.append(getSymbols().getSymbol(operator));
 			sb.append(' ');
-			nodeToString(children.get(0), operator, sb, depth);
+			pending.add(new Task(children.get(0), operator, depth));
 			for (int i = 1; i < children.size(); i++) {
-				sb.append(' ');
-				nodeToString(children.get(i), operator, sb, depth);
+				pending.add(" ");
+				pending.add(new Task(children.get(i), operator, depth));
 			}
-			sb.append(')');
+			pending.add(")");
 
 			break;
 		case POSTFIX:
 			sb.append('(');
-			nodeToString(children.get(0), operator, sb, depth);
+			pending.add(new Task(children.get(0), operator, depth));
 			for (int i = 1; i < children.size(); i++) {
-				sb.append(' ');
-				nodeToString(children.get(i), operator, sb, depth);
+				pending.add(" ");
+				pending.add(new Task(children.get(i), operator, depth));
 			}
-			sb.append(' ');
-			sb.append(getSymbols().getSymbol(operator));
-			sb.append(')');
+			pending.add(' ' + getSymbols().getSymbol(operator) + ')');
 			break;
 		default:
 			throw new IllegalStateException("Unknown notation: " + notation);
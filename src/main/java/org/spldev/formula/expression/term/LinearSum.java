@@ -0,0 +1,92 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.term;
+
+import java.util.*;
+
+import org.spldev.formula.expression.*;
+
+/**
+ * A linear expression {@code c + a_1 * t_1 + ... + a_n * t_n}, whose children
+ * are the terms {@code t_i}. The coefficients {@code a_i} and the constant
+ * {@code c} are stored as primitive values by the subclasses, such that the
+ * expression is evaluated in a single loop. Each coefficient belongs to the
+ * child at the same position, such that the number of children is fixed and
+ * reordering the children changes the value of the sum.
+ *
+ * @author Sebastian Krieter
+ */
+public abstract class LinearSum<T> extends Function<T, T> {
+
+	protected LinearSum() {
+		super();
+	}
+
+	/**
+	 * Sets the children of this sum, which keep the coefficients of the previous
+	 * children at the same positions.
+	 *
+	 * @param children the new children
+	 * @throws IllegalArgumentException if the number of children differs from the
+	 *                                  number of coefficients
+	 */
+	@Override
+	public void setChildren(Collection<? extends Expression> children) {
+		if (children.size() != getNumberOfCoefficients()) {
+			throw new IllegalArgumentException(String.format("Expected %d children, but got %d",
+				getNumberOfCoefficients(), children.size()));
+		}
+		super.setChildren(children);
+	}
+
+	/**
+	 * @return the number of coefficients, which equals the number of children
+	 */
+	public abstract int getNumberOfCoefficients();
+
+	/**
+	 * @return the constant summand
+	 */
+	public abstract T getConstant();
+
+	/**
+	 * @param index the index of a child
+	 * @return the coefficient of the child with the given index
+	 */
+	public abstract T getCoefficient(int index);
+
+	@Override
+	public String getName() {
+		return "linear";
+	}
+
+	/**
+	 * Creates a copy of this node without children. As for all nodes, the
+	 * children are set afterwards, e.g., by
+	 * {@link org.spldev.util.tree.Trees#cloneTree Trees.cloneTree}, but there must
+	 * be one child for each coefficient.
+	 */
+	@Override
+	public abstract LinearSum<T> cloneNode();
+
+}
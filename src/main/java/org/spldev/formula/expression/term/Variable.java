@@ -48,7 +48,8 @@ public abstract class Variable<T> extends Terminal implements Term<T> {
 
 	@Override
 	public String getName() {
-		return map.getName(index).orElse("??");
+		final String name = map.nameOf(index);
+		return name == null ? "??" : name;
 	}
 
 	@Override
@@ -63,15 +64,59 @@ public abstract class Variable<T> extends Terminal implements Term<T> {
 
 	@Override
 	public void setVariableMap(VariableMap map) {
+		checkNotShared();
 		this.map = Objects.requireNonNull(map);
 	}
 
 	@Override
 	public void adaptVariableMap(VariableMap newMap) {
-		index = newMap.getIndex(getName()).orElse(0);
+		checkNotShared();
+		index = Math.max(0, newMap.indexOf(getName()));
 		this.map = newMap;
 	}
 
+	private void checkNotShared() {
+		if (map.getVariable(index).orElse(null) == this) {
+			throw new UnsupportedOperationException("Shared variable must not be modified: " + getName());
+		}
+	}
+
+	/**
+	 * Returns a variable that equals this variable after calling
+	 * {@link #setVariableMap(VariableMap)}, without modifying this variable. If
+	 * possible, the shared instance from the given map is returned.
+	 *
+	 * @param map the new variable map
+	 * @return a variable with the same index that refers to the given map
+	 */
+	public Variable<?> withVariableMap(VariableMap map) {
+		final Variable<?> variable = map.getVariable(index).orElse(null);
+		if ((variable != null) && (variable.getClass() == getClass())) {
+			return variable;
+		}
+		final Variable<?> newVariable = (Variable<?>) cloneNode();
+		newVariable.setVariableMap(map);
+		return newVariable;
+	}
+
+	/**
+	 * Returns a variable that equals this variable after calling
+	 * {@link #adaptVariableMap(VariableMap)}, without modifying this variable. If
+	 * possible, the shared instance from the given map is returned.
+	 *
+	 * @param newMap the new variable map
+	 * @return a variable with the same name that refers to the given map
+	 */
+	public Variable<?> withAdaptedVariableMap(VariableMap newMap) {
+		final Variable<?> variable = newMap.getVariable(getName()).orElse(null);
+		if ((variable != null) && (variable.getClass() == getClass())) {
+			return variable;
+		}
+		final Variable<?> newVariable = (Variable<?>) cloneNode();
+		newVariable.adaptVariableMap(newMap);
+		return newVariable;
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(index);
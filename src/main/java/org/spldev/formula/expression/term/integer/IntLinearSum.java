@@ -0,0 +1,112 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.term.integer;
+
+import java.util.*;
+
+import org.spldev.formula.expression.term.*;
+
+public class IntLinearSum extends LinearSum<Long> {
+
+	private final long[] coefficients;
+	private final long constant;
+
+	/**
+	 * Creates a linear sum of the given operands.
+	 *
+	 * @param operands     the operands
+	 * @param coefficients the coefficient of each operand; must not be modified
+	 *                     afterwards
+	 * @param constant     the constant summand
+	 * @throws IllegalArgumentException if the number of operands differs from the
+	 *                                  number of coefficients
+	 */
+	public IntLinearSum(List<Term<Long>> operands, long[] coefficients, long constant) {
+		super();
+		this.coefficients = coefficients;
+		this.constant = constant;
+		setChildren(operands);
+	}
+
+	private IntLinearSum(IntLinearSum oldNode) {
+		super();
+		coefficients = Arrays.copyOf(oldNode.coefficients, oldNode.coefficients.length);
+		constant = oldNode.constant;
+	}
+
+	@Override
+	public Long getConstant() {
+		return constant;
+	}
+
+	@Override
+	public Long getCoefficient(int index) {
+		return coefficients[index];
+	}
+
+	@Override
+	public int getNumberOfCoefficients() {
+		return coefficients.length;
+	}
+
+	@Override
+	public Class<Long> getType() {
+		return Long.class;
+	}
+
+	@Override
+	public IntLinearSum cloneNode() {
+		return new IntLinearSum(this);
+	}
+
+	@Override
+	public Optional<Long> eval(List<Long> values) {
+		long sum = constant;
+		for (int i = 0; i < coefficients.length; i++) {
+			final Long value = values.get(i);
+			if (value == null) {
+				return Optional.empty();
+			}
+			sum += coefficients[i] * value;
+		}
+		return Optional.of(sum);
+	}
+
+	@Override
+	protected int computeHashCode() {
+		int hashCode = super.computeHashCode();
+		hashCode = (37 * hashCode) + Arrays.hashCode(coefficients);
+		hashCode = (37 * hashCode) + Long.hashCode(constant);
+		return hashCode;
+	}
+
+	@Override
+	public boolean equalsNode(Object other) {
+		if (!super.equalsNode(other)) {
+			return false;
+		}
+		final IntLinearSum otherSum = (IntLinearSum) other;
+		return (constant == otherSum.constant) && Arrays.equals(coefficients, otherSum.coefficients);
+	}
+
+}
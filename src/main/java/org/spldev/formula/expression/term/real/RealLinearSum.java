@@ -0,0 +1,113 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.term.real;
+
+import java.util.*;
+
+import org.spldev.formula.expression.term.*;
+
+public class RealLinearSum extends LinearSum<Double> {
+
+	private final double[] coefficients;
+	private final double constant;
+
+	/**
+	 * Creates a linear sum of the given operands.
+	 *
+	 * @param operands     the operands
+	 * @param coefficients the coefficient of each operand; must not be modified
+	 *                     afterwards
+	 * @param constant     the constant summand
+	 * @throws IllegalArgumentException if the number of operands differs from the
+	 *                                  number of coefficients
+	 */
+	public RealLinearSum(List<Term<Double>> operands, double[] coefficients, double constant) {
+		super();
+		this.coefficients = coefficients;
+		this.constant = constant;
+		setChildren(operands);
+	}
+
+	private RealLinearSum(RealLinearSum oldNode) {
+		super();
+		coefficients = Arrays.copyOf(oldNode.coefficients, oldNode.coefficients.length);
+		constant = oldNode.constant;
+	}
+
+	@Override
+	public Double getConstant() {
+		return constant;
+	}
+
+	@Override
+	public Double getCoefficient(int index) {
+		return coefficients[index];
+	}
+
+	@Override
+	public int getNumberOfCoefficients() {
+		return coefficients.length;
+	}
+
+	@Override
+	public Class<Double> getType() {
+		return Double.class;
+	}
+
+	@Override
+	public RealLinearSum cloneNode() {
+		return new RealLinearSum(this);
+	}
+
+	@Override
+	public Optional<Double> eval(List<Double> values) {
+		double sum = constant;
+		for (int i = 0; i < coefficients.length; i++) {
+			final Double value = values.get(i);
+			if (value == null) {
+				return Optional.empty();
+			}
+			sum += coefficients[i] * value;
+		}
+		return Optional.of(sum);
+	}
+
+	@Override
+	protected int computeHashCode() {
+		int hashCode = super.computeHashCode();
+		hashCode = (37 * hashCode) + Arrays.hashCode(coefficients);
+		hashCode = (37 * hashCode) + Double.hashCode(constant);
+		return hashCode;
+	}
+
+	@Override
+	public boolean equalsNode(Object other) {
+		if (!super.equalsNode(other)) {
+			return false;
+		}
+		final RealLinearSum otherSum = (RealLinearSum) other;
+		return (Double.compare(constant, otherSum.constant) == 0)
+			&& Arrays.equals(coefficients, otherSum.coefficients);
+	}
+
+}
@@ -0,0 +1,336 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ *
+ * This file is part of Formula Lib.
+ *
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.transform;
+
+import java.util.*;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.util.job.*;
+
+/**
+ * Simplifies a formula without changing its models. Within each {@link And}
+ * and {@link Or}, the simplifier
+ * <ul>
+ * <li>removes constants and flattens nested junctions of the same type,</li>
+ * <li>removes duplicate children (idempotence),</li>
+ * <li>detects complementary children (e.g., {@code a and not a}),</li>
+ * <li>removes children that are absorbed by a sibling (e.g.,
+ * {@code a and (a or b)} to {@code a}), and</li>
+ * <li>removes literals whose complement is a sibling (e.g.,
+ * {@code a and (not a or b)} to {@code a and b}).</li>
+ * </ul>
+ * Additionally, literals that are children of the root {@link And} (i.e., unit
+ * literals) are propagated into the rest of the formula until no new unit
+ * literals are found.<br>
+ * Siblings are compared by hashing, such that each pass takes time linear in the
+ * size of the formula. Subformulas that are shared are simplified only once per
+ * pass. Nodes other than junctions, negations, and literals are kept, but their
+ * children are simplified. The given formula is not modified.
+ *
+ * @author Sebastian Krieter
+ */
+public class BooleanSimplifier implements Transformer {
+
+	private static final class Frame {
+		private final Formula node;
+		private final List<Formula> children;
+		private int index = 0;
+
+		private Frame(Formula node) {
+			this.node = node;
+			children = new ArrayList<>(node.getChildren().size());
+		}
+	}
+
+	private final HashMap<String, Boolean> values = new HashMap<>();
+	private final IdentityHashMap<Formula, Formula> results = new IdentityHashMap<>();
+	private final ArrayDeque<Frame> stack = new ArrayDeque<>();
+
+	private boolean propagatingUnitLiterals = true;
+
+	public boolean isPropagatingUnitLiterals() {
+		return propagatingUnitLiterals;
+	}
+
+	/**
+	 * Sets whether literals that are children of the root are propagated into the
+	 * rest of the formula.
+	 *
+	 * @param propagatingUnitLiterals whether to propagate unit literals
+	 */
+	public void setPropagatingUnitLiterals(boolean propagatingUnitLiterals) {
+		this.propagatingUnitLiterals = propagatingUnitLiterals;
+	}
+
+	@Override
+	public Formula execute(Formula formula, InternalMonitor monitor) {
+		try {
+			final List<Formula> units = new ArrayList<>();
+			while (true) {
+				formula = simplify(formula);
+				if (!propagatingUnitLiterals || (formula == Literal.False) || !addUnits(formula, units)) {
+					break;
+				}
+			}
+			if (units.isEmpty() || (formula == Literal.False)) {
+				return formula;
+			}
+			if (formula instanceof And) {
+				units.addAll(((And) formula).getChildren());
+			} else if (formula != Literal.True) {
+				units.add(formula);
+			}
+			return units.size() == 1 ? units.get(0) : new And(units);
+		} finally {
+			values.clear();
+			results.clear();
+			stack.clear();
+		}
+	}
+
+	private boolean addUnits(Formula formula, List<Formula> units) {
+		boolean newUnits = false;
+		final List<? extends Expression> children = (formula instanceof And)
+			? formula.getChildren()
+			: Collections.singletonList(formula);
+		for (final Expression child : children) {
+			if (child instanceof LiteralPredicate) {
+				final LiteralPredicate literal = (LiteralPredicate) child;
+				if (values.putIfAbsent(literal.getName(), literal.isPositive()) == null) {
+					units.add(literal);
+					newUnits = true;
+				}
+			}
+		}
+		return newUnits;
+	}
+
+	/**
+	 * Simplifies all nodes of the given formula once in post-order and replaces
+	 * the literals of unit variables by constants.
+	 */
+	@SuppressWarnings("unchecked")
+	private Formula simplify(Formula formula) {
+		results.clear();
+		final Formula root = simplifyLeaf(formula);
+		if (root != null) {
+			return root;
+		}
+		stack.push(new Frame(formula));
+		while (true) {
+			final Frame frame = stack.peek();
+			final List<Formula> children = (List<Formula>) frame.node.getChildren();
+			if (frame.index < children.size()) {
+				final Formula child = children.get(frame.index++);
+				Formula result = simplifyLeaf(child);
+				if (result == null) {
+					result = results.get(child);
+				}
+				if (result != null) {
+					frame.children.add(result);
+				} else {
+					stack.push(new Frame(child));
+				}
+			} else {
+				stack.pop();
+				final Formula result = simplifyNode(frame.node, frame.children);
+				if (stack.isEmpty()) {
+					return result;
+				}
+				results.put(frame.node, result);
+				stack.peek().children.add(result);
+			}
+		}
+	}
+
+	/**
+	 * @return the simplified leaf or {@code null} if the given node has children
+	 *         that must be simplified first
+	 */
+	private Formula simplifyLeaf(Formula node) {
+		if (node instanceof LiteralPredicate) {
+			final LiteralPredicate literal = (LiteralPredicate) node;
+			final Boolean value = values.get(literal.getName());
+			if (value == null) {
+				return literal;
+			}
+			return value == literal.isPositive() ? Literal.True : Literal.False;
+		} else if ((node instanceof Atomic) || !((node instanceof Compound) || (node instanceof AuxiliaryRoot))) {
+			return node;
+		} else {
+			return null;
+		}
+	}
+
+	private Formula simplifyNode(Formula node, List<Formula> children) {
+		if ((node instanceof And) || (node instanceof Or)) {
+			return simplifyJunction(node, children);
+		} else if (node instanceof Not) {
+			final Formula child = children.get(0);
+			if (child instanceof Atomic) {
+				return ((Atomic) child).flip();
+			} else if (child instanceof Not) {
+				return (Formula) child.getChildren().get(0);
+			}
+		}
+		return replaceChildren(node, children);
+	}
+
+	private Formula simplifyJunction(Formula node, List<Formula> children) {
+		final boolean conjunction = node instanceof And;
+		final Literal absorbing = conjunction ? Literal.False : Literal.True;
+		final Literal neutral = conjunction ? Literal.True : Literal.False;
+
+		final LinkedHashSet<Formula> siblings = new LinkedHashSet<>();
+		for (final Formula child : children) {
+			if (!add(siblings, child, conjunction, absorbing, neutral)) {
+				return absorbing;
+			}
+		}
+
+		boolean changed = false;
+		final ArrayList<Formula> newChildren = new ArrayList<>(siblings.size());
+		for (final Formula sibling : siblings) {
+			final Formula newSibling = conjunction ? (sibling instanceof Or) ? absorb(sibling, siblings) : sibling
+				: (sibling instanceof And) ? absorb(sibling, siblings) : sibling;
+			if (newSibling != sibling) {
+				changed = true;
+			}
+			if (newSibling != null) {
+				newChildren.add(newSibling);
+			}
+		}
+		if (changed) {
+			siblings.clear();
+			for (final Formula child : newChildren) {
+				if (!add(siblings, child, conjunction, absorbing, neutral)) {
+					return absorbing;
+				}
+			}
+			newChildren.clear();
+			newChildren.addAll(siblings);
+		}
+
+		switch (newChildren.size()) {
+		case 0:
+			return neutral;
+		case 1:
+			return newChildren.get(0);
+		default:
+			if (isSame(newChildren, node.getChildren())) {
+				return node;
+			}
+			return conjunction ? new And(newChildren) : new Or(newChildren);
+		}
+	}
+
+	/**
+	 * Adds a simplified child to the children of a junction.
+	 *
+	 * @return {@code false} if the junction is equal to its absorbing constant
+	 */
+	private static boolean add(Set<Formula> siblings, Formula child, boolean conjunction, Literal absorbing,
+		Literal neutral) {
+		if (child == absorbing) {
+			return false;
+		} else if (child == neutral) {
+			return true;
+		} else if (conjunction ? (child instanceof And) : (child instanceof Or)) {
+			for (final Expression grandChild : child.getChildren()) {
+				if (!add(siblings, (Formula) grandChild, conjunction, absorbing, neutral)) {
+					return false;
+				}
+			}
+			return true;
+		} else if ((child instanceof Atomic) && siblings.contains(((Atomic) child).flip())) {
+			return false;
+		} else {
+			siblings.add(child);
+			return true;
+		}
+	}
+
+	/**
+	 * Simplifies a child of a junction with respect to its siblings.
+	 *
+	 * @return {@code null} if the child is absorbed by one of its siblings, a
+	 *         junction without the children whose complement is a sibling, or the
+	 *         child itself if it cannot be simplified
+	 */
+	private static Formula absorb(Formula child, Set<Formula> siblings) {
+		final List<? extends Expression> grandChildren = child.getChildren();
+		ArrayList<Formula> newGrandChildren = null;
+		for (int i = 0; i < grandChildren.size(); i++) {
+			final Formula grandChild = (Formula) grandChildren.get(i);
+			if (siblings.contains(grandChild)) {
+				return null;
+			}
+			if ((grandChild instanceof Atomic) && siblings.contains(((Atomic) grandChild).flip())) {
+				if (newGrandChildren == null) {
+					newGrandChildren = new ArrayList<>(grandChildren.size());
+					for (int j = 0; j < i; j++) {
+						newGrandChildren.add((Formula) grandChildren.get(j));
+					}
+				}
+			} else if (newGrandChildren != null) {
+				newGrandChildren.add(grandChild);
+			}
+		}
+		if (newGrandChildren == null) {
+			return child;
+		}
+		switch (newGrandChildren.size()) {
+		case 0:
+			return (child instanceof And) ? Literal.True : Literal.False;
+		case 1:
+			return newGrandChildren.get(0);
+		default:
+			return (child instanceof And) ? new And(newGrandChildren) : new Or(newGrandChildren);
+		}
+	}
+
+	private static Formula replaceChildren(Formula node, List<Formula> children) {
+		if (isSame(children, node.getChildren())) {
+			return node;
+		}
+		final Formula newNode = (Formula) node.cloneNode();
+		newNode.setChildren(children);
+		return newNode;
+	}
+
+	private static boolean isSame(List<? extends Expression> list1, List<? extends Expression> list2) {
+		if (list1.size() != list2.size()) {
+			return false;
+		}
+		for (int i = 0; i < list1.size(); i++) {
+			if (list1.get(i) != list2.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -23,11 +23,13 @@
 package org.spldev.formula.expression.transform;
 
 import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
 
+import org.spldev.formula.clauses.*;
 import org.spldev.formula.expression.*;
 import org.spldev.formula.expression.atomic.literal.*;
 import org.spldev.formula.expression.compound.*;
-import org.spldev.formula.expression.term.bool.*;
 import org.spldev.formula.expression.transform.DistributiveLawTransformer.*;
 import org.spldev.formula.expression.transform.NormalForms.*;
 import org.spldev.formula.expression.transform.TseytinTransformer.*;
@@ -36,118 +38,378 @@ import org.spldev.util.tree.*;
 
 public class CNFTransformer implements Transformer {
 
-	public final boolean useMultipleThreads = false;
+	/**
+	 * The clauses of one child of the formula and its subformulas that must be
+	 * transformed with Tseytin's transformation. The children are transformed
+	 * independently, but the Tseytin subformulas of all children are transformed
+	 * or {@link TseytinTransformer#merge(List) merged} by the same instance, such
+	 * that equal subformulas share their variables.
+	 */
+	private static final class TransformedChild {
+		private final List<Formula> distributiveClauses = new ArrayList<>();
+		private final List<Formula> tseytinFormulas = new ArrayList<>();
+		private List<Substitute> tseytinSubstitutes = null;
+
+		/**
+		 * Transforms the Tseytin subformulas with a separate instance, whose new
+		 * variables are removed from the given variable map afterwards.
+		 */
+		private void transformTseytinFormulas(VariableMap localVariableMap, int maxIndex) {
+			final TseytinTransformer tseytinTransformer = new TseytinTransformer();
+			tseytinTransformer.setVariableMap(localVariableMap);
+			tseytinSubstitutes = new ArrayList<>();
+			for (final Formula tseytinFormula : tseytinFormulas) {
+				tseytinSubstitutes.addAll(tseytinTransformer.execute(tseytinFormula, new NullMonitor()));
+			}
+			while (localVariableMap.getMaxIndex() > maxIndex) {
+				localVariableMap.removeIndex(localVariableMap.getMaxIndex());
+			}
+		}
+	}
 
-	protected final List<Formula> distributiveClauses;
-	protected final List<Substitute> tseytinClauses;
 	protected boolean useDistributive;
+	protected boolean useMultipleThreads = false;
+	protected boolean usePlaistedGreenbaum = false;
+	protected boolean simplifyingClauses = false;
+	protected boolean useOperandDefinitions = false;
+	protected boolean simplifyingFormula = false;
+	protected CardinalityEncoder.Encoding cardinalityEncoding = CardinalityEncoder.Encoding.BINOMIAL;
+	protected long maximumNumberOfBinomialClauses = 100;
 	protected int maximumNumberOfLiterals = Integer.MAX_VALUE;
 
-	protected VariableMap variableMap = null;
+	protected int numberOfTseytinClauses;
+	protected int numberOfOmittedClauses;
 
-	public CNFTransformer() {
-		if (useMultipleThreads) {
-			distributiveClauses = Collections.synchronizedList(new ArrayList<>());
-			tseytinClauses = Collections.synchronizedList(new ArrayList<>());
-		} else {
-			distributiveClauses = new ArrayList<>();
-			tseytinClauses = new ArrayList<>();
-		}
-	}
+	protected VariableMap variableMap = null;
 
 	public void setMaximumNumberOfLiterals(int maximumNumberOfLiterals) {
 		this.maximumNumberOfLiterals = maximumNumberOfLiterals;
 	}
 
+	public boolean isUseMultipleThreads() {
+		return useMultipleThreads;
+	}
+
+	/**
+	 * Sets whether the children of a top-level And are transformed in parallel in
+	 * the common fork/join pool, including their subformulas that are transformed
+	 * with Tseytin's transformation. The result is the same as for a sequential
+	 * transformation, as all children and their new variables are merged in their
+	 * original order.
+	 *
+	 * @param useMultipleThreads whether to use multiple threads
+	 */
+	public void setUseMultipleThreads(boolean useMultipleThreads) {
+		this.useMultipleThreads = useMultipleThreads;
+	}
+
+	public boolean isUsePlaistedGreenbaum() {
+		return usePlaistedGreenbaum;
+	}
+
+	/**
+	 * Sets whether subformulas that are transformed with Tseytin's transformation
+	 * use Plaisted-Greenbaum encoding, i.e., only the implication from each new
+	 * variable to its subformula.
+	 *
+	 * @param usePlaistedGreenbaum whether to use Plaisted-Greenbaum encoding
+	 *
+	 * @see TseytinTransformer#setUsePlaistedGreenbaum(boolean)
+	 */
+	public void setUsePlaistedGreenbaum(boolean usePlaistedGreenbaum) {
+		this.usePlaistedGreenbaum = usePlaistedGreenbaum;
+	}
+
+	public boolean isSimplifyingClauses() {
+		return simplifyingClauses;
+	}
+
+	/**
+	 * Sets whether the resulting clauses are simplified by a
+	 * {@link ClauseSimplifier}, which removes tautologies, duplicate and subsumed
+	 * clauses, and applies self-subsuming resolution across the whole CNF.
+	 *
+	 * @param simplifyingClauses whether to simplify the clauses
+	 */
+	public void setSimplifyingClauses(boolean simplifyingClauses) {
+		this.simplifyingClauses = simplifyingClauses;
+	}
+
+	public boolean isSimplifyingFormula() {
+		return simplifyingFormula;
+	}
+
+	/**
+	 * Sets whether the formula is simplified by a {@link BooleanSimplifier} after
+	 * its transformation into negation normal form, such that the subsequent
+	 * transformation works on a smaller formula.
+	 *
+	 * @param simplifyingFormula whether to simplify the formula
+	 */
+	public void setSimplifyingFormula(boolean simplifyingFormula) {
+		this.simplifyingFormula = simplifyingFormula;
+	}
+
+	public boolean isUseOperandDefinitions() {
+		return useOperandDefinitions;
+	}
+
+	/**
+	 * Sets whether non-literal operands of equivalences and cardinality constraints
+	 * are replaced by new variables before the transformation, such that they are
+	 * not copied. This avoids an exponential growth for nested equivalences.
+	 *
+	 * @param useOperandDefinitions whether to define operands by new variables
+	 *
+	 * @see NNFTransformer#setVariableMap(VariableMap)
+	 */
+	public void setUseOperandDefinitions(boolean useOperandDefinitions) {
+		this.useOperandDefinitions = useOperandDefinitions;
+	}
+
+	public CardinalityEncoder.Encoding getCardinalityEncoding() {
+		return cardinalityEncoding;
+	}
+
+	/**
+	 * Sets the encoding for cardinality constraints whose binomial encoding would
+	 * exceed the {@link #setMaximumNumberOfBinomialClauses(long) maximum number of
+	 * binomial clauses}. By default, the binomial encoding is used for all
+	 * constraints. All other encodings add auxiliary variables, such that the
+	 * resulting CNF no longer preserves the number of models.
+	 *
+	 * @param cardinalityEncoding the encoding for large cardinality constraints
+	 *
+	 * @see CardinalityEncoder
+	 */
+	public void setCardinalityEncoding(CardinalityEncoder.Encoding cardinalityEncoding) {
+		this.cardinalityEncoding = cardinalityEncoding;
+	}
+
+	public long getMaximumNumberOfBinomialClauses() {
+		return maximumNumberOfBinomialClauses;
+	}
+
+	public void setMaximumNumberOfBinomialClauses(long maximumNumberOfBinomialClauses) {
+		this.maximumNumberOfBinomialClauses = maximumNumberOfBinomialClauses;
+	}
+
+	/**
+	 * @return the number of clauses created by Tseytin's transformation in the
+	 *         last call of {@link #execute(Formula, InternalMonitor)}
+	 */
+	public int getNumberOfTseytinClauses() {
+		return numberOfTseytinClauses;
+	}
+
+	/**
+	 * @return the number of clauses that were saved by Plaisted-Greenbaum encoding
+	 *         in the last call of {@link #execute(Formula, InternalMonitor)}
+	 */
+	public int getNumberOfOmittedClauses() {
+		return numberOfOmittedClauses;
+	}
+
 	@Override
 	public Formula execute(Formula orgFormula, InternalMonitor monitor) {
-		useDistributive = (maximumNumberOfLiterals > 0);
+		init();
 		final NFTester nfTester = NormalForms.getNFTester(orgFormula, NormalForm.CNF);
 		if (nfTester.isNf) {
 			if (!nfTester.isClausalNf()) {
-				return NormalForms.toClausalNF(Trees.cloneTree(orgFormula), NormalForm.CNF);
+				return simplify(NormalForms.toClausalNF(Trees.cloneTree(orgFormula), NormalForm.CNF), monitor);
 			} else {
-				return Trees.cloneTree(orgFormula);
+				return simplifyingClauses ? simplify(orgFormula, monitor) : Trees.cloneTree(orgFormula);
 			}
 		}
 		variableMap = VariableMap.fromExpression(orgFormula).clone();
-		Formula formula = NormalForms.simplifyForNF(Trees.cloneTree(orgFormula));
-		if (formula instanceof And) {
-			final List<Formula> children = ((And) formula).getChildren();
-			if (useMultipleThreads) {
-				children.parallelStream().forEach(this::transform);
-			} else {
-				children.forEach(this::transform);
-			}
-		} else {
-			transform(formula);
-		}
+		final List<Formula> transformedClauses = new ArrayList<>();
+		transformChildren(orgFormula, transformedClauses::add);
 
-		formula = new And(getTransformedClauses());
+		Formula formula = new And(transformedClauses);
 		formula = NormalForms.toClausalNF(formula, NormalForm.CNF);
 		formula.setVariableMap(variableMap);
-		return formula;
+		return simplify(formula, monitor);
 	}
 
-	protected Collection<? extends Formula> getTransformedClauses() {
-		final List<Formula> transformedClauses = new ArrayList<>();
+	private Formula simplify(Formula cnf, InternalMonitor monitor) {
+		if (simplifyingClauses) {
+			final VariableMap cnfVariableMap = cnf.getVariableMap();
+			return new ClauseSimplifier().execute(ClauseList.fromCNF(cnf, cnfVariableMap), monitor).toFormula();
+		}
+		return cnf;
+	}
 
-		transformedClauses.addAll(distributiveClauses);
-
-		if (!tseytinClauses.isEmpty()) {
-			variableMap = variableMap.clone();
-			final HashMap<Substitute, Substitute> combinedTseytinClauses = new HashMap<>();
-			int count = 0;
-			for (final Substitute tseytinClause : tseytinClauses) {
-				Substitute substitute = combinedTseytinClauses.get(tseytinClause);
-				if (substitute == null) {
-					substitute = tseytinClause;
-					combinedTseytinClauses.put(substitute, substitute);
-					final BoolVariable variable = substitute.getVariable();
-					if (variable != null) {
-						Optional<BoolVariable> addBooleanVariable;
-						do {
-							addBooleanVariable = variableMap.addBooleanVariable("__temp__" + count++);
-						} while (addBooleanVariable.isEmpty());
-						variable.getVariableMap().renameVariable(variable.getIndex(), addBooleanVariable.get()
-							.getName());
-					}
-				} else {
-					final BoolVariable variable = substitute.getVariable();
-					if (variable != null) {
-						final BoolVariable otherVariable = tseytinClause.getVariable();
-						otherVariable.getVariableMap().renameVariable(otherVariable.getIndex(), variable.getName());
-					}
-				}
+	/**
+	 * Transforms a formula into CNF and passes each clause to the given sink. The
+	 * clauses of each top-level subformula are passed on as soon as it is
+	 * transformed, such that no formula is created for the whole CNF in contrast
+	 * to {@link #execute(Formula, InternalMonitor)}. Only if the clauses are
+	 * {@link #setSimplifyingClauses(boolean) simplified}, all clauses are
+	 * collected in a {@link ClauseList} first.
+	 *
+	 * @param orgFormula the formula
+	 * @param sink       the sink of the clauses
+	 * @return the variable map of the clauses, including all new variables
+	 */
+	public VariableMap execute(Formula orgFormula, ClauseSink sink) {
+		if (simplifyingClauses) {
+			final ClauseList clauses = new ClauseList(VariableMap.emptyMap());
+			final VariableMap cnfVariableMap = transformClauses(orgFormula, clauses);
+			final ClauseList allClauses = new ClauseList(cnfVariableMap, clauses.size(), clauses.getNumberOfLiterals());
+			allClauses.addClauses(clauses);
+			for (final int[] clause : new ClauseSimplifier().execute(allClauses, new NullMonitor())) {
+				sink.addClause(clause);
 			}
-			for (final Substitute tseytinClause : combinedTseytinClauses.keySet()) {
-				for (final Formula formula : tseytinClause.getClauses()) {
-					formula.adaptVariableMap(variableMap);
-					transformedClauses.add(formula);
+			return cnfVariableMap;
+		}
+		return transformClauses(orgFormula, sink);
+	}
+
+	private VariableMap transformClauses(Formula orgFormula, ClauseSink sink) {
+		init();
+		final NFTester nfTester = NormalForms.getNFTester(orgFormula, NormalForm.CNF);
+		if (nfTester.isNf) {
+			final Formula cnf = NormalForms.toClausalNF(Trees.cloneTree(orgFormula), NormalForm.CNF);
+			final VariableMap cnfVariableMap = VariableMap.fromExpression(orgFormula);
+			for (final Expression clause : cnf.getChildren()) {
+				sink.addClause((Formula) clause, cnfVariableMap);
+			}
+			return cnfVariableMap;
+		}
+		variableMap = VariableMap.fromExpression(orgFormula).clone();
+		transformChildren(orgFormula, clause -> sink.addClause(clause, variableMap));
+		return variableMap;
+	}
+
+	private void init() {
+		numberOfTseytinClauses = 0;
+		numberOfOmittedClauses = 0;
+		useDistributive = (maximumNumberOfLiterals > 0);
+	}
+
+	/**
+	 * Transforms the children of the formula and passes the clauses of each child
+	 * to the given consumer before the clauses of the next child. The subformulas
+	 * that are transformed with Tseytin's transformation are passed to a single
+	 * instance, whose clauses are passed on as soon as they are created.
+	 *
+	 * @param orgFormula the formula
+	 * @param consumer   the consumer of the clauses
+	 */
+	private void transformChildren(Formula orgFormula, Consumer<Formula> consumer) {
+		final Stream<TransformedChild> transformedChildren = getTransformedChildren(orgFormula);
+		final TseytinTransformer tseytinTransformer = new TseytinTransformer();
+		tseytinTransformer.setVariableMap(variableMap);
+		tseytinTransformer.setUsePlaistedGreenbaum(usePlaistedGreenbaum);
+		transformedChildren.forEachOrdered(transformedChild -> {
+			transformedChild.distributiveClauses.forEach(consumer);
+			if (transformedChild.tseytinSubstitutes != null) {
+				addTseytinClauses(tseytinTransformer.merge(transformedChild.tseytinSubstitutes), consumer);
+			} else {
+				for (final Formula tseytinFormula : transformedChild.tseytinFormulas) {
+					addTseytinClauses(tseytinTransformer.execute(tseytinFormula, new NullMonitor()), consumer);
 				}
 			}
+		});
+	}
+
+	private void addTseytinClauses(List<Substitute> substitutes, Consumer<Formula> consumer) {
+		for (final Substitute substitute : substitutes) {
+			numberOfTseytinClauses += substitute.getClauses().size();
+			numberOfOmittedClauses += substitute.getNumberOfOmittedClauses();
+			substitute.getClauses().forEach(consumer);
+		}
+	}
+
+	private Stream<TransformedChild> getTransformedChildren(Formula orgFormula) {
+		final CardinalityEncoder cardinalityEncoder = new CardinalityEncoder(variableMap);
+		cardinalityEncoder.setEncoding(cardinalityEncoding);
+		cardinalityEncoder.setMaximumNumberOfBinomialClauses(maximumNumberOfBinomialClauses);
+		final NNFTransformer nnfTransformer = new NNFTransformer(cardinalityEncoder);
+		if (useOperandDefinitions) {
+			nnfTransformer.setVariableMap(variableMap);
+		}
+		Formula formula = nnfTransformer.execute(orgFormula, new NullMonitor());
+		if (simplifyingFormula) {
+			formula = new BooleanSimplifier().execute(formula, new NullMonitor());
 		}
-		return transformedClauses;
+		final List<Formula> children = (formula instanceof And)
+			? ((And) formula).getChildren()
+			: Collections.singletonList(formula);
+		if (useMultipleThreads && (children.size() > 1)) {
+			final VariableMap baseVariableMap = variableMap.clone();
+			final int maxIndex = baseVariableMap.getMaxIndex();
+			final ThreadLocal<VariableMap> localVariableMaps = ThreadLocal.withInitial(baseVariableMap::clone);
+			return children.parallelStream().map(child -> {
+				final TransformedChild transformedChild = transform(child);
+				transformedChild.transformTseytinFormulas(localVariableMaps.get(), maxIndex);
+				return transformedChild;
+			});
+		}
+		return children.stream().map(this::transform);
+	}
+
+	private TransformedChild transform(Formula child) {
+		final TransformedChild transformedChild = new TransformedChild();
+		transform(Trees.cloneTree(child), transformedChild);
+		return transformedChild;
 	}
 
-	private void transform(Formula child) {
-		final Formula clonedChild = Trees.cloneTree(child);
+	/**
+	 * Transforms a subformula with the distributive law if its estimated size does
+	 * not exceed the maximum number of literals. Otherwise, the children of an And
+	 * are transformed separately and any other subformula is transformed with
+	 * Tseytin's transformation.
+	 */
+	private void transform(Formula clonedChild, TransformedChild transformedChild) {
+		if (clonedChild == Literal.True) {
+			return;
+		}
+		if (clonedChild == Literal.False) {
+			transformedChild.distributiveClauses.add(Or.empty(variableMap));
+			return;
+		}
 		if (Formulas.isCNF(clonedChild)) {
 			if (clonedChild instanceof And) {
-				distributiveClauses.addAll(((And) clonedChild).getChildren());
+				transformedChild.distributiveClauses.addAll(((And) clonedChild).getChildren());
 			} else {
-				distributiveClauses.add(clonedChild);
+				transformedChild.distributiveClauses.add(clonedChild);
 			}
-		} else {
-			if (useDistributive) {
+			return;
+		}
+		if (useDistributive) {
+			if (isDistributiveFeasible(clonedChild)) {
 				try {
-					distributiveClauses.addAll(distributive(clonedChild, new NullMonitor()).getChildren());
+					transformedChild.distributiveClauses.addAll(distributive(clonedChild, new NullMonitor())
+						.getChildren());
 					return;
 				} catch (final MaximumNumberOfLiteralsExceededException e) {
+					// the estimate is an upper bound of the number of literals
+					throw new IllegalStateException(e);
+				}
+			} else if (clonedChild instanceof And) {
+				for (final Formula grandChild : ((And) clonedChild).getChildren()) {
+					transform(grandChild, transformedChild);
 				}
+				return;
 			}
-			tseytinClauses.addAll(tseytin(clonedChild, new NullMonitor()));
 		}
+		transformedChild.tseytinFormulas.add(clonedChild);
+	}
+
+	/**
+	 * Estimates whether the distributive law can transform the given subformula
+	 * without exceeding the maximum number of literals.
+	 *
+	 * @param child the subformula
+	 * @return {@code true} if the distributive law should be used
+	 *
+	 * @see DistributiveLawCounter
+	 */
+	protected boolean isDistributiveFeasible(Formula child) {
+		return Trees.traverse(child, new DistributiveLawCounter())
+			.map(estimate -> estimate.getMaximumNumberOfStepLiterals() <= maximumNumberOfLiterals)
+			.orElse(Boolean.FALSE);
 	}
 
 	protected Compound distributive(Formula child, InternalMonitor monitor)
@@ -158,10 +420,4 @@ public class CNFTransformer implements Transformer {
 
 	}
 
-	protected List<Substitute> tseytin(Formula child, InternalMonitor monitor) {
-		final TseytinTransformer tseytinTransformer = new TseytinTransformer();
-		tseytinTransformer.setVariableMap(VariableMap.emptyMap());
-		return tseytinTransformer.execute(child, monitor);
-	}
-
 }
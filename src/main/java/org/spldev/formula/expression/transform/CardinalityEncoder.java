@@ -0,0 +1,394 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.transform;
+
+import java.util.*;
+import java.util.stream.*;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.term.bool.*;
+
+/**
+ * Encodes cardinality constraints (i.e., {@link AtMost}, {@link AtLeast},
+ * {@link Between}, and {@link Choose}) as clauses. By default, all constraints
+ * are encoded with the binomial encoding, which needs no new variables, but
+ * {@code C(n, k + 1)} clauses for at most {@code k} of {@code n} elements. If
+ * another {@link Encoding encoding} is selected, it is used for constraints
+ * whose number of binomial clauses exceeds
+ * {@link #setMaximumNumberOfBinomialClauses(long) a threshold}. It adds
+ * auxiliary variables to the {@link #setVariableMap(VariableMap) variable map}.
+ * Without a variable map, the binomial encoding is always used.<br>
+ * All encodings except the binomial one are equisatisfiable, but not equivalent
+ * to the original constraint, i.e., they do not preserve the number of models.
+ *
+ * @author Sebastian Krieter
+ */
+public class CardinalityEncoder {
+
+	public enum Encoding {
+		/**
+		 * One clause for each subset of {@code k + 1} elements (pairwise encoding for
+		 * {@code k = 1}).
+		 */
+		BINOMIAL,
+		/**
+		 * Sinz' sequential counter with {@code O(n * k)} clauses and variables.
+		 */
+		SEQUENTIAL_COUNTER,
+		/**
+		 * Bailleux and Boufkhad's totalizer, limited to {@code k + 1} outputs per
+		 * node.
+		 */
+		TOTALIZER,
+		/**
+		 * Klieber and Kwon's commander encoding for at most one element. Uses the
+		 * sequential counter for {@code k > 1}.
+		 */
+		COMMANDER,
+		/**
+		 * Nguyen and Mai's bimander encoding for at most one element. Uses the
+		 * sequential counter for {@code k > 1}.
+		 */
+		BIMANDER
+	}
+
+	private static final int COMMANDER_GROUP_SIZE = 3;
+	private static final int BIMANDER_GROUP_SIZE = 2;
+
+	private Encoding encoding = Encoding.BINOMIAL;
+	private long maximumNumberOfBinomialClauses = 100;
+	private VariableMap variableMap;
+	private int count = 0;
+
+	public CardinalityEncoder() {
+	}
+
+	public CardinalityEncoder(VariableMap variableMap) {
+		this.variableMap = variableMap;
+	}
+
+	public VariableMap getVariableMap() {
+		return variableMap;
+	}
+
+	/**
+	 * Sets the variable map to which auxiliary variables are added.
+	 *
+	 * @param variableMap the variable map or {@code null} to only use the binomial
+	 *                    encoding
+	 */
+	public void setVariableMap(VariableMap variableMap) {
+		this.variableMap = variableMap;
+	}
+
+	public Encoding getEncoding() {
+		return encoding;
+	}
+
+	public void setEncoding(Encoding encoding) {
+		this.encoding = Objects.requireNonNull(encoding);
+	}
+
+	public long getMaximumNumberOfBinomialClauses() {
+		return maximumNumberOfBinomialClauses;
+	}
+
+	/**
+	 * Sets the maximum number of clauses of the binomial encoding. Larger
+	 * constraints are encoded with the selected encoding.
+	 *
+	 * @param maximumNumberOfBinomialClauses the maximum number of binomial clauses
+	 */
+	public void setMaximumNumberOfBinomialClauses(long maximumNumberOfBinomialClauses) {
+		this.maximumNumberOfBinomialClauses = maximumNumberOfBinomialClauses;
+	}
+
+	/**
+	 * Encodes that at most {@code k} elements are true.
+	 *
+	 * @param elements the elements
+	 * @param k        the maximum number of true elements
+	 * @return a list of clauses
+	 */
+	public List<Formula> atMost(List<? extends Formula> elements, int k) {
+		final int n = elements.size();
+
+		// return contradiction
+		if (k < 0) {
+			return Arrays.asList(Literal.False);
+		}
+
+		// return tautology
+		if (k >= n) {
+			return Arrays.asList(Literal.True);
+		}
+
+		return encode(elements.stream().map(Not::new).collect(Collectors.toList()), k);
+	}
+
+	/**
+	 * Encodes that at least {@code k} elements are true.
+	 *
+	 * @param elements the elements
+	 * @param k        the minimum number of true elements
+	 * @return a list of clauses
+	 */
+	public List<Formula> atLeast(List<? extends Formula> elements, int k) {
+		final int n = elements.size();
+
+		// return tautology
+		if (k <= 0) {
+			return Arrays.asList(Literal.True);
+		}
+
+		// return contradiction
+		if (k > n) {
+			return Arrays.asList(Literal.False);
+		}
+
+		return encode(elements, n - k);
+	}
+
+	/**
+	 * Encodes that at least {@code min} and at most {@code max} elements are true.
+	 *
+	 * @param elements the elements
+	 * @param min      the minimum number of true elements
+	 * @param max      the maximum number of true elements
+	 * @return a list of clauses
+	 */
+	public List<Formula> between(List<? extends Formula> elements, int min, int max) {
+		final List<Formula> clauses = new ArrayList<>(atLeast(elements, min));
+		clauses.addAll(atMost(elements, max));
+		return clauses;
+	}
+
+	/**
+	 * Encodes that at most {@code k} elements are false, i.e., that at most
+	 * {@code k} of the given negated elements are true.
+	 */
+	private List<Formula> encode(List<? extends Formula> negatedElements, int k) {
+		final int n = negatedElements.size();
+		if ((k == 0) || (variableMap == null) || (encoding == Encoding.BINOMIAL)
+			|| (getNumberOfBinomialClauses(n, k + 1) <= maximumNumberOfBinomialClauses)) {
+			return binomial(negatedElements, k);
+		}
+		final List<Formula> clauses = new ArrayList<>();
+		switch (encoding) {
+		case TOTALIZER:
+			totalizer(negatedElements, k, clauses);
+			break;
+		case COMMANDER:
+			if (k == 1) {
+				commander(negatedElements, clauses);
+			} else {
+				sequentialCounter(negatedElements, k, clauses);
+			}
+			break;
+		case BIMANDER:
+			if (k == 1) {
+				bimander(negatedElements, clauses);
+			} else {
+				sequentialCounter(negatedElements, k, clauses);
+			}
+			break;
+		case SEQUENTIAL_COUNTER:
+		default:
+			sequentialCounter(negatedElements, k, clauses);
+			break;
+		}
+		return clauses;
+	}
+
+	private static long getNumberOfBinomialClauses(int n, int k) {
+		final int r = Math.min(k, n - k);
+		long binomial = 1;
+		for (int i = 1; i <= r; i++) {
+			if (binomial > (Long.MAX_VALUE / n)) {
+				return Long.MAX_VALUE;
+			}
+			binomial = (binomial * ((n - r) + i)) / i;
+		}
+		return binomial;
+	}
+
+	private static List<Formula> binomial(List<? extends Formula> negatedElements, int k) {
+		final int n = negatedElements.size();
+		final List<Formula> groupedElements = new ArrayList<>();
+		final Formula[] clause = new Formula[k + 1];
+		final int[] index = new int[k + 1];
+
+		// the position that is currently filled in clause
+		int level = 0;
+		index[level] = -1;
+
+		while (level >= 0) {
+			// fill this level with the next element
+			index[level]++;
+			// did we reach the maximum for this level
+			if (index[level] >= (n - (k - level))) {
+				// go to previous level
+				level--;
+			} else {
+				clause[level] = negatedElements.get(index[level]);
+				if (level == k) {
+					groupedElements.add(new Or(Arrays.copyOf(clause, clause.length)));
+				} else {
+					// go to next level
+					level++;
+					// allow only ascending orders (to prevent from duplicates)
+					index[level] = index[level - 1];
+				}
+			}
+		}
+		return groupedElements;
+	}
+
+	private void sequentialCounter(List<? extends Formula> negatedElements, int k, List<Formula> clauses) {
+		final int n = negatedElements.size();
+		// counter[i][j] is true if at least j + 1 of the first i + 1 elements are true
+		final BoolVariable[][] counter = new BoolVariable[n - 1][k];
+		for (int i = 0; i < (n - 1); i++) {
+			for (int j = 0; j < k; j++) {
+				counter[i][j] = newVariable();
+			}
+		}
+		clauses.add(new Or(negatedElements.get(0), literal(counter[0][0], true)));
+		for (int j = 1; j < k; j++) {
+			clauses.add(new Or(literal(counter[0][j], false)));
+		}
+		for (int i = 1; i < (n - 1); i++) {
+			final Formula negatedElement = negatedElements.get(i);
+			clauses.add(new Or(negatedElement, literal(counter[i][0], true)));
+			clauses.add(new Or(literal(counter[i - 1][0], false), literal(counter[i][0], true)));
+			for (int j = 1; j < k; j++) {
+				clauses.add(new Or(negatedElement, literal(counter[i - 1][j - 1], false), literal(counter[i][j],
+					true)));
+				clauses.add(new Or(literal(counter[i - 1][j], false), literal(counter[i][j], true)));
+			}
+			clauses.add(new Or(negatedElement, literal(counter[i - 1][k - 1], false)));
+		}
+		clauses.add(new Or(negatedElements.get(n - 1), literal(counter[n - 2][k - 1], false)));
+	}
+
+	private void totalizer(List<? extends Formula> negatedElements, int k, List<Formula> clauses) {
+		final Formula[] negatedOutputs = totalizer(negatedElements, 0, negatedElements.size(), k, clauses);
+		if (negatedOutputs.length > k) {
+			clauses.add(new Or(negatedOutputs[k]));
+		}
+	}
+
+	/**
+	 * Creates a totalizer node for the given range of elements.
+	 *
+	 * @return the negated outputs of the node, where output {@code i} is true if
+	 *         at least {@code i + 1} elements are true
+	 */
+	private Formula[] totalizer(List<? extends Formula> negatedElements, int from, int to, int k,
+		List<Formula> clauses) {
+		if ((to - from) == 1) {
+			return new Formula[] { negatedElements.get(from) };
+		}
+		final int middle = (from + to) >>> 1;
+		final Formula[] left = totalizer(negatedElements, from, middle, k, clauses);
+		final Formula[] right = totalizer(negatedElements, middle, to, k, clauses);
+		final BoolVariable[] outputs = new BoolVariable[Math.min(left.length + right.length, k + 1)];
+		for (int i = 0; i < outputs.length; i++) {
+			outputs[i] = newVariable();
+		}
+		for (int i = 0; i <= left.length; i++) {
+			for (int j = 0; j <= right.length; j++) {
+				final int sum = i + j;
+				if ((sum > 0) && (sum <= outputs.length)) {
+					final List<Formula> clause = new ArrayList<>(3);
+					if (i > 0) {
+						clause.add(left[i - 1]);
+					}
+					if (j > 0) {
+						clause.add(right[j - 1]);
+					}
+					clause.add(literal(outputs[sum - 1], true));
+					clauses.add(new Or(clause));
+				}
+			}
+		}
+		final Formula[] negatedOutputs = new Formula[outputs.length];
+		for (int i = 0; i < outputs.length; i++) {
+			negatedOutputs[i] = literal(outputs[i], false);
+		}
+		return negatedOutputs;
+	}
+
+	private void commander(List<? extends Formula> negatedElements, List<Formula> clauses) {
+		if (negatedElements.size() <= (2 * COMMANDER_GROUP_SIZE)) {
+			clauses.addAll(binomial(negatedElements, 1));
+			return;
+		}
+		final List<Formula> negatedCommanders = new ArrayList<>();
+		for (int i = 0; i < negatedElements.size(); i += COMMANDER_GROUP_SIZE) {
+			final List<? extends Formula> group = negatedElements.subList(i, Math.min(i + COMMANDER_GROUP_SIZE,
+				negatedElements.size()));
+			final BoolVariable commander = newVariable();
+			clauses.addAll(binomial(group, 1));
+			for (final Formula negatedElement : group) {
+				clauses.add(new Or(negatedElement, literal(commander, true)));
+			}
+			negatedCommanders.add(literal(commander, false));
+		}
+		commander(negatedCommanders, clauses);
+	}
+
+	private void bimander(List<? extends Formula> negatedElements, List<Formula> clauses) {
+		final int groupCount = ((negatedElements.size() + BIMANDER_GROUP_SIZE) - 1) / BIMANDER_GROUP_SIZE;
+		final int bitCount = 32 - Integer.numberOfLeadingZeros(groupCount - 1);
+		final BoolVariable[] bits = new BoolVariable[bitCount];
+		for (int i = 0; i < bitCount; i++) {
+			bits[i] = newVariable();
+		}
+		for (int group = 0; group < groupCount; group++) {
+			final List<? extends Formula> groupElements = negatedElements.subList(group * BIMANDER_GROUP_SIZE, Math
+				.min((group + 1) * BIMANDER_GROUP_SIZE, negatedElements.size()));
+			clauses.addAll(binomial(groupElements, 1));
+			for (final Formula negatedElement : groupElements) {
+				for (int i = 0; i < bitCount; i++) {
+					clauses.add(new Or(negatedElement, literal(bits[i], ((group >>> i) & 1) != 0)));
+				}
+			}
+		}
+	}
+
+	private BoolVariable newVariable() {
+		Optional<BoolVariable> variable;
+		do {
+			variable = variableMap.addBooleanVariable(TseytinTransformer.AUXILIARY_VARIABLE_PREFIX + "c" + count++);
+		} while (variable.isEmpty());
+		return variable.get();
+	}
+
+	private Literal literal(BoolVariable variable, boolean positive) {
+		return variableMap.getLiteral(variable.getIndex(), positive).get();
+	}
+
+}
@@ -27,13 +27,68 @@ import java.util.*;
 import org.spldev.formula.expression.*;
 import org.spldev.formula.expression.atomic.*;
 import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.transform.NormalForms.*;
 import org.spldev.util.tree.visitor.*;
 
-public class DistributiveLawCounter implements TreeVisitor<Integer, Formula> {
+/**
+ * Estimates the size of the result of the {@link DistributiveLawTransformer
+ * distributive law} for a formula in negation normal form without actually
+ * transforming it. The estimates are upper bounds, as tautologies and subsumed
+ * clauses are not taken into account. All numbers saturate at
+ * {@link Long#MAX_VALUE} instead of overflowing. Compound formulas other than
+ * And and Or cannot be transformed and are estimated with
+ * {@link Long#MAX_VALUE}.
+ *
+ * @author Sebastian Krieter
+ */
+public class DistributiveLawCounter implements TreeVisitor<DistributiveLawCounter.Estimate, Formula> {
+
+	/**
+	 * The estimated size of a transformed formula.
+	 */
+	public static final class Estimate {
+
+		private final long numberOfClauses;
+		private final long numberOfLiterals;
+		private final long maximumNumberOfStepLiterals;
+
+		private Estimate(long numberOfClauses, long numberOfLiterals, long maximumNumberOfStepLiterals) {
+			this.numberOfClauses = numberOfClauses;
+			this.numberOfLiterals = numberOfLiterals;
+			this.maximumNumberOfStepLiterals = maximumNumberOfStepLiterals;
+		}
+
+		public long getNumberOfClauses() {
+			return numberOfClauses;
+		}
+
+		public long getNumberOfLiterals() {
+			return numberOfLiterals;
+		}
+
+		/**
+		 * Returns the largest number of literals created by distributing a single
+		 * clause over its children. This number corresponds to the one that is
+		 * compared against {@link DistributiveLawTransformer#getMaximumNumberOfLiterals()}.
+		 *
+		 * @return the number of literals
+		 */
+		public long getMaximumNumberOfStepLiterals() {
+			return maximumNumberOfStepLiterals;
+		}
+
+		@Override
+		public String toString() {
+			return "Estimate [clauses=" + numberOfClauses + ", literals=" + numberOfLiterals + ", maxStepLiterals="
+				+ maximumNumberOfStepLiterals + "]";
+		}
+
+	}
 
 	private static class StackElement {
-		int clauseNumber = 1;
-		int clauseSize = 1;
+		long clauseNumber = 1;
+		long literalNumber = 1;
+		long maxStepLiteralNumber = 0;
 		Formula node;
 
 		public StackElement(Formula node) {
@@ -41,16 +96,39 @@ public class DistributiveLawCounter implements TreeVisitor<Integer, Formula> {
 		}
 	}
 
+	private final Class<? extends Compound> clauseClass;
+	private final Class<? extends Compound> formulaClass;
+
 	private ArrayDeque<StackElement> stack = new ArrayDeque<>();
 
+	public DistributiveLawCounter() {
+		this(NormalForm.CNF);
+	}
+
+	public DistributiveLawCounter(NormalForm normalForm) {
+		switch (normalForm) {
+		case CNF:
+			clauseClass = Or.class;
+			formulaClass = And.class;
+			break;
+		case DNF:
+			clauseClass = And.class;
+			formulaClass = Or.class;
+			break;
+		default:
+			throw new IllegalStateException(String.valueOf(normalForm));
+		}
+	}
+
 	@Override
 	public void reset() {
 		stack.clear();
 	}
 
 	@Override
-	public Integer getResult() { // TODO BigInteger?
-		return stack.pop().clauseNumber;
+	public Estimate getResult() {
+		final StackElement element = stack.pop();
+		return new Estimate(element.clauseNumber, element.literalNumber, element.maxStepLiteralNumber);
 	}
 
 	@Override
@@ -74,30 +152,59 @@ public class DistributiveLawCounter implements TreeVisitor<Integer, Formula> {
 		} else {
 			final ArrayList<StackElement> children = new ArrayList<>();
 			StackElement lastNode = stack.pop();
-			boolean invalid = false;
 			for (; lastNode.node != node; lastNode = stack.pop()) {
 				children.add(lastNode);
-				if (lastNode.clauseNumber < 0) {
-					invalid = true;
-				}
 			}
-			if (invalid) {
-				lastNode.clauseNumber = -1;
-			} else {
-				try {
-					for (final StackElement child : children) {
-						for (int i = 0; i < child.clauseNumber; i++) {
-							lastNode.clauseNumber = Math.multiplyExact(lastNode.clauseNumber, child.clauseSize);
-						}
-					}
-				} catch (final ArithmeticException e) {
-					lastNode.clauseNumber = -1;
+			long maxStepLiteralNumber = 0;
+			for (final StackElement child : children) {
+				maxStepLiteralNumber = Math.max(maxStepLiteralNumber, child.maxStepLiteralNumber);
+			}
+			if (clauseClass.isInstance(node)) {
+				// each new clause contains one clause of each child
+				long clauseNumber = 1;
+				long literalNumber = 0;
+				boolean distributed = false;
+				for (final StackElement child : children) {
+					literalNumber = add(multiply(literalNumber, child.clauseNumber), multiply(child.literalNumber,
+						clauseNumber));
+					clauseNumber = multiply(clauseNumber, child.clauseNumber);
+					distributed |= !(child.node instanceof Atomic);
 				}
-				lastNode.clauseSize = children.size();
+				lastNode.clauseNumber = clauseNumber;
+				lastNode.literalNumber = literalNumber;
+				lastNode.maxStepLiteralNumber = distributed
+					? Math.max(maxStepLiteralNumber, literalNumber)
+					: maxStepLiteralNumber;
+			} else if (formulaClass.isInstance(node) || (node instanceof AuxiliaryRoot)) {
+				long clauseNumber = 0;
+				long literalNumber = 0;
+				for (final StackElement child : children) {
+					clauseNumber = add(clauseNumber, child.clauseNumber);
+					literalNumber = add(literalNumber, child.literalNumber);
+				}
+				lastNode.clauseNumber = clauseNumber;
+				lastNode.literalNumber = literalNumber;
+				lastNode.maxStepLiteralNumber = maxStepLiteralNumber;
+			} else {
+				lastNode.clauseNumber = Long.MAX_VALUE;
+				lastNode.literalNumber = Long.MAX_VALUE;
+				lastNode.maxStepLiteralNumber = Long.MAX_VALUE;
 			}
 			stack.push(lastNode);
 		}
 		return TreeVisitor.super.lastVisit(path);
 	}
 
+	private static long add(long a, long b) {
+		final long result = a + b;
+		return result < 0 ? Long.MAX_VALUE : result;
+	}
+
+	private static long multiply(long a, long b) {
+		if ((a == 0) || (b == 0)) {
+			return 0;
+		}
+		return a > (Long.MAX_VALUE / b) ? Long.MAX_VALUE : a * b;
+	}
+
 }
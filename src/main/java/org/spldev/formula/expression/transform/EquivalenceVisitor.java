@@ -23,18 +23,58 @@
 package org.spldev.formula.expression.transform;
 
 import java.util.*;
-import java.util.stream.*;
 
 import org.spldev.formula.expression.*;
 import org.spldev.formula.expression.atomic.*;
-import org.spldev.formula.expression.atomic.literal.*;
 import org.spldev.formula.expression.compound.*;
 import org.spldev.formula.expression.term.*;
 import org.spldev.util.tree.visitor.*;
 
+/**
+ * Replaces implications, equivalences, and cardinality constraints by
+ * conjunctions and disjunctions. Cardinality constraints are encoded with a
+ * {@link CardinalityEncoder}. As its auxiliary variables only preserve
+ * satisfiability if the encoding is not negated, the encoding depends on the
+ * polarity of the constraint. A negated constraint is encoded as the negation of
+ * its complement (e.g., not at most {@code k} as not at least {@code k + 1}), and
+ * a constraint with both polarities (e.g., within an equivalence) is encoded
+ * with the binomial encoding.
+ *
+ * @author Sebastian Krieter
+ */
 public class EquivalenceVisitor implements TreeVisitor<Void, Expression> {
 
+	private static final int POSITIVE = 1;
+	private static final int NEGATIVE = -1;
+	private static final int MIXED = 0;
+
+	private final CardinalityEncoder cardinalityEncoder;
+	private final CardinalityEncoder binomialEncoder = new CardinalityEncoder();
 	private boolean fail;
+	private Expression parent;
+	private int parentPolarity;
+	/**
+	 * The polarity of each node on the current path, indexed by its depth.
+	 */
+	private int[] polarities = new int[16];
+
+	/**
+	 * Creates a visitor that encodes cardinality constraints with the binomial
+	 * encoding.
+	 */
+	public EquivalenceVisitor() {
+		this(new CardinalityEncoder());
+	}
+
+	/**
+	 * Creates a visitor that encodes cardinality constraints with the given
+	 * encoder.
+	 *
+	 * @param cardinalityEncoder the encoder for cardinality constraints
+	 */
+	public EquivalenceVisitor(CardinalityEncoder cardinalityEncoder) {
+		this.cardinalityEncoder = cardinalityEncoder;
+	}
 
 	@Override
 	public void reset() {
@@ -44,6 +84,11 @@ public class EquivalenceVisitor implements TreeVisitor<Void, Expression> {
 	@Override
 	public VisitorResult firstVisit(List<Expression> path) {
 		final Expression node = TreeVisitor.getCurrentNode(path);
+		final int depth = path.size() - 1;
+		if (depth == polarities.length) {
+			polarities = Arrays.copyOf(polarities, depth << 1);
+		}
+		polarities[depth] = (depth == 0) ? POSITIVE : getPolarity(polarities[depth - 1], path.get(depth - 1), node);
 		if (node instanceof Atomic) {
 			return VisitorResult.SkipChildren;
 		} else if (node instanceof Compound) {
@@ -61,13 +106,38 @@ public class EquivalenceVisitor implements TreeVisitor<Void, Expression> {
 	@Override
 	public VisitorResult lastVisit(List<Expression> path) {
 		final Expression node = TreeVisitor.getCurrentNode(path);
+		parent = node;
+		parentPolarity = polarities[path.size() - 1];
 		node.mapChildren(this::replace);
+		parent = null;
 		if (fail) {
 			return VisitorResult.Fail;
 		}
 		return VisitorResult.Continue;
 	}
 
+	/**
+	 * @return the polarity of the given child with respect to the polarity of its
+	 *         parent
+	 */
+	private static int getPolarity(int polarity, Expression parent, Expression child) {
+		if (polarity == MIXED) {
+			return MIXED;
+		} else if (parent instanceof Not) {
+			return -polarity;
+		} else if (parent instanceof Implies) {
+			final List<? extends Expression> children = parent.getChildren();
+			if (children.get(0) != child) {
+				return polarity;
+			}
+			return children.get(1) == child ? MIXED : -polarity;
+		} else if ((parent instanceof Biimplies) || (parent instanceof Cardinal)) {
+			return MIXED;
+		} else {
+			return polarity;
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	private Formula replace(Expression node) {
 		if (((node instanceof Variable<?>) || (node instanceof Atomic) || (node instanceof And) || (node instanceof Or)
@@ -82,20 +152,8 @@ public class EquivalenceVisitor implements TreeVisitor<Void, Expression> {
 			newNode = new And( //
 				new Or(new Not(children.get(0)), children.get(1)),
 				new Or(new Not(children.get(1)), children.get(0)));
-		} else if (node instanceof AtLeast) {
-			newNode = new And(atLeastK(children, ((AtLeast) node).getMin()));
-		} else if (node instanceof AtMost) {
-			newNode = new And(atMostK(children, ((AtMost) node).getMax()));
-		} else if (node instanceof Between) {
-			final Between between = (Between) node;
-			newNode = new And(
-				new And(atLeastK(children, between.getMin())),
-				new And(atMostK(children, between.getMax())));
-		} else if (node instanceof Choose) {
-			final Choose choose = (Choose) node;
-			newNode = new And(
-				new And(atLeastK(children, choose.getK())),
-				new And(atMostK(children, choose.getK())));
+		} else if (node instanceof Cardinal) {
+			newNode = encode((Cardinal) node, children, getPolarity(parentPolarity, parent, node));
 		} else {
 			fail = true;
 			return null;
@@ -103,74 +161,31 @@ public class EquivalenceVisitor implements TreeVisitor<Void, Expression> {
 		return newNode;
 	}
 
-	private List<Formula> atMostK(List<? extends Formula> elements, int k) {
-		final int n = elements.size();
-
-		// return tautology
-		if (k <= 0) {
-			return Arrays.asList(Literal.False);
-		}
-
-		// return contradiction
-		if (k > n) {
-			return Arrays.asList(Literal.True);
-		}
-
-		return groupElements(
-			elements.stream().map(Not::new).collect(Collectors.toList()), k, n);
-	}
-
-	private List<Formula> atLeastK(List<? extends Formula> elements, int k) {
-		final int n = elements.size();
-
-		// return tautology
-		if (k <= 0) {
-			return Arrays.asList(Literal.True);
-		}
-
-		// return contradiction
-		if (k > n) {
-			return Arrays.asList(Literal.False);
+	private Formula encode(Cardinal cardinal, List<Formula> children, int polarity) {
+		final int n = children.size();
+		final int min = cardinal.getMin();
+		final int max = Math.min(cardinal.getMax(), n);
+		if ((polarity == POSITIVE) || (cardinalityEncoder.getVariableMap() == null)) {
+			return encode(cardinalityEncoder, children, min, max);
+		} else if (polarity == MIXED) {
+			return encode(binomialEncoder, children, min, max);
+		} else {
+			return new Not(new Or( //
+				new And(cardinalityEncoder.atMost(children, min - 1)),
+				new And(cardinalityEncoder.atLeast(children, max + 1))));
 		}
-
-		return groupElements(elements, n - k, n);
 	}
 
-	private List<Formula> groupElements(List<? extends Formula> elements, int k, final int n) {
-		final List<Formula> groupedElements = new ArrayList<>();
-		final Formula[] clause = new Formula[k + 1];
-		final int[] index = new int[k + 1];
-
-		// the position that is currently filled in clause
-		int level = 0;
-		index[level] = -1;
-
-		while (level >= 0) {
-			// fill this level with the next element
-			index[level]++;
-			// did we reach the maximum for this level
-			if (index[level] >= (n - (k - level))) {
-				// go to previous level
-				level--;
-			} else {
-				clause[level] = elements.get(index[level]);
-				if (level == k) {
-					final Formula[] clonedClause = new Formula[clause.length];
-					Arrays.copyOf(clause, clause.length);
-					for (int i = 0; i < clause.length; i++) {
-//						clonedClause[i] = Trees.cloneTree(clause[i]);
-						clonedClause[i] = clause[i];
-					}
-					groupedElements.add(new Or(clonedClause));
-				} else {
-					// go to next level
-					level++;
-					// allow only ascending orders (to prevent from duplicates)
-					index[level] = index[level - 1];
-				}
-			}
+	private static Formula encode(CardinalityEncoder encoder, List<Formula> children, int min, int max) {
+		if (min <= 0) {
+			return new And(encoder.atMost(children, max));
+		} else if (max >= children.size()) {
+			return new And(encoder.atLeast(children, min));
+		} else {
+			return new And( //
+				new And(encoder.atLeast(children, min)),
+				new And(encoder.atMost(children, max)));
 		}
-		return groupedElements;
 	}
 
 }
@@ -0,0 +1,392 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.transform;
+
+import java.util.*;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.term.*;
+import org.spldev.formula.expression.term.attribute.*;
+import org.spldev.formula.expression.term.integer.*;
+import org.spldev.formula.expression.term.real.*;
+import org.spldev.util.job.*;
+
+/**
+ * Replaces nested integer and real terms by {@link LinearSum linear sums}.
+ * Chains of {@link Add} and {@link Sum} nodes are flattened into a single
+ * linear sum, in which equal operands are merged by adding their coefficients.
+ * {@link Multiply} and {@link Product} nodes with at most one non-constant
+ * factor scale the coefficients of this factor. All other terms (e.g.,
+ * {@link Average}, divisions, or products of several variables) are kept as
+ * operands, but their children are transformed as well.<br>
+ * The formula is traversed iteratively, such that arbitrarily deep terms are
+ * supported. Real sums may differ from the original terms by rounding errors,
+ * as additions are reordered. The given formula is not modified.
+ *
+ * @author Sebastian Krieter
+ */
+public class LinearSumTransformer implements Transformer {
+
+	/**
+	 * A linear expression under construction. If it was not modified since its
+	 * creation, it refers to its original term.
+	 */
+	private abstract static class Form {
+		protected final HashMap<Term<?>, Integer> indices = new HashMap<>();
+		protected final ArrayList<Term<?>> operands = new ArrayList<>();
+		protected Term<?> origin;
+
+		protected int indexOf(Term<?> operand) {
+			Integer index = indices.get(operand);
+			if (index == null) {
+				index = operands.size();
+				indices.put(operand, index);
+				operands.add(operand);
+				ensureCapacity(operands.size());
+			}
+			return index;
+		}
+
+		protected boolean isConstant() {
+			return operands.isEmpty();
+		}
+
+		protected Term<?> toTerm() {
+			return origin != null ? origin : createTerm();
+		}
+
+		protected abstract void ensureCapacity(int size);
+
+		protected abstract void addOperand(Term<?> operand);
+
+		protected abstract void add(Form other);
+
+		protected abstract void multiply(Form constantForm);
+
+		protected abstract Term<?> createTerm();
+	}
+
+	private static final class IntForm extends Form {
+		private long[] coefficients = new long[4];
+		private long constant = 0;
+
+		@Override
+		protected void ensureCapacity(int size) {
+			if (coefficients.length < size) {
+				coefficients = Arrays.copyOf(coefficients, size << 1);
+			}
+		}
+
+		@Override
+		protected void addOperand(Term<?> operand) {
+			final int index = indexOf(operand);
+			coefficients[index]++;
+		}
+
+		@Override
+		protected void add(Form other) {
+			final IntForm otherForm = (IntForm) other;
+			for (int i = 0; i < otherForm.operands.size(); i++) {
+				final int index = indexOf(otherForm.operands.get(i));
+				coefficients[index] += otherForm.coefficients[i];
+			}
+			constant += otherForm.constant;
+			origin = null;
+		}
+
+		@Override
+		protected void multiply(Form constantForm) {
+			final long factor = ((IntForm) constantForm).constant;
+			for (int i = 0; i < operands.size(); i++) {
+				coefficients[i] *= factor;
+			}
+			constant *= factor;
+			origin = null;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		protected Term<?> createTerm() {
+			final List<Term<Long>> newOperands = new ArrayList<>(operands.size());
+			final long[] newCoefficients = new long[operands.size()];
+			for (int i = 0; i < operands.size(); i++) {
+				if (coefficients[i] != 0) {
+					newCoefficients[newOperands.size()] = coefficients[i];
+					newOperands.add((Term<Long>) operands.get(i));
+				}
+			}
+			if (newOperands.isEmpty()) {
+				return new IntConstant(constant);
+			} else if ((newOperands.size() == 1) && (newCoefficients[0] == 1) && (constant == 0)) {
+				return newOperands.get(0);
+			} else {
+				return new IntLinearSum(newOperands, Arrays.copyOf(newCoefficients, newOperands.size()), constant);
+			}
+		}
+	}
+
+	private static final class RealForm extends Form {
+		private double[] coefficients = new double[4];
+		private double constant = 0;
+
+		@Override
+		protected void ensureCapacity(int size) {
+			if (coefficients.length < size) {
+				coefficients = Arrays.copyOf(coefficients, size << 1);
+			}
+		}
+
+		@Override
+		protected void addOperand(Term<?> operand) {
+			final int index = indexOf(operand);
+			coefficients[index]++;
+		}
+
+		@Override
+		protected void add(Form other) {
+			final RealForm otherForm = (RealForm) other;
+			for (int i = 0; i < otherForm.operands.size(); i++) {
+				final int index = indexOf(otherForm.operands.get(i));
+				coefficients[index] += otherForm.coefficients[i];
+			}
+			constant += otherForm.constant;
+			origin = null;
+		}
+
+		@Override
+		protected void multiply(Form constantForm) {
+			final double factor = ((RealForm) constantForm).constant;
+			for (int i = 0; i < operands.size(); i++) {
+				coefficients[i] *= factor;
+			}
+			constant *= factor;
+			origin = null;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		protected Term<?> createTerm() {
+			final List<Term<Double>> newOperands = new ArrayList<>(operands.size());
+			final double[] newCoefficients = new double[operands.size()];
+			for (int i = 0; i < operands.size(); i++) {
+				if (coefficients[i] != 0) {
+					newCoefficients[newOperands.size()] = coefficients[i];
+					newOperands.add((Term<Double>) operands.get(i));
+				}
+			}
+			if (newOperands.isEmpty()) {
+				return new RealConstant(constant);
+			} else if ((newOperands.size() == 1) && (newCoefficients[0] == 1) && (constant == 0)) {
+				return newOperands.get(0);
+			} else {
+				return new RealLinearSum(newOperands, Arrays.copyOf(newCoefficients, newOperands.size()), constant);
+			}
+		}
+	}
+
+	private static final class Frame {
+		private final Expression node;
+		private final List<Object> results;
+		private int index = 0;
+
+		private Frame(Expression node) {
+			this.node = node;
+			results = new ArrayList<>(node.getChildren().size());
+		}
+	}
+
+	private final ArrayDeque<Frame> stack = new ArrayDeque<>();
+
+	@Override
+	public Formula execute(Formula formula, InternalMonitor monitor) {
+		try {
+			return (Formula) toExpression(transform(formula));
+		} finally {
+			stack.clear();
+		}
+	}
+
+	/**
+	 * Transforms all nodes of the given expression in post-order.
+	 *
+	 * @return the transformed expression or a {@link Form} if the expression is a
+	 *         numeric term
+	 */
+	private Object transform(Expression expression) {
+		final Object root = transformLeaf(expression);
+		if (root != null) {
+			return root;
+		}
+		stack.push(new Frame(expression));
+		while (true) {
+			final Frame frame = stack.peek();
+			final List<? extends Expression> children = frame.node.getChildren();
+			if (frame.index < children.size()) {
+				final Expression child = children.get(frame.index++);
+				final Object result = transformLeaf(child);
+				if (result != null) {
+					frame.results.add(result);
+				} else {
+					stack.push(new Frame(child));
+				}
+			} else {
+				stack.pop();
+				final Object result = transformNode(frame.node, frame.results);
+				if (stack.isEmpty()) {
+					return result;
+				}
+				stack.peek().results.add(result);
+			}
+		}
+	}
+
+	/**
+	 * @return the transformed leaf or {@code null} if the given node has children
+	 *         that must be transformed first
+	 */
+	private static Object transformLeaf(Expression node) {
+		if (node instanceof LiteralPredicate) {
+			return node;
+		} else if (!node.getChildren().isEmpty()) {
+			return null;
+		} else if (!isNumeric(node)) {
+			return node;
+		} else if (node instanceof Constant) {
+			final Object value = ((Constant<?>) node).getValue();
+			if (value == null) {
+				return createOperand(node);
+			}
+			final Form form;
+			if (value instanceof Long) {
+				final IntForm intForm = new IntForm();
+				intForm.constant = (Long) value;
+				form = intForm;
+			} else {
+				final RealForm realForm = new RealForm();
+				realForm.constant = (Double) value;
+				form = realForm;
+			}
+			form.origin = (Term<?>) node;
+			return form;
+		} else {
+			return createOperand(node);
+		}
+	}
+
+	private static Object transformNode(Expression node, List<Object> results) {
+		if (isNumeric(node) && !results.isEmpty() && results.stream().allMatch(result -> result instanceof Form)) {
+			if ((node instanceof Add) || (node instanceof Sum)) {
+				return add(results);
+			} else if ((node instanceof Multiply) || (node instanceof Product)) {
+				final Form form = multiply(results);
+				if (form != null) {
+					return form;
+				}
+			}
+		}
+		final Expression newNode = replaceChildren(node, results);
+		return isNumeric(node) ? createOperand(newNode) : newNode;
+	}
+
+	private static Form add(List<Object> results) {
+		Form sum = (Form) results.get(0);
+		for (final Object result : results) {
+			if (((Form) result).operands.size() > sum.operands.size()) {
+				sum = (Form) result;
+			}
+		}
+		for (final Object result : results) {
+			if (result != sum) {
+				sum.add((Form) result);
+			}
+		}
+		sum.origin = null;
+		return sum;
+	}
+
+	/**
+	 * @return the product of the given factors or {@code null} if more than one
+	 *         factor is not constant
+	 */
+	private static Form multiply(List<Object> results) {
+		Form product = null;
+		for (final Object result : results) {
+			if (!((Form) result).isConstant()) {
+				if (product != null) {
+					return null;
+				}
+				product = (Form) result;
+			}
+		}
+		if (product == null) {
+			product = (Form) results.get(0);
+		}
+		for (final Object result : results) {
+			if (result != product) {
+				product.multiply((Form) result);
+			}
+		}
+		product.origin = null;
+		return product;
+	}
+
+	private static Form createOperand(Expression node) {
+		final Form form = ((Term<?>) node).getType() == Long.class ? new IntForm() : new RealForm();
+		form.addOperand((Term<?>) node);
+		form.origin = (Term<?>) node;
+		return form;
+	}
+
+	private static boolean isNumeric(Expression node) {
+		if (node instanceof Term) {
+			final Class<?> type = ((Term<?>) node).getType();
+			return (type == Long.class) || (type == Double.class);
+		}
+		return false;
+	}
+
+	private static Expression toExpression(Object result) {
+		return result instanceof Form ? ((Form) result).toTerm() : (Expression) result;
+	}
+
+	private static Expression replaceChildren(Expression node, List<Object> results) {
+		final List<? extends Expression> children = node.getChildren();
+		final List<Expression> newChildren = new ArrayList<>(results.size());
+		boolean changed = false;
+		for (int i = 0; i < results.size(); i++) {
+			final Expression newChild = toExpression(results.get(i));
+			newChildren.add(newChild);
+			if (newChild != children.get(i)) {
+				changed = true;
+			}
+		}
+		if (!changed) {
+			return node;
+		}
+		final Expression newNode = node.cloneNode();
+		newNode.setChildren(newChildren);
+		return newNode;
+	}
+
+}
@@ -0,0 +1,293 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ *
+ * This file is part of Formula Lib.
+ *
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.transform;
+
+import java.util.*;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.term.bool.*;
+import org.spldev.util.job.*;
+
+/**
+ * Transforms a formula into negation normal form in a single iterative pass.
+ * Each subformula is visited together with its polarity, such that negations
+ * are pushed down without creating intermediate {@link Not} nodes.
+ * Implications, equivalences, and cardinality constraints are expanded, nested
+ * {@link And}s and {@link Or}s are flattened, and constants are folded while
+ * descending. Thus, each node of the result is created exactly once. A
+ * subformula that occurs several times with the same polarity is transformed
+ * only once and shared in the result.<br>
+ * Negated cardinality constraints are encoded as their complement (e.g., not at
+ * least {@code k} as at most {@code k - 1}), which keeps encodings with
+ * auxiliary variables satisfiability preserving. The given formula is not
+ * modified.<br>
+ * The expansion of an equivalence or a cardinality constraint references its
+ * operands several times. Thus, the result is a directed acyclic graph, which
+ * grows exponentially when it is copied as a tree (e.g., for nested
+ * equivalences). If a {@link #setVariableMap(VariableMap) variable map} is
+ * set, each non-literal operand of an equivalence or a cardinality constraint
+ * is instead replaced by a new variable, which is defined to be equivalent to
+ * the operand at the root of the result. Then, the result is a tree of linear
+ * size that has the same number of models as the given formula.
+ *
+ * @author Sebastian Krieter
+ */
+public class NNFTransformer implements Transformer {
+
+	/**
+	 * A junction of the result and the remaining subformulas (with polarity) that
+	 * are transformed into its children.
+	 */
+	private static final class Frame {
+		private final Formula node;
+		private final boolean positive;
+		private final boolean conjunction;
+		private final ArrayList<Formula> operands = new ArrayList<>();
+		private final ArrayList<Boolean> polarities = new ArrayList<>();
+		private final ArrayList<Formula> children = new ArrayList<>();
+		private int index = 0;
+		private boolean absorbed = false;
+
+		private Frame(Formula node, boolean positive, boolean conjunction) {
+			this.node = node;
+			this.positive = positive;
+			this.conjunction = conjunction;
+		}
+
+		private void addOperand(Formula operand, boolean positive) {
+			operands.add(operand);
+			polarities.add(positive);
+		}
+
+		private void addChild(Formula child) {
+			if (child == (conjunction ? Literal.False : Literal.True)) {
+				absorbed = true;
+			} else if (child == (conjunction ? Literal.True : Literal.False)) {
+				return;
+			} else if (conjunction ? (child instanceof And) : (child instanceof Or)) {
+				children.addAll(((Compound) child).getChildren());
+			} else {
+				children.add(child);
+			}
+		}
+
+		private boolean hasNext() {
+			return !absorbed && (index < operands.size());
+		}
+
+		private Formula build() {
+			if (absorbed) {
+				return conjunction ? Literal.False : Literal.True;
+			}
+			switch (children.size()) {
+			case 0:
+				return conjunction ? Literal.True : Literal.False;
+			case 1:
+				return children.get(0);
+			default:
+				return conjunction ? new And(children) : new Or(children);
+			}
+		}
+	}
+
+	private final CardinalityEncoder cardinalityEncoder;
+
+	private final IdentityHashMap<Formula, Formula> positiveResults = new IdentityHashMap<>();
+	private final IdentityHashMap<Formula, Formula> negativeResults = new IdentityHashMap<>();
+	private final IdentityHashMap<Formula, Literal> definitions = new IdentityHashMap<>();
+	private final ArrayDeque<Frame> stack = new ArrayDeque<>();
+	private Frame root;
+
+	private VariableMap variableMap;
+	private int count = 0;
+
+	/**
+	 * Creates a transformer that encodes cardinality constraints with the binomial
+	 * encoding.
+	 */
+	public NNFTransformer() {
+		this(new CardinalityEncoder());
+	}
+
+	/**
+	 * Creates a transformer that encodes cardinality constraints with the given
+	 * encoder.
+	 *
+	 * @param cardinalityEncoder the encoder for cardinality constraints
+	 */
+	public NNFTransformer(CardinalityEncoder cardinalityEncoder) {
+		this.cardinalityEncoder = cardinalityEncoder;
+	}
+
+	public VariableMap getVariableMap() {
+		return variableMap;
+	}
+
+	/**
+	 * Sets the variable map to which variables for the operands of equivalences
+	 * and cardinality constraints are added.
+	 *
+	 * @param variableMap the variable map or {@code null} to copy the operands
+	 *                    instead
+	 */
+	public void setVariableMap(VariableMap variableMap) {
+		this.variableMap = variableMap;
+	}
+
+	@Override
+	public Formula execute(Formula formula, InternalMonitor monitor) {
+		try {
+			root = new Frame(null, true, true);
+			root.addOperand(formula, true);
+			stack.push(root);
+			while (true) {
+				final Frame frame = stack.peek();
+				if (frame.hasNext()) {
+					Formula operand = frame.operands.get(frame.index);
+					boolean positive = frame.polarities.get(frame.index);
+					frame.index++;
+					while (operand instanceof Not) {
+						operand = (Formula) operand.getChildren().get(0);
+						positive = !positive;
+					}
+					if (operand instanceof Atomic) {
+						frame.addChild(positive ? operand : ((Atomic) operand).flip());
+					} else if (!isSupported(operand)) {
+						frame.addChild(positive ? operand : new Not(operand));
+					} else if (isConjunction(operand, positive) == frame.conjunction) {
+						addOperands(frame, operand, positive);
+					} else {
+						final Formula result = (positive ? positiveResults : negativeResults).get(operand);
+						if (result != null) {
+							frame.addChild(result);
+						} else {
+							final Frame newFrame = new Frame(operand, positive, !frame.conjunction);
+							addOperands(newFrame, operand, positive);
+							stack.push(newFrame);
+						}
+					}
+				} else {
+					stack.pop();
+					final Formula result = frame.build();
+					if (stack.isEmpty()) {
+						return result;
+					}
+					(frame.positive ? positiveResults : negativeResults).put(frame.node, result);
+					stack.peek().addChild(result);
+				}
+			}
+		} finally {
+			positiveResults.clear();
+			negativeResults.clear();
+			definitions.clear();
+			stack.clear();
+			root = null;
+		}
+	}
+
+	private static boolean isSupported(Formula node) {
+		return (node instanceof And) || (node instanceof Or) || (node instanceof Implies)
+			|| (node instanceof Biimplies) || (node instanceof Cardinal);
+	}
+
+	/**
+	 * @return whether the given node becomes an {@link And} with the given
+	 *         polarity
+	 */
+	private static boolean isConjunction(Formula node, boolean positive) {
+		return (node instanceof Or) || (node instanceof Implies) ? !positive : positive;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void addOperands(Frame frame, Formula node, boolean positive) {
+		List<Formula> children = (List<Formula>) node.getChildren();
+		if ((variableMap != null) && ((node instanceof Biimplies) || (node instanceof Cardinal))) {
+			children = define(children);
+		}
+		if ((node instanceof And) || (node instanceof Or)) {
+			for (final Formula child : children) {
+				frame.addOperand(child, positive);
+			}
+		} else if (node instanceof Implies) {
+			frame.addOperand(children.get(0), !positive);
+			frame.addOperand(children.get(1), positive);
+		} else if (node instanceof Biimplies) {
+			frame.addOperand(new Implies(children.get(0), children.get(1)), positive);
+			frame.addOperand(new Implies(children.get(1), children.get(0)), positive);
+		} else {
+			final Cardinal cardinal = (Cardinal) node;
+			final int n = children.size();
+			final int min = cardinal.getMin();
+			final int max = Math.min(cardinal.getMax(), n);
+			if (positive) {
+				for (final Formula clause : cardinalityEncoder.between(children, min, max)) {
+					frame.addOperand(clause, true);
+				}
+			} else {
+				frame.addOperand(new And(cardinalityEncoder.atMost(children, min - 1)), true);
+				frame.addOperand(new And(cardinalityEncoder.atLeast(children, max + 1)), true);
+			}
+		}
+	}
+
+	/**
+	 * Replaces all non-literal operands by literals of new variables and adds their
+	 * definitions to the root of the result.
+	 */
+	private List<Formula> define(List<Formula> operands) {
+		final ArrayList<Formula> literals = new ArrayList<>(operands.size());
+		for (final Formula operand : operands) {
+			Formula node = operand;
+			boolean positive = true;
+			while (node instanceof Not) {
+				node = (Formula) node.getChildren().get(0);
+				positive = !positive;
+			}
+			if (node instanceof Atomic) {
+				literals.add(operand);
+			} else {
+				Literal literal = definitions.get(node);
+				if (literal == null) {
+					literal = variableMap.getLiteral(newVariable().getIndex(), true).get();
+					root.addOperand(new Implies(literal, node), true);
+					root.addOperand(new Implies(node, literal), true);
+					definitions.put(node, literal);
+				}
+				literals.add(positive ? literal : literal.flip());
+			}
+		}
+		return literals;
+	}
+
+	private BoolVariable newVariable() {
+		Optional<BoolVariable> variable;
+		do {
+			variable = variableMap.addBooleanVariable(TseytinTransformer.AUXILIARY_VARIABLE_PREFIX + "d" + count++);
+		} while (variable.isEmpty());
+		return variable.get();
+	}
+
+}
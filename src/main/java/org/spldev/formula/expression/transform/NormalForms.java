@@ -44,11 +44,22 @@ public final class NormalForms {
 	}
 
 	public static Formula simplifyForNF(Formula formula) {
-		final AuxiliaryRoot auxiliaryRoot = new AuxiliaryRoot(formula);
-		Trees.traverse(auxiliaryRoot, new EquivalenceVisitor());
-		Trees.traverse(auxiliaryRoot, new DeMorganVisitor());
-		Trees.traverse(auxiliaryRoot, new TreeSimplifier());
-		return (Formula) auxiliaryRoot.getChild();
+		return simplifyForNF(formula, new CardinalityEncoder());
+	}
+
+	/**
+	 * Replaces all implications, equivalences, and cardinality constraints and
+	 * transforms the formula into negation normal form. Nested junctions are
+	 * flattened and constants are removed.
+	 *
+	 * @param formula            the formula
+	 * @param cardinalityEncoder the encoder for cardinality constraints
+	 * @return the simplified formula
+	 *
+	 * @see NNFTransformer
+	 */
+	public static Formula simplifyForNF(Formula formula, CardinalityEncoder cardinalityEncoder) {
+		return new NNFTransformer(cardinalityEncoder).execute(formula, new NullMonitor());
 	}
 
 	public static Result<Formula> toNF(Formula root, Transformer transformer) {
@@ -33,13 +33,41 @@ import org.spldev.util.job.*;
 import org.spldev.util.tree.*;
 import org.spldev.util.tree.visitor.*;
 
+/**
+ * Transforms a formula in negation normal form into clauses by introducing a
+ * new variable for each non-clausal subformula. By default, each new variable
+ * is defined to be equivalent to its subformula. With
+ * {@link #setUsePlaistedGreenbaum(boolean) Plaisted-Greenbaum encoding}, only
+ * the implication from the new variable to its subformula is encoded. As the
+ * input is in negation normal form, every subformula occurs with positive
+ * polarity, so this implication suffices to preserve satisfiability (but not the
+ * number of models).<br>
+ * Equal subformulas share the same new variable. As the children of each
+ * subformula are already replaced by literals when it is visited, two
+ * subformulas are equal if they have the same type and the same child literals,
+ * which is checked without traversing them again. The definitions are kept
+ * across all calls of {@link #execute(Formula, InternalMonitor)}, such that
+ * subformulas of different constraints are shared as well. The substitutes of
+ * another instance can be {@link #merge(List) merged} into these definitions,
+ * such that independent formulas can be transformed in parallel.
+ *
+ * @author Sebastian Krieter
+ */
 public class TseytinTransformer implements MonitorableFunction<Formula, List<TseytinTransformer.Substitute>>,
 	TreeVisitor<Formula, Formula> {
 
+	/**
+	 * The prefix of the names of all variables that are introduced by Tseytin's
+	 * transformation.
+	 */
+	public static final String AUXILIARY_VARIABLE_PREFIX = "__temp__";
+
 	public static final class Substitute {
 		private Formula orgFormula;
 		private BoolVariable variable;
+		private List<Literal> literals;
 		private List<Formula> clauses = new ArrayList<>();
+		private int numberOfOmittedClauses;
 
 		private Substitute(Formula orgFormula, BoolVariable variable, int numberOfClauses) {
 			this.orgFormula = orgFormula;
@@ -72,6 +100,14 @@ public class TseytinTransformer implements MonitorableFunction<Formula, List<Tse
 			return clauses;
 		}
 
+		/**
+		 * @return the number of clauses that were not created due to
+		 *         Plaisted-Greenbaum encoding
+		 */
+		public int getNumberOfOmittedClauses() {
+			return numberOfOmittedClauses;
+		}
+
 		@Override
 		public int hashCode() {
 			return Objects.hashCode(orgFormula);
@@ -85,21 +121,94 @@ public class TseytinTransformer implements MonitorableFunction<Formula, List<Tse
 
 	}
 
+	/**
+	 * A subformula whose children are replaced by literals. The hash code is
+	 * computed once, such that lookups only compare the child literals of
+	 * subformulas with equal hash codes.
+	 */
+	private static final class Definition {
+		private final Class<?> type;
+		private final Formula[] children;
+		private final int hashCode;
+
+		private Definition(Class<?> type, Formula[] children) {
+			this.type = type;
+			this.children = children;
+			hashCode = (31 * type.hashCode()) + Arrays.hashCode(children);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if ((obj == null) || (getClass() != obj.getClass())) {
+				return false;
+			}
+			final Definition other = (Definition) obj;
+			return (hashCode == other.hashCode) && (type == other.type) && Arrays.equals(children, other.children);
+		}
+	}
+
 	private final List<Substitute> substitutes = new ArrayList<>();
+	private final HashMap<Definition, BoolVariable> definitions = new HashMap<>();
+	private final HashSet<Definition> rootDefinitions = new HashSet<>();
 
 	private VariableMap variableMap;
 	private int count = 0;
+	private boolean usePlaistedGreenbaum = false;
 
+	/**
+	 * Sets the variable map to which the new variables are added. Clears all
+	 * definitions of previous calls of {@link #execute(Formula, InternalMonitor)}.
+	 *
+	 * @param variableMap the variable map
+	 */
 	public void setVariableMap(VariableMap variableMap) {
 		this.variableMap = variableMap;
+		definitions.clear();
+		rootDefinitions.clear();
+	}
+
+	public boolean isUsePlaistedGreenbaum() {
+		return usePlaistedGreenbaum;
+	}
+
+	public void setUsePlaistedGreenbaum(boolean usePlaistedGreenbaum) {
+		this.usePlaistedGreenbaum = usePlaistedGreenbaum;
+	}
+
+	/**
+	 * @return the number of distinct subformulas for which a new variable was
+	 *         introduced
+	 */
+	public int getNumberOfDefinitions() {
+		return definitions.size();
+	}
+
+	private BoolVariable getVariable(final ArrayList<Literal> newChildren, final Formula clonedLastNode) {
+		final Definition definition = new Definition(clonedLastNode.getClass(), newChildren.toArray(
+			new Formula[0]));
+		BoolVariable variable = definitions.get(definition);
+		if (variable == null) {
+			variable = newVariable(newChildren, clonedLastNode);
+			definitions.put(definition, variable);
+		}
+		return variable;
 	}
 
 	private BoolVariable newVariable(final ArrayList<Literal> newChildren, final Formula clonedLastNode) {
 		Optional<BoolVariable> addBooleanVariable;
 		do {
-			addBooleanVariable = variableMap.addBooleanVariable("__temp__" + count++);
+			addBooleanVariable = variableMap.addBooleanVariable(AUXILIARY_VARIABLE_PREFIX + count++);
 		} while (addBooleanVariable.isEmpty());
 		final Substitute substitute = new Substitute(clonedLastNode, addBooleanVariable.get(), newChildren.size() + 1);
+		substitute.literals = newChildren;
 		substitutes.add(substitute);
 
 		final LiteralPredicate tempLiteral = new LiteralPredicate(substitute.variable, true);
@@ -109,16 +218,24 @@ public class TseytinTransformer implements MonitorableFunction<Formula, List<Tse
 				substitute.addClause(new Or(tempLiteral.flip(), l.cloneNode()));
 				flippedChildren.add(l.flip());
 			}
-			flippedChildren.add(tempLiteral.cloneNode());
-			substitute.addClause(new Or(flippedChildren));
+			if (usePlaistedGreenbaum) {
+				substitute.numberOfOmittedClauses++;
+			} else {
+				flippedChildren.add(tempLiteral.cloneNode());
+				substitute.addClause(new Or(flippedChildren));
+			}
 		} else if (clonedLastNode instanceof Or) {
-			final ArrayList<Literal> flippedChildren = new ArrayList<>();
+			final ArrayList<Literal> children = new ArrayList<>();
 			for (final Literal l : newChildren) {
-				substitute.addClause(new Or(tempLiteral.cloneNode(), l.flip()));
-				flippedChildren.add(l.cloneNode());
+				if (usePlaistedGreenbaum) {
+					substitute.numberOfOmittedClauses++;
+				} else {
+					substitute.addClause(new Or(tempLiteral.cloneNode(), l.flip()));
+				}
+				children.add(l.cloneNode());
 			}
-			flippedChildren.add(tempLiteral.flip());
-			substitute.addClause(new Or(flippedChildren));
+			children.add(tempLiteral.flip());
+			substitute.addClause(new Or(children));
 		} else {
 			throw new RuntimeException(clonedLastNode.getClass().toString());
 		}
@@ -127,6 +244,14 @@ public class TseytinTransformer implements MonitorableFunction<Formula, List<Tse
 
 	private final ArrayDeque<Formula> stack = new ArrayDeque<>();
 
+	/**
+	 * Transforms the given formula into clauses.
+	 *
+	 * @param child   the formula in negation normal form
+	 * @param monitor the monitor
+	 * @return the substitutes of all subformulas that were not defined in a
+	 *         previous call, and the substitute of the formula itself
+	 */
 	@Override
 	public List<Substitute> execute(Formula child, InternalMonitor monitor) {
 		substitutes.clear();
@@ -141,7 +266,72 @@ public class TseytinTransformer implements MonitorableFunction<Formula, List<Tse
 			Trees.dfsPrePost(child, this);
 		} catch (final Exception ignored) {
 		}
-		return substitutes;
+		return new ArrayList<>(substitutes);
+	}
+
+	/**
+	 * Adds the substitutes that another instance created to the definitions of
+	 * this instance. The result is the same as if this instance had transformed
+	 * the formulas of the other instance itself, i.e., the new variables are
+	 * added to the variable map of this instance in the same order and equal
+	 * subformulas share their variables. The other instance must have used a
+	 * copy of the variable map of this instance, such that all of its new
+	 * variables have greater indexes than the variables of the formulas.
+	 *
+	 * @param otherSubstitutes the substitutes of the other instance in the order
+	 *                         in which they were created
+	 * @return the substitutes of all subformulas that were not defined before,
+	 *         and the substitutes of the formulas themselves
+	 */
+	public List<Substitute> merge(List<Substitute> otherSubstitutes) {
+		substitutes.clear();
+		final IdentityHashMap<BoolVariable, BoolVariable> variables = new IdentityHashMap<>();
+		for (final Substitute otherSubstitute : otherSubstitutes) {
+			if (otherSubstitute.literals == null) {
+				addRoot(otherSubstitute.orgFormula);
+			} else {
+				final ArrayList<Literal> newChildren = new ArrayList<>(otherSubstitute.literals.size());
+				for (final Literal literal : otherSubstitute.literals) {
+					newChildren.add(replaceVariable(literal, variables));
+				}
+				if (otherSubstitute.variable == null) {
+					addRoot(otherSubstitute.orgFormula, newChildren);
+				} else {
+					variables.put(otherSubstitute.variable, getVariable(newChildren, otherSubstitute.orgFormula));
+				}
+			}
+		}
+		return new ArrayList<>(substitutes);
+	}
+
+	private static Literal replaceVariable(Literal literal, IdentityHashMap<BoolVariable, BoolVariable> variables) {
+		if (literal instanceof LiteralPredicate) {
+			final LiteralPredicate literalPredicate = (LiteralPredicate) literal;
+			final BoolVariable variable = variables.get(literalPredicate.getVariable());
+			if (variable != null) {
+				return new LiteralPredicate(variable, literalPredicate.isPositive());
+			}
+		}
+		return literal;
+	}
+
+	private void addRoot(Formula atomic) {
+		if (rootDefinitions.add(new Definition(Atomic.class, new Formula[] { atomic }))) {
+			substitutes.add(new Substitute(atomic, null, atomic));
+		}
+	}
+
+	private void addRoot(Formula compound, ArrayList<Literal> newChildren) {
+		if (rootDefinitions.add(new Definition(compound.getClass(), newChildren.toArray(new Formula[0])))) {
+			final Substitute substitute;
+			if (compound instanceof And) {
+				substitute = new Substitute(compound, null, newChildren);
+			} else {
+				substitute = new Substitute(compound, null, new Or(newChildren));
+			}
+			substitute.literals = newChildren;
+			substitutes.add(substitute);
+		}
 	}
 
 	@Override
@@ -161,11 +351,10 @@ public class TseytinTransformer implements MonitorableFunction<Formula, List<Tse
 	public VisitorResult lastVisit(List<Formula> path) {
 		final Formula node = TreeVisitor.getCurrentNode(path);
 		if (node instanceof Atomic) {
-			final Formula clonedNode = node;
 			if (path.isEmpty()) {
-				substitutes.add(new Substitute(clonedNode, null, clonedNode));
+				addRoot(node);
 			} else {
-				stack.push(clonedNode);
+				stack.push(node);
 			}
 		} else {
 			final ArrayList<Literal> newChildren = new ArrayList<>();
@@ -176,15 +365,10 @@ public class TseytinTransformer implements MonitorableFunction<Formula, List<Tse
 			}
 
 			if (stack.isEmpty()) {
-				final Formula clonedLastNode = lastNode;
-				if (lastNode instanceof And) {
-					substitutes.add(new Substitute(clonedLastNode, null, newChildren));
-				} else {
-					substitutes.add(new Substitute(clonedLastNode, null, new Or(newChildren)));
-				}
+				addRoot(lastNode, newChildren);
 			} else {
 				final Formula clonedLastNode = lastNode;
-				final BoolVariable variable = newVariable(newChildren, clonedLastNode);
+				final BoolVariable variable = getVariable(newChildren, clonedLastNode);
 				stack.push(new LiteralPredicate(variable, true));
 			}
 
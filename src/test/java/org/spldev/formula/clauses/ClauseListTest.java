@@ -0,0 +1,106 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.clauses;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.io.*;
+import org.spldev.formula.expression.term.bool.*;
+
+public class ClauseListTest {
+
+	private VariableMap map;
+	private Formula cnf;
+
+	@BeforeEach
+	public void setUp() {
+		map = VariableMap.fromNames(Arrays.asList("A", "B", "C"));
+		final LiteralPredicate a = new LiteralPredicate((BoolVariable) map.getVariable("A").get(), true);
+		final LiteralPredicate b = new LiteralPredicate((BoolVariable) map.getVariable("B").get(), true);
+		final LiteralPredicate c = new LiteralPredicate((BoolVariable) map.getVariable("C").get(), true);
+		cnf = new And(new Or(a, b.flip()), new Or(b, c, a.flip()), new Or(c.flip()));
+	}
+
+	@Test
+	public void convert() {
+		final ClauseList clauses = ClauseList.fromCNF(cnf);
+		assertEquals(3, clauses.size());
+		assertEquals(6, clauses.getNumberOfLiterals());
+		assertArrayEquals(new int[] { 1, -2 }, clauses.getClause(0));
+		assertArrayEquals(new int[] { 2, 3, -1 }, clauses.getClause(1));
+		assertArrayEquals(new int[] { -3 }, clauses.getClause(2));
+		assertEquals(cnf, clauses.toFormula());
+		assertEquals(cnf.getChildren().get(1), clauses.getClauseFormulas().get(1));
+	}
+
+	@Test
+	public void constants() {
+		final Formula a = map.getLiteral("A", true).get();
+		final Formula b = map.getLiteral("B", true).get();
+		final ClauseList clauses = ClauseList.fromCNF(new And(new Or(a, Literal.True), new Or(b, Literal.False),
+			new Or(Literal.False)), map);
+		assertEquals(2, clauses.size());
+		assertArrayEquals(new int[] { 2 }, clauses.getClause(0));
+		assertArrayEquals(new int[0], clauses.getClause(1));
+
+		final ClauseList convertedClauses = Formulas.toClauseList(new And(new Or(a, Literal.True), b)).get();
+		assertEquals(1, convertedClauses.size());
+		assertArrayEquals(new int[] { 2 }, convertedClauses.getClause(0));
+	}
+
+	@Test
+	public void addClauses() {
+		final ClauseList clauses = new ClauseList(map, 1, 1);
+		clauses.addClause(1, -2);
+		clauses.addClause(2, 3, -1);
+		final ClauseList otherClauses = new ClauseList(map);
+		otherClauses.addClause(-3);
+		clauses.addClauses(otherClauses);
+		assertEquals(ClauseList.fromCNF(cnf), clauses);
+		assertThrows(IllegalArgumentException.class, () -> clauses.addClause(1, 0));
+		assertEquals(ClauseList.fromCNF(cnf), clauses);
+		clauses.addClause(2);
+		assertEquals(4, clauses.size());
+		assertArrayEquals(new int[] { 2 }, clauses.getClause(3));
+	}
+
+	@Test
+	public void dimacs() throws Exception {
+		final ClauseList clauses = ClauseList.fromCNF(cnf);
+		final DimacsWriter writer = new DimacsWriter(clauses);
+		final String dimacs = writer.write();
+		assertEquals(new DimacsWriter(cnf).write(), dimacs);
+
+		final DimacsReader reader = new DimacsReader();
+		reader.setReadingVariableDirectory(true);
+		assertEquals(clauses, reader.readClauseList(dimacs));
+		assertEquals(cnf, reader.read(dimacs));
+	}
+
+}
@@ -0,0 +1,141 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.clauses;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.transform.*;
+import org.spldev.util.job.*;
+
+public class ClauseSimplifierTest {
+
+	@Test
+	public void simplify() {
+		final ClauseList clauses = new ClauseList(VariableMap.fromNames(Arrays.asList("A", "B", "C", "D")));
+		clauses.addClause(1, 2, 3);
+		clauses.addClause(2, 2, 1);
+		clauses.addClause(1, -1, 4);
+		clauses.addClause(-2, 3, 4);
+		clauses.addClause(2, 1);
+		clauses.addClause(-2, 3);
+		final ClauseSimplifier simplifier = new ClauseSimplifier();
+		final ClauseList simplifiedClauses = Executor.run(simplifier, clauses).get();
+
+		final ClauseList expectedClauses = new ClauseList(clauses.getVariableMap());
+		expectedClauses.addClause(2, 1);
+		expectedClauses.addClause(-2, 3);
+		assertEquals(expectedClauses, simplifiedClauses);
+		assertEquals(4, simplifier.getNumberOfRemovedClauses());
+		assertEquals(12, simplifier.getNumberOfRemovedLiterals());
+
+		clauses.addClause(-1, 3);
+		clauses.addClause(1, -3);
+		clauses.addClause(-3);
+		final ClauseList unsatisfiableClauses = Executor.run(simplifier, clauses).get();
+		assertEquals(1, unsatisfiableClauses.size());
+		assertEquals(0, unsatisfiableClauses.getClauseLength(0));
+	}
+
+	@Test
+	public void randomClauses() {
+		final Random random = new Random(0);
+		final ClauseSimplifier simplifier = new ClauseSimplifier();
+		for (int i = 0; i < 300; i++) {
+			final int variableCount = 2 + random.nextInt(8);
+			final ClauseList clauses = new ClauseList(VariableMap.emptyMap());
+			final int clauseCount = 1 + random.nextInt(3 * variableCount);
+			for (int j = 0; j < clauseCount; j++) {
+				final int[] clause = new int[1 + random.nextInt(4)];
+				for (int k = 0; k < clause.length; k++) {
+					clause[k] = (1 + random.nextInt(variableCount)) * (random.nextBoolean() ? 1 : -1);
+				}
+				clauses.addClause(clause);
+			}
+			final ClauseList simplifiedClauses = Executor.run(simplifier, clauses).get();
+			assertTrue(simplifiedClauses.size() <= clauses.size());
+			for (int assignment = 0; assignment < (1 << variableCount); assignment++) {
+				assertEquals(isSatisfied(clauses, assignment), isSatisfied(simplifiedClauses, assignment));
+			}
+			for (int j = 0; j < simplifiedClauses.size(); j++) {
+				for (int k = 0; k < simplifiedClauses.size(); k++) {
+					if (j != k) {
+						assertFalse(isSubset(simplifiedClauses.getClause(j), simplifiedClauses.getClause(k)));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void cnfTransformer() {
+		final VariableMap map = VariableMap.fromNames(Arrays.asList("A", "B", "C"));
+		final Literal a = map.getLiteral("A", true).get();
+		final Literal b = map.getLiteral("B", true).get();
+		final Literal c = map.getLiteral("C", true).get();
+		final Formula formula = new And(new Or(a, b), new Or(a, new Not(b)), new Implies(c, new Or(a, b, c)));
+		final CNFTransformer transformer = new CNFTransformer();
+		transformer.setSimplifyingClauses(true);
+		final Formula cnf = Executor.run(transformer, formula).get();
+		assertEquals(new And(new Or(a)), cnf);
+		assertEquals(cnf, Formulas.toSimplifiedCNF(formula).get());
+	}
+
+	private static boolean isSatisfied(ClauseList clauses, int assignment) {
+		for (final int[] clause : clauses) {
+			boolean satisfied = false;
+			for (final int literal : clause) {
+				if (((assignment & (1 << (Math.abs(literal) - 1))) != 0) == (literal > 0)) {
+					satisfied = true;
+					break;
+				}
+			}
+			if (!satisfied) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isSubset(int[] clause, int[] otherClause) {
+		for (final int literal : clause) {
+			boolean contained = false;
+			for (final int otherLiteral : otherClause) {
+				if (literal == otherLiteral) {
+					contained = true;
+					break;
+				}
+			}
+			if (!contained) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,137 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.clauses;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.atomic.literal.*;
+
+public class UnitPropagatorTest {
+
+	@Test
+	public void propagate() {
+		final ClauseList clauses = new ClauseList(VariableMap.fromNames(Arrays.asList("A", "B", "C", "D")));
+		clauses.addClause(-1, 2);
+		clauses.addClause(-2, 3, 4);
+		clauses.addClause(-3, -4);
+		clauses.addClause(4, 4);
+		final UnitPropagator propagator = new UnitPropagator(clauses);
+		assertArrayEquals(new int[] { 4, -3 }, propagator.getTrail());
+		assertEquals(3, propagator.getReason(4));
+
+		assertTrue(propagator.decide(1));
+		assertArrayEquals(new int[] { 1, 2 }, propagator.getCurrentLevelLiterals());
+		assertArrayEquals(new int[] { 4, -3, 2 }, propagator.getImpliedLiterals());
+		assertEquals(0, propagator.getReason(2));
+		assertEquals(1, propagator.getLevel(2));
+
+		propagator.pop();
+		assertArrayEquals(new int[] { 4, -3 }, propagator.getTrail());
+		assertFalse(propagator.decide(-4));
+		assertTrue(propagator.hasConflict());
+		propagator.pop();
+		assertFalse(propagator.hasConflict());
+		assertEquals(0, propagator.getValue(1));
+	}
+
+	@Test
+	public void conflict() {
+		final ClauseList clauses = new ClauseList(VariableMap.fromNames(Arrays.asList("A", "B")));
+		clauses.addClause(-1, 2);
+		clauses.addClause(-1, -2);
+		final UnitPropagator propagator = new UnitPropagator(clauses);
+		assertFalse(propagator.decide(1));
+		assertTrue(Arrays.asList(0, 1).contains(propagator.getConflictClause()));
+		propagator.pop();
+		assertTrue(propagator.decide(-1));
+		assertArrayEquals(new int[] { -1 }, propagator.getTrail());
+	}
+
+	@Test
+	public void randomClauses() {
+		final Random random = new Random(0);
+		for (int i = 0; i < 200; i++) {
+			final int variableCount = 2 + random.nextInt(10);
+			final ClauseList clauses = new ClauseList(VariableMap.emptyMap());
+			final int clauseCount = 1 + random.nextInt(4 * variableCount);
+			for (int j = 0; j < clauseCount; j++) {
+				final int[] clause = new int[1 + random.nextInt(4)];
+				for (int k = 0; k < clause.length; k++) {
+					clause[k] = (1 + random.nextInt(variableCount)) * (random.nextBoolean() ? 1 : -1);
+				}
+				clauses.addClause(clause);
+			}
+			final UnitPropagator propagator = new UnitPropagator(clauses);
+			final Deque<int[]> trails = new ArrayDeque<>();
+			for (int j = 0; (j < 10) && !propagator.hasConflict(); j++) {
+				trails.push(propagator.getTrail());
+				final int literal = (1 + random.nextInt(propagator.size())) * (random.nextBoolean() ? 1 : -1);
+				propagator.decide(literal);
+				check(clauses, propagator);
+			}
+			while (propagator.getDecisionLevel() > 0) {
+				propagator.pop();
+				assertArrayEquals(trails.pop(), propagator.getTrail());
+			}
+		}
+	}
+
+	private void check(ClauseList clauses, UnitPropagator propagator) {
+		for (final int literal : propagator.getImpliedLiterals()) {
+			final int reason = propagator.getReason(Math.abs(literal));
+			boolean containsLiteral = false;
+			for (final int other : clauses.getClause(reason)) {
+				if (other == literal) {
+					containsLiteral = true;
+				} else {
+					assertEquals(-1, propagator.getValue(other));
+				}
+			}
+			assertTrue(containsLiteral);
+		}
+		if (propagator.hasConflict()) {
+			if (propagator.getConflictClause() != UnitPropagator.NO_CLAUSE) {
+				for (final int literal : clauses.getClause(propagator.getConflictClause())) {
+					assertEquals(-1, propagator.getValue(literal));
+				}
+			}
+		} else {
+			for (final int[] clause : clauses) {
+				final Set<Integer> unassigned = new HashSet<>();
+				boolean satisfied = false;
+				for (final int literal : clause) {
+					final int value = propagator.getValue(literal);
+					satisfied |= value > 0;
+					if (value == 0) {
+						unassigned.add(literal);
+					}
+				}
+				assertTrue(satisfied || (unassigned.size() >= 2), Arrays.toString(clause));
+			}
+		}
+	}
+
+}
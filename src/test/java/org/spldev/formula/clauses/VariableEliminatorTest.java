@@ -0,0 +1,131 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.clauses;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.transform.*;
+import org.spldev.util.job.*;
+
+public class VariableEliminatorTest {
+
+	@Test
+	public void eliminateAuxiliaryVariables() {
+		final VariableMap map = VariableMap.fromNames(Arrays.asList("A", "B", "C", "D"));
+		final Literal a = map.getLiteral("A", true).get();
+		final Literal b = map.getLiteral("B", true).get();
+		final Literal c = map.getLiteral("C", true).get();
+		final Literal d = map.getLiteral("D", true).get();
+		final Formula formula = new And(new Or(new And(a, b), new And(c, d), new And(a, new Not(d))),
+			new Implies(b, c));
+
+		final CNFTransformer transformer = new CNFTransformer();
+		transformer.setMaximumNumberOfLiterals(0);
+		final Formula cnf = Executor.run(transformer, formula).get();
+		final ClauseList clauses = ClauseList.fromCNF(cnf);
+		final VariableMap cnfMap = clauses.getVariableMap();
+		assertTrue(cnfMap.getMaxIndex() > 4);
+
+		final VariableEliminator eliminator = new VariableEliminator();
+		eliminator.setEliminatingAuxiliaryVariablesOnly(true);
+		final ClauseList eliminatedClauses = Executor.run(eliminator, clauses).get();
+		assertTrue(eliminatedClauses.size() <= clauses.size());
+		for (int i = 0; i < eliminatedClauses.getNumberOfLiterals(); i++) {
+			final String name = cnfMap.nameOf(Math.abs(eliminatedClauses.getLiteralAt(i)));
+			assertFalse(name.startsWith(TseytinTransformer.AUXILIARY_VARIABLE_PREFIX), name);
+		}
+		checkEquisatisfiable(clauses, eliminatedClauses, eliminator, cnfMap.getMaxIndex());
+
+		final VariableEliminator frozenEliminator = new VariableEliminator();
+		frozenEliminator.addFrozenVariables(Arrays.asList("A", "B", "C", "D"));
+		Executor.run(frozenEliminator, clauses);
+		assertTrue(frozenEliminator.getEliminatedVariables().length > 0);
+		for (final int variable : frozenEliminator.getEliminatedVariables()) {
+			assertTrue(variable > 4);
+		}
+	}
+
+	@Test
+	public void randomClauses() {
+		final Random random = new Random(0);
+		final VariableEliminator eliminator = new VariableEliminator();
+		for (int i = 0; i < 300; i++) {
+			final int variableCount = 2 + random.nextInt(8);
+			final ClauseList clauses = new ClauseList(VariableMap.emptyMap());
+			final int clauseCount = 1 + random.nextInt(4 * variableCount);
+			for (int j = 0; j < clauseCount; j++) {
+				final int[] clause = new int[1 + random.nextInt(3)];
+				for (int k = 0; k < clause.length; k++) {
+					clause[k] = (1 + random.nextInt(variableCount)) * (random.nextBoolean() ? 1 : -1);
+				}
+				clauses.addClause(clause);
+			}
+			final ClauseList eliminatedClauses = Executor.run(eliminator, clauses).get();
+			assertTrue(eliminatedClauses.size() <= clauses.size());
+			checkEquisatisfiable(clauses, eliminatedClauses, eliminator, variableCount);
+		}
+	}
+
+	private static void checkEquisatisfiable(ClauseList clauses, ClauseList eliminatedClauses,
+		VariableEliminator eliminator, int variableCount) {
+		boolean satisfiable = false;
+		boolean eliminatedSatisfiable = false;
+		for (int assignment = 0; assignment < (1 << variableCount); assignment++) {
+			final BooleanAssignment solution = new BooleanAssignment(variableCount);
+			for (int variable = 1; variable <= variableCount; variable++) {
+				solution.set(variable, (assignment & (1 << (variable - 1))) != 0);
+			}
+			satisfiable |= isSatisfied(clauses, solution);
+			if (isSatisfied(eliminatedClauses, solution)) {
+				eliminatedSatisfiable = true;
+				eliminator.extend(solution);
+				assertTrue(isSatisfied(clauses, solution));
+			}
+		}
+		assertEquals(satisfiable, eliminatedSatisfiable);
+	}
+
+	private static boolean isSatisfied(ClauseList clauses, BooleanAssignment solution) {
+		for (final int[] clause : clauses) {
+			boolean satisfied = false;
+			for (final int literal : clause) {
+				if (solution.getLiteral(Math.abs(literal)) == literal) {
+					satisfied = true;
+					break;
+				}
+			}
+			if (!satisfied) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,72 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.term.bool.*;
+import org.spldev.util.tree.*;
+
+public class ExpressionFactoryTest {
+
+	private VariableMap map;
+	private ExpressionFactory factory;
+
+	@BeforeEach
+	public void setUp() {
+		map = VariableMap.fromNames(Arrays.asList("A", "B", "C"));
+		factory = new ExpressionFactory(map);
+	}
+
+	@Test
+	public void shareEqualSubformulas() {
+		final Formula formula1 = factory.implies(factory.literal("A", true),
+			factory.or(factory.literal("B", true), factory.literal("C", false)));
+		final Formula formula2 = factory.implies(factory.literal(1, true),
+			factory.or(factory.literal(2, true), factory.literal(3, false)));
+		assertSame(formula1, formula2);
+		assertNotSame(formula1, factory.implies(factory.literal("A", true),
+			factory.or(factory.literal("B", true), factory.literal("C", true))));
+	}
+
+	@Test
+	public void internTree() {
+		final LiteralPredicate a = new LiteralPredicate((BoolVariable) map.getVariable("A").get(), true);
+		final LiteralPredicate b = new LiteralPredicate((BoolVariable) map.getVariable("B").get(), true);
+		final Formula tree = new And(new Or(a, b), new Not(new Or(a, b)));
+
+		final Formula dag = factory.intern(tree);
+		assertEquals(tree, dag);
+		assertNotSame(tree, dag);
+		assertSame(dag.getChildren().get(0), dag.getChildren().get(1).getChildren().get(0));
+		assertSame(dag, factory.intern(dag));
+		assertSame(dag, factory.intern(Trees.cloneTree(tree)));
+		assertEquals(tree, Trees.cloneTree(dag));
+	}
+
+}
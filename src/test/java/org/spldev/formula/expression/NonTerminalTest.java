@@ -0,0 +1,128 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.io.parse.*;
+
+public class NonTerminalTest {
+
+	private static final int DEPTH = 1_000_000;
+
+	private VariableMap map;
+
+	@BeforeEach
+	public void setUp() {
+		map = VariableMap.fromNames(Arrays.asList("A", "B", "C"));
+	}
+
+	@Test
+	public void deepChains() {
+		final Formula chain1 = chain(DEPTH, true);
+		final Formula chain2 = chain(DEPTH, true);
+		final Formula chain3 = chain(DEPTH, false);
+		assertEquals(chain1.hashCode(), chain2.hashCode());
+		assertEquals(chain1, chain2);
+		assertNotEquals(chain1, chain3);
+		assertEquals(DEPTH + 2, Formulas.getMaxDepth(chain1));
+
+		final String string = new NodeWriter().write(chain1);
+		assertTrue(string.startsWith("A => (B => (C => "));
+		assertTrue(string.endsWith(" => -B" + ")".repeat(DEPTH - 1)));
+		final String shortString = new NodeWriter().write(chain(DEPTH / 10, true));
+		assertEquals(shortString, new NodeWriter().write(new NodeReader().read(shortString).get()));
+
+		final VariableMap newMap = map.clone();
+		chain1.setVariableMap(newMap);
+		Formula node = chain1;
+		while (node instanceof Implies) {
+			assertSame(newMap, ((LiteralPredicate) node.getChildren().get(0)).getVariable().getVariableMap());
+			node = (Formula) node.getChildren().get(1);
+		}
+		assertSame(newMap, ((LiteralPredicate) node).getVariable().getVariableMap());
+		assertEquals(chain1, chain2);
+	}
+
+	@Test
+	public void replaceSharedLiterals() {
+		final LiteralPredicate a = map.getLiteral("A", true).get();
+		final LiteralPredicate notB = map.getLiteral("B", false).get();
+		final LiteralPredicate c = map.getLiteral("C", true).get().flip();
+		final Formula formula = new And(a, new Or(notB, c), new Not(a));
+
+		final VariableMap newMap = map.clone();
+		formula.setVariableMap(newMap);
+		assertSame(newMap.getLiteral("A", true).get(), formula.getChildren().get(0));
+		final List<? extends Expression> or = formula.getChildren().get(1).getChildren();
+		assertSame(newMap.getLiteral("B", false).get(), or.get(0));
+		assertSame(newMap.getLiteral("C", false).get(), or.get(1));
+		assertSame(newMap.getLiteral("A", true).get(), formula.getChildren().get(2).getChildren().get(0));
+		assertSame(a, map.getLiteral("A", true).get());
+		assertSame(map, a.getVariable().getVariableMap());
+		assertSame(map, notB.getVariable().getVariableMap());
+		assertSame(map, c.getVariable().getVariableMap());
+
+		final VariableMap reorderedMap = VariableMap.fromNames(Arrays.asList("C", "B", "A"));
+		formula.adaptVariableMap(reorderedMap);
+		final LiteralPredicate adaptedA = (LiteralPredicate) formula.getChildren().get(0);
+		assertSame(reorderedMap.getLiteral("A", true).get(), adaptedA);
+		assertEquals(3, adaptedA.getIndex());
+		assertEquals(1, a.getIndex());
+		assertEquals(1, newMap.getLiteral("A", true).get().getIndex());
+		assertSame(newMap, newMap.getVariable("A").get().getVariableMap());
+	}
+
+	@Test
+	public void writeNestedFormulas() {
+		final Literal a = map.getLiteral("A", true).get();
+		final Literal b = map.getLiteral("B", true).get();
+		final Literal c = map.getLiteral("C", true).get();
+		final Formula formula = new And(new Implies(a, new Implies(b, c)), new Not(new Or(a, b)), new AtMost(Arrays
+			.asList(a, b.flip(), c), 1));
+		final NodeWriter writer = new NodeWriter();
+		assertEquals("(A => (B => C)) & -(A | B) & atmost(A,-B,C)", writer.write(formula));
+		writer.setNotation(NodeWriter.Notation.PREFIX);
+		assertEquals("(& (=> A (=> B C)) (- (| A B)) (atmost A (- B) C))", writer.write(formula));
+		writer.setNotation(NodeWriter.Notation.POSTFIX);
+		assertEquals("((A (B C =>) =>) ((A B |) -) (A (B -) C atmost) &)", writer.write(formula));
+	}
+
+	/**
+	 * Builds an implication chain {@code l_0 => (l_1 => (... => l_depth))} without
+	 * recursion.
+	 */
+	private Formula chain(int depth, boolean positive) {
+		Formula formula = map.getLiteral(1 + (depth % 3), positive).get().flip();
+		for (int i = depth - 1; i >= 0; i--) {
+			formula = new Implies(map.getLiteral(1 + (i % 3), true).get(), formula);
+		}
+		return formula;
+	}
+
+}
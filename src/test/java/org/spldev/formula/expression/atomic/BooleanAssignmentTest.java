@@ -0,0 +1,72 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.atomic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+
+public class BooleanAssignmentTest {
+
+	@Test
+	public void setAndGet() {
+		final BooleanAssignment assignment = new BooleanAssignment(130);
+		assignment.set(1, true);
+		assignment.set(64, false);
+		assignment.set(130, Boolean.TRUE);
+		assertTrue(assignment.isTrue(1));
+		assertTrue(assignment.isFalse(64));
+		assertFalse(assignment.isAssigned(63));
+		assertEquals(Optional.of(Boolean.TRUE), assignment.get(130));
+		assertEquals(Optional.empty(), assignment.get(2));
+		assertArrayEquals(new int[] { 1, -64, 130 }, assignment.getLiterals());
+		assertEquals(3, assignment.countAssigned());
+
+		assignment.set(64, null);
+		assertEquals(0, assignment.getLiteral(64));
+		assertEquals(130, assignment.nextAssigned(2));
+		assertThrows(IndexOutOfBoundsException.class, () -> assignment.set(131, true));
+		assertThrows(IndexOutOfBoundsException.class, () -> assignment.getLiteral(131));
+		assertEquals(Optional.empty(), assignment.get(131));
+		assertEquals(Optional.empty(), assignment.get(0));
+		assertThrows(ClassCastException.class, () -> assignment.set(2, 1));
+	}
+
+	@Test
+	public void bulkOperations() {
+		final BooleanAssignment assignment1 = BooleanAssignment.fromLiterals(100, 1, -2, 70);
+		final BooleanAssignment assignment2 = BooleanAssignment.fromLiterals(100, 1, 2, -99);
+		assertArrayEquals(new int[] { 2, 70, 99 }, assignment1.diff(assignment2));
+
+		final BooleanAssignment copy = new BooleanAssignment(assignment1);
+		assertEquals(assignment1, copy);
+		copy.merge(assignment2);
+		assertArrayEquals(new int[] { 1, 2, 70, -99 }, copy.getLiterals());
+		copy.setAll(assignment2);
+		assertEquals(assignment2, copy);
+		assertEquals(0, copy.diff(assignment2).length);
+	}
+
+}
@@ -0,0 +1,225 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.atomic.literal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.term.*;
+import org.spldev.formula.expression.term.bool.*;
+
+public class VariableMapTest {
+
+	/**
+	 * @return {@code 2^blocks} distinct names with the same hash code
+	 */
+	private static List<String> collidingNames(int blocks) {
+		List<String> names = Collections.singletonList("");
+		for (int i = 0; i < blocks; i++) {
+			final List<String> longerNames = new ArrayList<>();
+			for (final String name : names) {
+				longerNames.add(name + "Aa");
+				longerNames.add(name + "BB");
+			}
+			names = longerNames;
+		}
+		return names;
+	}
+
+	private static void assertNames(VariableMap map, List<String> names) {
+		for (final String name : names) {
+			final int index = map.indexOf(name);
+			assertTrue(index > 0, name);
+			assertEquals(name, map.nameOf(index));
+		}
+	}
+
+	@Test
+	public void collidingNames() {
+		final List<String> names = collidingNames(6);
+		assertEquals(names.get(0).hashCode(), names.get(names.size() - 1).hashCode());
+		final VariableMap map = VariableMap.fromNames(names);
+		assertEquals(names.size(), map.size());
+		for (int i = 0; i < names.size(); i++) {
+			assertEquals(i + 1, map.indexOf(names.get(i)));
+		}
+		assertFalse(map.addBooleanVariable(names.get(3)).isPresent());
+
+		final List<String> remainingNames = new ArrayList<>();
+		for (int i = 0; i < names.size(); i++) {
+			if ((i % 2) == 0) {
+				assertTrue(map.removeVariable(names.get(i)));
+			} else {
+				remainingNames.add(names.get(i));
+			}
+		}
+		for (int i = 0; i < names.size(); i += 2) {
+			assertEquals(-1, map.indexOf(names.get(i)));
+			assertFalse(map.hasVariable(names.get(i)));
+		}
+		assertNames(map, remainingNames);
+
+		final String oldName = remainingNames.get(0);
+		final int index = map.indexOf(oldName);
+		map.renameVariable(oldName, names.get(0));
+		assertEquals(-1, map.indexOf(oldName));
+		assertEquals(index, map.indexOf(names.get(0)));
+		map.renameVariable(index, oldName);
+		assertEquals(-1, map.indexOf(names.get(0)));
+		assertNames(map, remainingNames);
+
+		assertTrue(map.addBooleanVariable(names.get(0)).isPresent());
+		assertEquals(map.getMaxIndex(), map.indexOf(names.get(0)));
+		assertNames(map, remainingNames);
+	}
+
+	@Test
+	public void growth() {
+		final VariableMap map = VariableMap.emptyMap();
+		final List<String> names = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			final String name = "x" + i;
+			names.add(name);
+			assertEquals(i + 1, map.addBooleanVariable(name).get().getIndex());
+		}
+		names.addAll(collidingNames(8));
+		for (final String name : names.subList(1000, names.size())) {
+			map.addIntegerVariable(name);
+		}
+		assertEquals(names.size(), map.size());
+		assertNames(map, names);
+		assertEquals(-1, map.indexOf("x1000"));
+		assertEquals(-1, map.indexOf(null));
+		assertNames(map.clone(), names);
+	}
+
+	@Test
+	public void removeIndex() {
+		final List<String> names = collidingNames(4);
+		final VariableMap map = VariableMap.fromNames(names);
+		assertTrue(map.removeIndex(3));
+		assertTrue(map.removeIndex(7));
+		assertTrue(map.removeIndex(names.size()));
+		assertFalse(map.removeIndex(names.size() + 1));
+		assertTrue(map.hasGaps());
+		assertEquals(names.size() - 1, map.getMaxIndex());
+
+		final List<String> remainingNames = new ArrayList<>(names);
+		remainingNames.remove(names.size() - 1);
+		remainingNames.remove(6);
+		remainingNames.remove(2);
+		assertNames(map, remainingNames);
+		for (final String name : Arrays.asList(names.get(2), names.get(6), names.get(names.size() - 1))) {
+			assertEquals(-1, map.indexOf(name));
+			assertFalse(map.getLiteral(name, true).isPresent());
+		}
+		assertFalse(map.getVariable(3).isPresent());
+		assertNull(map.nameOf(7));
+
+		assertEquals(names.size(), map.addBooleanVariable(names.get(2)).get().getIndex());
+		assertEquals(names.size(), map.indexOf(names.get(2)));
+
+		final VariableMap normalizedMap = map.normalize();
+		assertFalse(normalizedMap.hasGaps());
+		assertEquals(names.size() - 2, normalizedMap.size());
+		assertEquals(normalizedMap.size(), normalizedMap.indexOf(names.get(2)));
+		assertNames(normalizedMap, remainingNames);
+	}
+
+	@Test
+	public void serialization() throws Exception {
+		final List<String> names = collidingNames(5);
+		final VariableMap map = VariableMap.fromNames(names);
+		map.removeVariable(names.get(4));
+		map.renameVariable(names.get(5), "renamed");
+		map.addRealVariable("r");
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(map);
+		}
+		final VariableMap readMap;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			readMap = (VariableMap) in.readObject();
+		}
+		assertEquals(map, readMap);
+		for (int index = 1; index <= map.getMaxIndex(); index++) {
+			final String name = map.nameOf(index);
+			assertEquals(name, readMap.nameOf(index));
+			if (name != null) {
+				assertEquals(index, readMap.indexOf(name));
+			}
+		}
+		assertEquals(-1, readMap.indexOf(names.get(4)));
+		assertEquals(-1, readMap.indexOf(names.get(5)));
+		assertEquals(6, readMap.getLiteral("renamed", true).get().getIndex());
+		assertEquals(map.indexOf("r"), readMap.getVariable("r").get().getIndex());
+
+		assertTrue(readMap.addBooleanVariable(names.get(4)).isPresent());
+		assertEquals(readMap.getMaxIndex(), readMap.indexOf(names.get(4)));
+	}
+
+	@Test
+	public void sharedInstances() {
+		final VariableMap map = VariableMap.fromNames(Arrays.asList("A", "B"));
+		map.addIntegerVariable("I");
+		final VariableMap newMap = map.clone();
+
+		final LiteralPredicate a = map.getLiteral("A", true).get();
+		final BoolVariable variableA = a.getVariable();
+		assertSame(a, map.getLiteral(1, true).get());
+		assertSame(variableA, map.getVariable("A").get());
+		assertSame(variableA, map.getLiteral("A", false).get().getVariable());
+		assertNotSame(a, newMap.getLiteral("A", true).get());
+
+		assertThrows(UnsupportedOperationException.class, () -> a.setVariableMap(newMap));
+		assertThrows(UnsupportedOperationException.class, () -> a.adaptVariableMap(newMap));
+		assertThrows(UnsupportedOperationException.class, () -> variableA.setVariableMap(newMap));
+		assertThrows(UnsupportedOperationException.class, () -> variableA.adaptVariableMap(newMap));
+		final Variable<?> i = map.getVariable("I").get();
+		assertThrows(UnsupportedOperationException.class, () -> i.setVariableMap(newMap));
+		assertSame(map, a.getVariable().getVariableMap());
+		assertSame(map, i.getVariableMap());
+
+		final LiteralPredicate notA = a.flip();
+		notA.setVariableMap(newMap);
+		assertSame(newMap, notA.getVariable().getVariableMap());
+		assertSame(map, variableA.getVariableMap());
+		final BoolVariable copyA = variableA.cloneNode();
+		copyA.adaptVariableMap(VariableMap.fromNames(Arrays.asList("B", "A")));
+		assertEquals(2, copyA.getIndex());
+		assertEquals(1, variableA.getIndex());
+
+		final LiteralPredicate newA = a.withVariableMap(newMap);
+		assertSame(newMap.getLiteral("A", true).get(), newA);
+		assertSame(map, a.getVariable().getVariableMap());
+		assertSame(newMap.getVariable("I").get(), i.withVariableMap(newMap));
+		final VariableMap reorderedMap = VariableMap.fromNames(Arrays.asList("B", "A"));
+		assertSame(reorderedMap.getLiteral("A", true).get(), a.withAdaptedVariableMap(reorderedMap));
+		assertEquals(1, a.getIndex());
+	}
+
+}
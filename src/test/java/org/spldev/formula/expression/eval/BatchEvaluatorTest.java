@@ -0,0 +1,80 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.eval;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+
+public class BatchEvaluatorTest {
+
+	@Test
+	public void randomFormulas() {
+		final RandomFormulas random = new RandomFormulas(2, 6);
+		final VariableMap map = random.getVariableMap();
+		for (int i = 0; i < 200; i++) {
+			final Formula formula = random.formula(5);
+			final BatchEvaluator evaluator = new BatchEvaluator(formula);
+			final List<Assignment> assignments = new ArrayList<>();
+			final AssignmentBlock block = new AssignmentBlock(map);
+			for (int j = 0; j < 50; j++) {
+				final Assignment assignment = random.assignment(random.literals());
+				assignments.add(assignment);
+				block.add(assignment);
+			}
+			final long trueMask = evaluator.evaluate(block);
+			final long falseMask = evaluator.getFalseMask();
+			final long unknownMask = evaluator.getUnknownMask();
+			for (int j = 0; j < assignments.size(); j++) {
+				final Optional<Object> expected = Formulas.evaluate(formula, assignments.get(j));
+				final long bit = 1L << j;
+				assertEquals(expected.equals(Optional.of(Boolean.TRUE)), (trueMask & bit) != 0, formula.toString());
+				assertEquals(expected.equals(Optional.of(Boolean.FALSE)), (falseMask & bit) != 0, formula.toString());
+				assertEquals(expected.isEmpty(), (unknownMask & bit) != 0, formula.toString());
+			}
+			assertEquals(0, (trueMask | falseMask | unknownMask) & ~block.getMask());
+		}
+	}
+
+	@Test
+	public void evaluateAll() {
+		final VariableMap map = VariableMap.fromNames(Arrays.asList("A", "B"));
+		final Formula formula = new Or(map.getLiteral("A", true).get(), new Not(map.getLiteral("B", true).get()));
+		final List<Assignment> assignments = new ArrayList<>();
+		for (int i = 0; i < 150; i++) {
+			assignments.add(BooleanAssignment.fromLiterals(2, (i % 2) == 0 ? 1 : -1, (i % 3) == 0 ? 2 : -2));
+		}
+		final BitSet result = new BatchEvaluator(formula).evaluateAll(assignments);
+		for (int i = 0; i < assignments.size(); i++) {
+			assertEquals(((i % 2) == 0) || ((i % 3) != 0), result.get(i));
+		}
+		assertEquals(-1, result.nextSetBit(assignments.size()));
+	}
+
+}
@@ -0,0 +1,69 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.eval;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+
+public class CompiledEvaluatorTest {
+
+	@Test
+	public void randomFormulas() {
+		final RandomFormulas random = new RandomFormulas(0, 6);
+		final VariableMap map = random.getVariableMap();
+		for (int i = 0; i < 200; i++) {
+			final Formula formula = random.formula(5);
+			final CompiledEvaluator evaluator = EvaluatorCompiler.compile(formula);
+			for (int j = 0; j < 20; j++) {
+				final int[] literals = random.literals();
+				final BooleanAssignment booleanAssignment = BooleanAssignment.fromLiterals(map.getMaxIndex(), literals);
+				final Assignment assignment = random.assignment(literals);
+				final Optional<Object> expected = Formulas.evaluate(formula, assignment);
+				assertEquals(expected, Optional.ofNullable(FormulaEvaluator.toBoolean(evaluator.evaluate(assignment))));
+				assertEquals(expected, Optional.ofNullable(FormulaEvaluator.toBoolean(evaluator.evaluate(
+					booleanAssignment))));
+			}
+		}
+	}
+
+	@Test
+	public void sharedSubformulas() {
+		final ExpressionFactory factory = new ExpressionFactory(VariableMap.fromNames(Arrays.asList("A", "B")));
+		Formula formula = factory.or(factory.literal("A", true), factory.literal("B", false));
+		for (int i = 0; i < 40; i++) {
+			formula = factory.and(formula, factory.not(factory.not(formula)));
+		}
+		final CompiledEvaluator evaluator = EvaluatorCompiler.compile(formula);
+		assertEquals(FormulaEvaluator.TRUE, evaluator.evaluate(BooleanAssignment.fromLiterals(2, 1)));
+		assertEquals(FormulaEvaluator.FALSE, evaluator.evaluate(BooleanAssignment.fromLiterals(2, -1, 2)));
+		assertEquals(FormulaEvaluator.UNKNOWN, evaluator.copy().evaluate(BooleanAssignment.fromLiterals(2, 2)));
+	}
+
+}
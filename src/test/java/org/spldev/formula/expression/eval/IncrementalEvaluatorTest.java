@@ -0,0 +1,75 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.eval;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+
+public class IncrementalEvaluatorTest {
+
+	@Test
+	public void randomChanges() {
+		final RandomFormulas random = new RandomFormulas(4, 8);
+		final VariableMap map = random.getVariableMap();
+		final Random changes = new Random(4);
+		for (int i = 0; i < 50; i++) {
+			final List<Formula> constraints = new ArrayList<>();
+			for (int j = 0; j < 10; j++) {
+				constraints.add(random.formula(4));
+			}
+			final Formula formula = new And(constraints);
+			final IncrementalEvaluator evaluator = new IncrementalEvaluator(formula, new VariableAssignment(map));
+			final Optional<?>[] constraintValues = new Optional<?>[constraints.size()];
+			for (int j = 0; j < constraints.size(); j++) {
+				constraintValues[j] = Formulas.evaluate(constraints.get(j), evaluator.getAssignment());
+			}
+			for (int j = 0; j < 100; j++) {
+				final int index = 1 + changes.nextInt(map.size());
+				final int choice = changes.nextInt(3);
+				final int[] changed = evaluator.set(index, choice == 2 ? null : choice == 0);
+
+				final List<Integer> expectedChanged = new ArrayList<>();
+				for (int k = 0; k < constraints.size(); k++) {
+					final Optional<Object> value = Formulas.evaluate(constraints.get(k), evaluator.getAssignment());
+					assertEquals(value, Optional.ofNullable(FormulaEvaluator.toBoolean(evaluator.getConstraintValue(
+						k))));
+					if (!value.equals(constraintValues[k])) {
+						expectedChanged.add(k);
+						constraintValues[k] = value;
+					}
+				}
+				assertArrayEquals(expectedChanged.stream().mapToInt(Integer::intValue).toArray(), changed);
+				assertEquals(Formulas.evaluate(formula, evaluator.getAssignment()), Optional.ofNullable(
+					FormulaEvaluator.toBoolean(evaluator.getValue())));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.eval;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.stream.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+
+public class ParallelEvaluationTest {
+
+	@Test
+	public void preserveOrder() {
+		final RandomFormulas random = new RandomFormulas(3, 8);
+		final VariableMap map = random.getVariableMap();
+		final Formula formula = random.formula(6);
+		final List<Assignment> assignments = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			assignments.add(BooleanAssignment.fromLiterals(map.getMaxIndex(), random.literals()));
+		}
+		final List<Optional<Object>> expected = assignments.stream() //
+			.map(assignment -> Formulas.evaluate(formula, assignment)) //
+			.collect(Collectors.toList());
+		assertEquals(expected, Formulas.evaluateAll(formula, assignments));
+		assertEquals(expected, Formulas.evaluateAll(formula, assignments.parallelStream())
+			.collect(Collectors.toList()));
+		assertEquals(expected, Formulas.evaluateAll(formula, assignments.stream()).collect(Collectors.toList()));
+		assertTrue(Formulas.evaluateAll(formula, Collections.emptyList()).isEmpty());
+	}
+
+}
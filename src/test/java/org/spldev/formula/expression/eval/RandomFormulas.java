@@ -0,0 +1,131 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.eval;
+
+import java.util.*;
+
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+
+/**
+ * Creates random formulas and assignments for evaluator tests.
+ */
+public class RandomFormulas {
+
+	private final Random random;
+	private final VariableMap map;
+
+	public RandomFormulas(long seed, int variableCount) {
+		random = new Random(seed);
+		final List<String> names = new ArrayList<>();
+		for (int i = 1; i <= variableCount; i++) {
+			names.add("x" + i);
+		}
+		map = VariableMap.fromNames(names);
+	}
+
+	public RandomFormulas(long seed, VariableMap map) {
+		random = new Random(seed);
+		this.map = map;
+	}
+
+	public VariableMap getVariableMap() {
+		return map;
+	}
+
+	public Formula formula(int depth) {
+		if ((depth == 0) || (random.nextInt(5) == 0)) {
+			final int choice = random.nextInt(20);
+			if (choice == 0) {
+				return Literal.True;
+			} else if (choice == 1) {
+				return Literal.False;
+			}
+			return map.getLiteral(1 + random.nextInt(map.size()), random.nextBoolean()).get();
+		}
+		final List<Formula> children = new ArrayList<>();
+		final int childCount = 1 + random.nextInt(4);
+		for (int i = 0; i < childCount; i++) {
+			children.add(formula(depth - 1));
+		}
+		switch (random.nextInt(9)) {
+		case 0:
+			return new And(children);
+		case 1:
+			return new Or(children);
+		case 2:
+			return new Not(children.get(0));
+		case 3:
+			return new Implies(children.get(0), formula(depth - 1));
+		case 4:
+			return new Biimplies(children.get(0), formula(depth - 1));
+		case 5:
+			return new AtLeast(children, random.nextInt(childCount + 1));
+		case 6:
+			return new AtMost(children, random.nextInt(childCount + 1));
+		case 7:
+			final int min = random.nextInt(childCount + 1);
+			return new Between(children, min, min + random.nextInt((childCount - min) + 1));
+		default:
+			return new Choose(children, random.nextInt(childCount + 1));
+		}
+	}
+
+	/**
+	 * @return random literals, in which each variable is either positive,
+	 *         negative, or unassigned
+	 */
+	public int[] literals() {
+		final int[] literals = new int[map.size()];
+		int count = 0;
+		for (int i = 1; i <= map.size(); i++) {
+			switch (random.nextInt(3)) {
+			case 0:
+				literals[count++] = i;
+				break;
+			case 1:
+				literals[count++] = -i;
+				break;
+			default:
+				break;
+			}
+		}
+		return Arrays.copyOf(literals, count);
+	}
+
+	/**
+	 * @param literals the literals to assign
+	 * @return an assignment, in which all variables of the given literals are set
+	 *         accordingly and all other variables are unassigned
+	 */
+	public Assignment assignment(int[] literals) {
+		final Assignment assignment = new VariableAssignment(map);
+		for (final int literal : literals) {
+			assignment.set(Math.abs(literal), literal > 0);
+		}
+		return assignment;
+	}
+
+}
@@ -0,0 +1,78 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.flat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.term.bool.*;
+
+public class FlatFormulaTest {
+
+	private VariableMap map;
+	private Formula formula;
+
+	@BeforeEach
+	public void setUp() {
+		map = VariableMap.fromNames(Arrays.asList("A", "B", "C"));
+		final LiteralPredicate a = new LiteralPredicate((BoolVariable) map.getVariable("A").get(), true);
+		final LiteralPredicate b = new LiteralPredicate((BoolVariable) map.getVariable("B").get(), false);
+		final LiteralPredicate c = new LiteralPredicate((BoolVariable) map.getVariable("C").get(), true);
+		formula = new And(new Implies(a, new Or(b, c)), new AtMost(Arrays.asList(a, b, c), 2),
+			new Biimplies(new Not(c), Literal.True));
+	}
+
+	@Test
+	public void convert() {
+		final FlatFormula flatFormula = FlatFormula.fromFormula(formula);
+		assertEquals(FlatFormula.AND, flatFormula.getOpcode(flatFormula.getRoot()));
+		assertEquals(3, flatFormula.getChildCount(flatFormula.getRoot()));
+		for (int node = 0; node < flatFormula.size(); node++) {
+			for (int i = 0; i < flatFormula.getChildCount(node); i++) {
+				assertTrue(flatFormula.getChild(node, i) < node);
+			}
+		}
+		assertEquals(formula, flatFormula.toFormula());
+	}
+
+	@Test
+	public void evaluate() {
+		final FlatFormula flatFormula = FlatFormula.fromFormula(formula);
+		final Object[][] assignments = { {}, { 1, true }, { 3, false }, { 1, true, 2, true, 3, false },
+			{ 1, false, 3, false }, { 1, true, 2, false, 3, false } };
+		for (final Object[] values : assignments) {
+			final Assignment assignment = new VariableAssignment(map);
+			for (int i = 0; i < values.length; i += 2) {
+				assignment.set((Integer) values[i], values[i + 1]);
+			}
+			assertEquals(Formulas.evaluate(formula, assignment), flatFormula.evaluate(assignment).map(v -> v));
+		}
+	}
+
+}
@@ -25,7 +25,12 @@ package org.spldev.formula.expression.io;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.spldev.formula.expression.io.FormatTest.*;
 
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
 import org.junit.jupiter.api.*;
+import org.spldev.formula.clauses.*;
 import org.spldev.formula.expression.*;
 import org.spldev.formula.expression.atomic.literal.*;
 import org.spldev.formula.expression.compound.*;
@@ -37,6 +42,37 @@ import org.spldev.formula.expression.compound.*;
  */
 public class DIMACSFormatTest {
 
+	@Test
+	public void DIMACS_sink() throws Exception {
+		final VariableMap map = VariableMap.fromNames(Arrays.asList("A", "B"));
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (DimacsSink sink = new DimacsSink(out, map, false)) {
+			sink.addClause(1, -2);
+			assertThrows(IllegalArgumentException.class, () -> sink.addClause(2, 0));
+			sink.addClause(2);
+			assertEquals(2, sink.getClauseCount());
+		}
+		final ClauseList clauses = new DimacsReader().readClauseList(out.toString(StandardCharsets.UTF_8.name()));
+		assertEquals(2, clauses.size());
+		assertArrayEquals(new int[] { 1, -2 }, clauses.getClause(0));
+		assertArrayEquals(new int[] { 2 }, clauses.getClause(1));
+
+		final boolean[] closed = new boolean[1];
+		final OutputStream failingOut = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException();
+			}
+
+			@Override
+			public void close() {
+				closed[0] = true;
+			}
+		};
+		assertThrows(IOException.class, () -> new DimacsSink(failingOut, map, true));
+		assertTrue(closed[0]);
+	}
+
 	@Test
 	public void DIMACS_123_n1n2n3() {
 		test("123-n1n2n3");
@@ -0,0 +1,96 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.transform;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.eval.*;
+import org.spldev.util.job.*;
+import org.spldev.util.tree.*;
+
+public class BooleanSimplifierTest {
+
+	private final VariableMap map = VariableMap.fromNames(Arrays.asList("A", "B", "C", "D"));
+	private final Literal a = map.getLiteral("A", true).get();
+	private final Literal b = map.getLiteral("B", true).get();
+	private final Literal c = map.getLiteral("C", true).get();
+	private final Literal d = map.getLiteral("D", true).get();
+
+	@Test
+	public void simplify() {
+		assertEquals(new And(a, b), simplify(new And(a, b, new And(b, a), Literal.True)));
+		assertEquals(Literal.False, simplify(new And(new Or(b, c), a, d, a.flip())));
+		assertEquals(Literal.True, simplify(new Or(new And(b, c), a, new Not(a))));
+		assertEquals(new Or(a, new And(c, d)), simplify(new Or(new And(a, b), a, new And(c, d))));
+		assertEquals(new Or(b, a), simplify(new Or(new And(a.flip(), b), a)));
+		assertEquals(new And(a, b, new Or(c, d)), simplify(new And(a, new Or(a.flip(), b), new Or(b.flip(), c,
+			d))));
+		assertEquals(new And(a, c.flip(), b.flip(), d), simplify(new And(a, new Or(a.flip(), c.flip()),
+			new Or(c, b.flip()), new Or(d, b, c))));
+		assertEquals(new And(a, b.flip()), simplify(new And(new Not(new Not(a)), new Not(b))));
+
+		final BooleanSimplifier simplifier = new BooleanSimplifier();
+		simplifier.setPropagatingUnitLiterals(false);
+		final Formula formula = new And(a, new Or(b, c), new Or(b.flip(), d));
+		assertSame(formula, simplifier.execute(formula, new NullMonitor()));
+	}
+
+	@Test
+	public void randomFormulas() {
+		final RandomFormulas random = new RandomFormulas(2, 5);
+		final VariableMap randomMap = random.getVariableMap();
+		for (int i = 0; i < 300; i++) {
+			final Formula formula = random.formula(4);
+			final Formula copy = Trees.cloneTree(formula);
+			final Formula simplifiedFormula = simplify(formula);
+			assertEquals(copy, formula);
+			for (int j = 0; j < (1 << randomMap.size()); j++) {
+				final Assignment assignment = new VariableAssignment(randomMap);
+				for (int k = 1; k <= randomMap.size(); k++) {
+					assignment.set(k, ((j >> (k - 1)) & 1) != 0);
+				}
+				assertEquals(Formulas.evaluate(formula, assignment), Formulas.evaluate(simplifiedFormula,
+					assignment));
+			}
+
+			final Formula nnf = new NNFTransformer().execute(formula, new NullMonitor());
+			assertTrue(size(simplify(nnf)) <= size(nnf));
+		}
+	}
+
+	private static Formula simplify(Formula formula) {
+		return Formulas.simplify(formula).get();
+	}
+
+	private static int size(Expression expression) {
+		return (int) Trees.preOrderStream(expression).count();
+	}
+
+}
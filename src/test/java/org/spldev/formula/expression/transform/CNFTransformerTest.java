@@ -0,0 +1,289 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.transform;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.clauses.*;
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.eval.*;
+import org.spldev.formula.expression.io.*;
+import org.spldev.util.job.*;
+import org.spldev.util.tree.*;
+
+public class CNFTransformerTest {
+
+	private VariableMap map;
+	private Formula formula;
+
+	@BeforeEach
+	public void setUp() {
+		map = VariableMap.fromNames(Arrays.asList("A", "B", "C", "D", "E", "F", "G", "H"));
+		final RandomFormulas random = new RandomFormulas(5, map);
+		final List<Formula> constraints = new ArrayList<>();
+		while (constraints.size() < 100) {
+			final Formula constraint = random.formula(4);
+			final Formula nnf = new NNFTransformer().execute(constraint, new NullMonitor());
+			if ((nnf != Literal.True) && (nnf != Literal.False)) {
+				constraints.add(constraint);
+			}
+		}
+		formula = new And(constraints);
+	}
+
+	@Test
+	public void multipleThreads() {
+		final CNFTransformer sequentialTransformer = new CNFTransformer();
+		final Formula expected = transform(sequentialTransformer);
+		assertTrue(Formulas.isClausalCNF(expected));
+		assertTrue(expected.getVariableMap().size() > map.size());
+		for (int i = 0; i < 5; i++) {
+			final CNFTransformer transformer = new CNFTransformer();
+			transformer.setUseMultipleThreads(true);
+			final Formula cnf = transform(transformer);
+			assertEquals(expected, cnf);
+			assertEquals(expected.getVariableMap(), cnf.getVariableMap());
+			assertEquals(sequentialTransformer.getNumberOfTseytinClauses(), transformer.getNumberOfTseytinClauses());
+		}
+	}
+
+	@Test
+	public void plaistedGreenbaum() {
+		final CNFTransformer tseytinTransformer = new CNFTransformer();
+		final Formula tseytinCNF = transform(tseytinTransformer);
+		final CNFTransformer plaistedGreenbaumTransformer = new CNFTransformer();
+		plaistedGreenbaumTransformer.setUsePlaistedGreenbaum(true);
+		final Formula plaistedGreenbaumCNF = transform(plaistedGreenbaumTransformer);
+
+		assertEquals(0, tseytinTransformer.getNumberOfOmittedClauses());
+		assertTrue(plaistedGreenbaumTransformer.getNumberOfOmittedClauses() > 0);
+		assertEquals(tseytinTransformer.getNumberOfTseytinClauses(), plaistedGreenbaumTransformer
+			.getNumberOfTseytinClauses() + plaistedGreenbaumTransformer.getNumberOfOmittedClauses());
+		assertEquals(tseytinCNF.getChildren().size(), plaistedGreenbaumCNF.getChildren().size()
+			+ plaistedGreenbaumTransformer.getNumberOfOmittedClauses());
+		assertTrue(new HashSet<>(tseytinCNF.getChildren()).containsAll(plaistedGreenbaumCNF.getChildren()));
+	}
+
+	@Test
+	public void streaming() throws Exception {
+		final CNFTransformer transformer = new CNFTransformer();
+		final Formula cnf = transform(transformer);
+		final ClauseList expected = ClauseList.fromCNF(cnf, cnf.getVariableMap());
+
+		final CNFTransformer streamingTransformer = new CNFTransformer();
+		streamingTransformer.setMaximumNumberOfLiterals(10);
+		final ClauseList clauses = new ClauseList(formula.getVariableMap());
+		final VariableMap variableMap = streamingTransformer.execute(formula, clauses);
+		assertEquals(cnf.getVariableMap(), variableMap);
+		assertClauses(expected, clauses);
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (DimacsSink sink = new DimacsSink(out, formula.getVariableMap(), true)) {
+			streamingTransformer.execute(formula, sink);
+		}
+		final Path file = Files.createTempFile("cnf", ".dimacs");
+		try {
+			try (DimacsSink sink = new DimacsSink(file, formula.getVariableMap())) {
+				streamingTransformer.execute(formula, sink);
+			}
+			assertEquals(out.toString(StandardCharsets.UTF_8.name()), new String(Files.readAllBytes(file),
+				StandardCharsets.UTF_8));
+		} finally {
+			Files.delete(file);
+		}
+		final DimacsReader reader = new DimacsReader();
+		reader.setReadingVariableDirectory(true);
+		final ClauseList readClauses = reader.readClauseList(out.toString(StandardCharsets.UTF_8.name()));
+		assertEquals(clauses.size(), readClauses.size());
+		for (int i = 0; i < clauses.size(); i++) {
+			assertArrayEquals(clauses.getClause(i), readClauses.getClause(i));
+		}
+		assertEquals("A", readClauses.getVariableMap().nameOf(1));
+	}
+
+	@Test
+	public void streamingConstants() {
+		final Formula a = map.getLiteral("A", true).get();
+		final Formula b = map.getLiteral("B", true).get();
+		final CNFTransformer transformer = new CNFTransformer();
+		final ClauseList cnfClauses = new ClauseList(map);
+		transformer.execute(new And(new Or(a, Literal.True), new Or(b, Literal.False)), cnfClauses);
+		assertEquals(1, cnfClauses.size());
+		assertArrayEquals(new int[] { 2 }, cnfClauses.getClause(0));
+
+		final Formula constantFormula = new And(new Implies(a, Literal.True), new Or(b, new And(a, Literal.False)),
+			new Or(Literal.False));
+		final Formula cnf = transformer.execute(constantFormula, new NullMonitor());
+		final ClauseList clauses = new ClauseList(map);
+		transformer.execute(constantFormula, clauses);
+		assertClauses(ClauseList.fromCNF(cnf, map), clauses);
+		assertArrayEquals(new int[0], clauses.getClause(clauses.size() - 1));
+	}
+
+	@Test
+	public void streamingSimplifiedClauses() {
+		final Assignment assignment = new VariableAssignment(map);
+		for (int i = 1; i <= map.size(); i++) {
+			assignment.set(i, (i % 2) == 0);
+		}
+		final List<Formula> satisfiedConstraints = new ArrayList<>();
+		for (final Expression constraint : formula.getChildren()) {
+			if ((satisfiedConstraints.size() < 5) && Boolean.TRUE.equals(Formulas.evaluate((Formula) constraint,
+				assignment).orElse(null))) {
+				satisfiedConstraints.add((Formula) constraint);
+			}
+		}
+		final Formula satisfiableFormula = new And(satisfiedConstraints);
+		final CNFTransformer transformer = new CNFTransformer();
+		transformer.setMaximumNumberOfLiterals(10);
+		final int numberOfClauses = transformer.execute(satisfiableFormula, new NullMonitor()).getChildren().size();
+		transformer.setSimplifyingClauses(true);
+		final Formula cnf = transformer.execute(satisfiableFormula, new NullMonitor());
+		final ClauseList clauses = new ClauseList(map);
+		final VariableMap variableMap = transformer.execute(satisfiableFormula, clauses);
+		assertEquals(cnf.getVariableMap(), variableMap);
+		assertClauses(ClauseList.fromCNF(cnf, variableMap), clauses);
+		assertTrue(clauses.size() < numberOfClauses);
+	}
+
+	@Test
+	public void sharedSubformulas() {
+		final Formula a = map.getLiteral("A", true).get();
+		final Formula b = map.getLiteral("B", true).get();
+		final Formula c = map.getLiteral("C", true).get();
+		final Formula d = map.getLiteral("D", true).get();
+		final Formula e = map.getLiteral("E", true).get();
+		final Formula constraint = new Or(new And(a, b), new And(c, d), e);
+		final Formula sharedFormula = new And(constraint, new Or(new And(b, a), e), Trees.cloneTree(
+			constraint));
+
+		final CNFTransformer transformer = new CNFTransformer();
+		transformer.setMaximumNumberOfLiterals(0);
+		final Formula cnf = transformer.execute(sharedFormula, new NullMonitor());
+		assertTrue(Formulas.isClausalCNF(cnf));
+		assertEquals(map.size() + 2, cnf.getVariableMap().size());
+		assertEquals((2 * 3) + 1 + 1, cnf.getChildren().size());
+
+		transformer.setUseMultipleThreads(true);
+		final Formula parallelCnf = transformer.execute(sharedFormula, new NullMonitor());
+		assertEquals(cnf, parallelCnf);
+		assertEquals(cnf.getVariableMap(), parallelCnf.getVariableMap());
+
+		final TseytinTransformer tseytinTransformer = new TseytinTransformer();
+		tseytinTransformer.setVariableMap(map.clone());
+		Executor.run(tseytinTransformer, Trees.cloneTree(constraint)).get();
+		assertEquals(2, tseytinTransformer.getNumberOfDefinitions());
+		assertEquals(2, Executor.run(tseytinTransformer, new Or(new And(a, c), new And(b, a))).get().size());
+		assertEquals(3, tseytinTransformer.getNumberOfDefinitions());
+
+		final TseytinTransformer otherTseytinTransformer = new TseytinTransformer();
+		otherTseytinTransformer.setVariableMap(map.clone());
+		final List<TseytinTransformer.Substitute> otherSubstitutes = Executor.run(otherTseytinTransformer, new Or(
+			new And(a, d), new And(c, d), new And(a, c))).get();
+		assertEquals(4, otherSubstitutes.size());
+		final List<TseytinTransformer.Substitute> mergedSubstitutes = tseytinTransformer.merge(otherSubstitutes);
+		assertEquals(2, mergedSubstitutes.size());
+		assertEquals(4, tseytinTransformer.getNumberOfDefinitions());
+		assertEquals(0, tseytinTransformer.merge(otherSubstitutes).size());
+	}
+
+	@Test
+	public void nestedEquivalences() {
+		final Literal a = map.getLiteral("A", true).get();
+		Formula formula = a;
+		for (int i = 0; i < 60; i++) {
+			final Literal literal = map.getLiteral(2 + (i % 7), (i % 2) == 0).get();
+			formula = new Biimplies(new Or(formula, literal), new And(literal.flip(), a.flip()));
+		}
+		final CNFTransformer transformer = new CNFTransformer();
+		transformer.setUseOperandDefinitions(true);
+		final Formula cnf = transformer.execute(formula, new NullMonitor());
+		assertTrue(Formulas.isClausalCNF(cnf));
+		assertTrue(cnf.getChildren().size() < (60 * 20));
+		assertTrue(cnf.getVariableMap().size() < (map.size() + (60 * 4)));
+
+		final ClauseList clauses = ClauseList.fromCNF(cnf, cnf.getVariableMap());
+		int models = 0;
+		for (int assignment = 0; assignment < (1 << map.size()); assignment++) {
+			final UnitPropagator propagator = new UnitPropagator(clauses);
+			final BooleanAssignment values = new BooleanAssignment(map.size());
+			boolean consistent = !propagator.hasConflict();
+			for (int i = 1; i <= map.size(); i++) {
+				final int literal = (assignment & (1 << (i - 1))) != 0 ? i : -i;
+				values.setLiteral(literal);
+				consistent = consistent && propagator.assign(literal);
+			}
+			final boolean expected = Boolean.TRUE.equals(Formulas.evaluate(formula, values).orElse(null));
+			assertEquals(expected, consistent && CardinalityEncoderTest.isSatisfiable(propagator, clauses
+				.getVariableMap().getMaxIndex()), String.valueOf(assignment));
+			if (expected) {
+				models++;
+			}
+		}
+		assertEquals(43, models);
+	}
+
+	@Test
+	public void estimateDistributiveLaw() {
+		final Formula a = map.getLiteral("A", true).get();
+		final Formula b = map.getLiteral("B", true).get();
+		final Formula c = map.getLiteral("C", true).get();
+		final Formula d = map.getLiteral("D", true).get();
+		final DistributiveLawCounter.Estimate estimate = Trees.traverse(new And(new Or(new And(a, b), new And(c, d),
+			map.getLiteral("E", true).get()), new Or(a, c)), new DistributiveLawCounter()).get();
+		assertEquals(5, estimate.getNumberOfClauses());
+		assertEquals(14, estimate.getNumberOfLiterals());
+		assertEquals(12, estimate.getMaximumNumberOfStepLiterals());
+
+		Formula formula = a;
+		for (int i = 0; i < 70; i++) {
+			formula = new Or(new And(formula, b), new And(c, d));
+		}
+		final DistributiveLawCounter.Estimate largeEstimate = Trees.traverse(formula, new DistributiveLawCounter())
+			.get();
+		assertEquals(Long.MAX_VALUE, largeEstimate.getNumberOfClauses());
+		assertEquals(Long.MAX_VALUE, largeEstimate.getMaximumNumberOfStepLiterals());
+	}
+
+	private void assertClauses(ClauseList expected, ClauseList clauses) {
+		assertEquals(expected.size(), clauses.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertArrayEquals(expected.getClause(i), clauses.getClause(i));
+		}
+	}
+
+	private Formula transform(CNFTransformer transformer) {
+		transformer.setMaximumNumberOfLiterals(10);
+		return transformer.execute(formula, new NullMonitor());
+	}
+
+}
@@ -0,0 +1,186 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.transform;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.clauses.*;
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.transform.CardinalityEncoder.*;
+import org.spldev.util.job.*;
+
+public class CardinalityEncoderTest {
+
+	@Test
+	public void encodings() {
+		for (final Encoding encoding : Encoding.values()) {
+			for (int n = 1; n <= 8; n++) {
+				final List<String> names = new ArrayList<>();
+				for (int i = 1; i <= n; i++) {
+					names.add("x" + i);
+				}
+				final VariableMap map = VariableMap.fromNames(names);
+				final List<Formula> literals = new ArrayList<>();
+				for (int i = 1; i <= n; i++) {
+					literals.add(map.getLiteral(i, (i % 3) != 0).get());
+				}
+				for (int k = 0; k <= n; k++) {
+					check(new AtMost(literals, k), encoding, n);
+					check(new AtLeast(literals, k), encoding, n);
+					check(new Choose(literals, k), encoding, n);
+					check(new Between(literals, k, Math.min(k + 2, n)), encoding, n);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void threshold() {
+		final List<String> names = new ArrayList<>();
+		for (int i = 1; i <= 200; i++) {
+			names.add("x" + i);
+		}
+		final VariableMap map = VariableMap.fromNames(names);
+		final List<Formula> literals = new ArrayList<>();
+		for (int i = 1; i <= 200; i++) {
+			literals.add(map.getLiteral(i, true).get());
+		}
+		final Formula formula = new AtMost(literals, 1);
+
+		final CNFTransformer transformer = new CNFTransformer();
+		final Formula defaultCnf = Executor.run(transformer, formula).get();
+		assertEquals(19_900, defaultCnf.getChildren().size());
+		assertEquals(200, defaultCnf.getVariableMap().size());
+		final CardinalityEncoder encoder = new CardinalityEncoder(map.clone());
+		assertEquals(19_900, encoder.atMost(literals, 1).size());
+		assertEquals(200, encoder.getVariableMap().size());
+
+		transformer.setMaximumNumberOfBinomialClauses(Long.MAX_VALUE);
+		assertEquals(19_900, Executor.run(transformer, formula).get().getChildren().size());
+
+		for (final Encoding encoding : Encoding.values()) {
+			if (encoding != Encoding.BINOMIAL) {
+				transformer.setMaximumNumberOfBinomialClauses(100);
+				transformer.setCardinalityEncoding(encoding);
+				final Formula cnf = Executor.run(transformer, formula).get();
+				assertTrue(cnf.getChildren().size() < 1990, encoding.toString());
+				assertTrue(cnf.getVariableMap().size() > 200);
+				assertEquals(200, map.size());
+			}
+		}
+	}
+
+	@Test
+	public void negatedConstraints() {
+		final int n = 5;
+		final VariableMap map = VariableMap.fromNames(Arrays.asList("A", "B", "C", "D", "E"));
+		final List<Formula> literals = new ArrayList<>();
+		for (int i = 1; i <= n; i++) {
+			literals.add(map.getLiteral(i, true).get());
+		}
+		final Formula a = literals.get(0);
+		for (final Encoding encoding : Encoding.values()) {
+			for (int k = 0; k <= n; k++) {
+				for (final Formula constraint : Arrays.asList(new AtMost(literals, k), new AtLeast(literals, k),
+					new Choose(literals, k), new Between(literals, k, Math.min(k + 1, n)))) {
+					for (final Formula formula : Arrays.asList(new Not(constraint), new Implies(constraint, a),
+						new Biimplies(constraint, a), new Not(new Not(constraint)))) {
+						final CardinalityEncoder encoder = new CardinalityEncoder(map.clone());
+						encoder.setEncoding(encoding);
+						encoder.setMaximumNumberOfBinomialClauses(0);
+						final Formula encoded = (Formula) Formulas.manipulate(formula, new EquivalenceVisitor(
+							encoder));
+						encoded.setVariableMap(encoder.getVariableMap());
+						final Formula cnf = Executor.run(new CNFTransformer(), encoded).get();
+						check(formula, cnf, n, encoding.toString());
+					}
+				}
+			}
+		}
+	}
+
+	private static void check(Formula formula, Encoding encoding, int n) {
+		final CNFTransformer transformer = new CNFTransformer();
+		transformer.setCardinalityEncoding(encoding);
+		transformer.setMaximumNumberOfBinomialClauses(0);
+		check(formula, Executor.run(transformer, formula).get(), n, encoding.toString());
+	}
+
+	private static void check(Formula formula, Formula cnf, int n, String label) {
+		final ClauseList clauses = new ClauseList(cnf.getVariableMap());
+		for (final Expression clause : cnf.getChildren()) {
+			List<Formula> literals = new ArrayList<>();
+			for (final Expression literal : clause.getChildren()) {
+				if (literal == Literal.True) {
+					literals = null;
+					break;
+				} else if (literal != Literal.False) {
+					literals.add((Formula) literal);
+				}
+			}
+			if (literals != null) {
+				clauses.addClauses(ClauseList.fromCNF(new And(new Or(literals)), cnf.getVariableMap()));
+			}
+		}
+		for (int assignment = 0; assignment < (1 << n); assignment++) {
+			final UnitPropagator propagator = new UnitPropagator(clauses);
+			final BooleanAssignment values = new BooleanAssignment(n);
+			boolean consistent = !propagator.hasConflict();
+			for (int i = 1; i <= n; i++) {
+				final int literal = (assignment & (1 << (i - 1))) != 0 ? i : -i;
+				values.setLiteral(literal);
+				if (consistent && (i <= clauses.getVariableMap().getMaxIndex())) {
+					consistent = propagator.assign(literal);
+				}
+			}
+			final boolean expected = Boolean.TRUE.equals(Formulas.evaluate(formula, values).orElse(null));
+			final boolean satisfiable = consistent && isSatisfiable(propagator, clauses.getVariableMap()
+				.getMaxIndex());
+			assertEquals(expected, satisfiable, formula + " " + label + " " + assignment);
+		}
+	}
+
+	static boolean isSatisfiable(UnitPropagator propagator, int maxIndex) {
+		for (int variable = 1; variable <= maxIndex; variable++) {
+			if (propagator.getValue(variable) == 0) {
+				if (propagator.decide(variable) && isSatisfiable(propagator, maxIndex)) {
+					return true;
+				}
+				propagator.pop();
+				if (propagator.decide(-variable) && isSatisfiable(propagator, maxIndex)) {
+					return true;
+				}
+				propagator.pop();
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
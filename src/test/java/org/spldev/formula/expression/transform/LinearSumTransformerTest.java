@@ -0,0 +1,131 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.transform;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.atomic.predicate.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.term.*;
+import org.spldev.formula.expression.term.integer.*;
+import org.spldev.formula.expression.term.real.*;
+import org.spldev.util.tree.*;
+
+public class LinearSumTransformerTest {
+
+	private VariableMap map;
+	private IntVariable x;
+	private IntVariable y;
+	private IntVariable z;
+
+	@BeforeEach
+	public void setUp() {
+		map = VariableMap.fromNames(Arrays.asList("A"));
+		x = map.addIntegerVariable("x").get();
+		y = map.addIntegerVariable("y").get();
+		z = map.addIntegerVariable("z").get();
+	}
+
+	@Test
+	public void linearTerms() {
+		final Term<Long> term = new IntAdd(new IntAdd(new IntMultiply(new IntAdd(x, new IntConstant(2L)),
+			new IntConstant(3L)), new IntMultiply(y, z)), new IntAdd(new IntConstant(5L), x));
+		final Formula formula = new Equals<>(z, term);
+		final Formula transformed = Formulas.toLinearSums(formula).get();
+
+		assertSame(z, transformed.getChildren().get(0));
+		final IntLinearSum sum = (IntLinearSum) transformed.getChildren().get(1);
+		assertEquals(Arrays.asList(x, new IntMultiply(y, z)), sum.getChildren());
+		assertEquals(4L, sum.getCoefficient(0).longValue());
+		assertEquals(1L, sum.getCoefficient(1).longValue());
+		assertEquals(11L, sum.getConstant().longValue());
+		assertEquals(Optional.of((4L * 7) + 12 + 11), sum.eval(Arrays.asList(7L, 12L)));
+		assertEquals(Optional.empty(), sum.eval(Arrays.asList(7L, null)));
+		assertEquals(new IntAdd(new IntAdd(new IntMultiply(new IntAdd(x, new IntConstant(2L)), new IntConstant(3L)),
+			new IntMultiply(y, z)), new IntAdd(new IntConstant(5L), x)), term);
+
+		final Formula unchanged = new And(new Equals<>(x, new IntConstant(1L)), new Equals<>(y, new IntMultiply(x,
+			z)));
+		assertSame(unchanged, Formulas.toLinearSums(unchanged).get());
+
+		final RealVariable r = map.addRealVariable("r").get();
+		final RealVariable s = map.addRealVariable("s").get();
+		final Formula realFormula = new Equals<>(r, new RealAdd(new RealMultiply(new RealConstant(0.5), s),
+			new RealAdd(s, new RealConstant(1.0))));
+		final RealLinearSum realSum = (RealLinearSum) Formulas.toLinearSums(realFormula).get().getChildren().get(1);
+		assertEquals(Arrays.asList(s), realSum.getChildren());
+		assertEquals(1.5, realSum.getCoefficient(0).doubleValue());
+		assertEquals(1.0, realSum.getConstant().doubleValue());
+	}
+
+	@Test
+	public void coefficients() {
+		final IntLinearSum sum = new IntLinearSum(Arrays.asList(x, y), new long[] { 2L, 3L }, 1L);
+		assertThrows(IllegalArgumentException.class, () -> new IntLinearSum(Arrays.asList(x), new long[] { 2L, 3L },
+			1L));
+		assertThrows(IllegalArgumentException.class, () -> sum.setChildren(Arrays.asList(x)));
+		assertEquals(Arrays.asList(x, y), sum.getChildren());
+
+		final IntLinearSum clonedSum = (IntLinearSum) Trees.cloneTree(sum);
+		assertEquals(sum, clonedSum);
+		assertEquals(Optional.of(1L + (2L * 5) + (3L * 7)), clonedSum.eval(Arrays.asList(5L, 7L)));
+		assertTrue(sum.cloneNode().getChildren().isEmpty());
+		clonedSum.setChildren(Arrays.asList(z, x));
+		assertEquals(2L, clonedSum.getCoefficient(0).longValue());
+		assertEquals(Arrays.asList(x, y), sum.getChildren());
+
+		final RealVariable r = map.addRealVariable("r").get();
+		final RealLinearSum realSum = new RealLinearSum(Arrays.asList(r), new double[] { 0.5 }, 0.0);
+		assertThrows(IllegalArgumentException.class, () -> realSum.setChildren(Collections.emptyList()));
+		assertEquals(realSum, Trees.cloneTree(realSum));
+	}
+
+	@Test
+	public void deepSums() {
+		final int n = 100_000;
+		final List<IntVariable> variables = new ArrayList<>();
+		Term<Long> term = x;
+		for (int i = 0; i < n; i++) {
+			final IntVariable variable = map.addIntegerVariable("v" + i).get();
+			variables.add(variable);
+			term = new IntAdd(term, variable);
+		}
+		term = new IntAdd(term, x);
+		final Formula transformed = Formulas.toLinearSums(new Equals<>(z, term)).get();
+		assertEquals(3, Formulas.getMaxDepth(transformed));
+
+		final IntLinearSum sum = (IntLinearSum) transformed.getChildren().get(1);
+		assertEquals(n + 1, sum.getChildren().size());
+		assertEquals(x, sum.getChildren().get(0));
+		assertEquals(2L, sum.getCoefficient(0).longValue());
+		assertEquals(variables, sum.getChildren().subList(1, n + 1));
+		final List<Long> values = new ArrayList<>(Collections.nCopies(n + 1, 1L));
+		assertEquals(Optional.of(n + 2L), sum.eval(values));
+	}
+
+}
@@ -0,0 +1,147 @@
+/* -----------------------------------------------------------------------------
+ * Formula Lib - Library to represent and edit propositional formulas.
+ * Copyright (C) 2021  Sebastian Krieter
+ * 
+ * This file is part of Formula Lib.
+ * 
+ * Formula Lib is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ * 
+ * Formula Lib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Formula Lib.  If not, see <https://www.gnu.org/licenses/>.
+ * 
+ * See <https://github.com/skrieter/formula> for further information.
+ * -----------------------------------------------------------------------------
+ */
+package org.spldev.formula.expression.transform;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.spldev.formula.expression.*;
+import org.spldev.formula.expression.atomic.*;
+import org.spldev.formula.expression.atomic.literal.*;
+import org.spldev.formula.expression.compound.*;
+import org.spldev.formula.expression.eval.*;
+import org.spldev.util.job.*;
+import org.spldev.util.tree.*;
+
+public class NNFTransformerTest {
+
+	@Test
+	public void randomFormulas() {
+		final RandomFormulas random = new RandomFormulas(0, 5);
+		final VariableMap map = random.getVariableMap();
+		for (int i = 0; i < 200; i++) {
+			final Formula formula = random.formula(4);
+			final Formula copy = Trees.cloneTree(formula);
+			final Formula nnf = new NNFTransformer().execute(formula, new NullMonitor());
+			assertEquals(copy, formula);
+			checkNNF(nnf, true);
+			for (int j = 0; j < (1 << map.size()); j++) {
+				final Assignment assignment = assignment(map, j);
+				assertEquals(Formulas.evaluate(formula, assignment), Formulas.evaluate(nnf, assignment));
+			}
+		}
+	}
+
+	@Test
+	public void negatedCardinals() {
+		final VariableMap map = VariableMap.fromNames(Arrays.asList("A", "B", "C", "D", "E"));
+		final List<Formula> elements = new ArrayList<>();
+		for (int i = 1; i <= map.size(); i++) {
+			elements.add(map.getLiteral(i, true).get());
+		}
+		for (final Formula cardinal : Arrays.asList(new AtMost(elements, 1), new AtLeast(elements, 4),
+			new Between(elements, 1, 3), new Choose(elements, 2))) {
+			final VariableMap encoderMap = map.clone();
+			final CardinalityEncoder encoder = new CardinalityEncoder(encoderMap);
+			encoder.setMaximumNumberOfBinomialClauses(0);
+			final Formula nnf = new NNFTransformer(encoder).execute(new Not(cardinal), new NullMonitor());
+			checkNNF(nnf, true);
+			final int auxiliaryCount = encoderMap.getMaxIndex() - map.getMaxIndex();
+			for (int j = 0; j < (1 << map.size()); j++) {
+				boolean satisfiable = false;
+				for (int k = 0; !satisfiable && (k < (1 << auxiliaryCount)); k++) {
+					satisfiable = Formulas.evaluate(nnf, assignment(encoderMap, j | (k << map.size()))).equals(
+						Optional.of(Boolean.TRUE));
+				}
+				assertEquals(Formulas.evaluate(cardinal, assignment(map, j)), Optional.of(!satisfiable), cardinal
+					.toString());
+			}
+		}
+	}
+
+	@Test
+	public void operandDefinitions() {
+		final RandomFormulas random = new RandomFormulas(1, 4);
+		final VariableMap map = random.getVariableMap();
+		for (int i = 0; i < 200; i++) {
+			final Formula formula = random.formula(3);
+			final VariableMap definitionMap = map.clone();
+			final NNFTransformer transformer = new NNFTransformer();
+			transformer.setVariableMap(definitionMap);
+			final Formula nnf = transformer.execute(formula, new NullMonitor());
+			checkNNF(nnf, true);
+			final int auxiliaryCount = definitionMap.getMaxIndex() - map.getMaxIndex();
+			if (auxiliaryCount > 8) {
+				continue;
+			}
+			for (int j = 0; j < (1 << map.size()); j++) {
+				int models = 0;
+				for (int k = 0; k < (1 << auxiliaryCount); k++) {
+					if (Formulas.evaluate(nnf, assignment(definitionMap, j | (k << map.size()))).equals(Optional.of(
+						Boolean.TRUE))) {
+						models++;
+					}
+				}
+				assertEquals(Formulas.evaluate(formula, assignment(map, j)), Optional.of(models == 1));
+				assertTrue(models <= 1);
+			}
+		}
+	}
+
+	@Test
+	public void constants() {
+		final VariableMap map = VariableMap.fromNames(Arrays.asList("A", "B"));
+		final Literal a = map.getLiteral("A", true).get();
+		final Literal b = map.getLiteral("B", true).get();
+		final NNFTransformer transformer = new NNFTransformer();
+		assertEquals(Literal.False, transformer.execute(new And(a, new Not(new Or(b, Literal.True))),
+			new NullMonitor()));
+		assertEquals(a, transformer.execute(new Or(new And(a, Literal.True), Literal.False), new NullMonitor()));
+		assertEquals(new And(a, b.flip(), a.flip()), transformer.execute(new And(a, new Not(new Or(b, new Implies(
+			Literal.True, a)))), new NullMonitor()));
+	}
+
+	private static Assignment assignment(VariableMap map, int bits) {
+		final Assignment assignment = new VariableAssignment(map);
+		for (int i = 1; i <= map.getMaxIndex(); i++) {
+			assignment.set(i, ((bits >> (i - 1)) & 1) != 0);
+		}
+		return assignment;
+	}
+
+	private static void checkNNF(Expression node, boolean root) {
+		if (node instanceof Atomic) {
+			assertTrue(root || ((node != Literal.True) && (node != Literal.False)));
+		} else {
+			assertTrue((node instanceof And) || (node instanceof Or), String.valueOf(node));
+			assertTrue(node.getChildren().size() > 1);
+			for (final Expression child : node.getChildren()) {
+				assertNotSame(node.getClass(), child.getClass());
+				checkNNF(child, false);
+			}
+		}
+	}
+
+}